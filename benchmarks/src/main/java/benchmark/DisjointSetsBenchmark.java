@@ -0,0 +1,67 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sets.ConcurrentDisjointSets;
+import sets.DisjointSets;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** find/union on random pairs, as Kruskal does on a graph with random costs. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DisjointSetsBenchmark {
+    @Param({"100000", "1000000"})
+    public int numNodes;
+
+    private int[] pairs; // 4 * numNodes random node ids, taken two at a time
+
+    @Setup
+    public void generate() {
+        Random random = new Random(42);
+        pairs = new int[8 * numNodes];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(numNodes);
+        }
+    }
+
+    @Benchmark
+    public int disjointSets() {
+        DisjointSets sets = new DisjointSets();
+        sets.createSets(numNodes);
+        int unions = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (sets.find(pairs[i]) != sets.find(pairs[i + 1])) {
+                sets.union(pairs[i], pairs[i + 1]);
+                unions++;
+            }
+        }
+        return unions;
+    }
+
+    @Benchmark
+    public int concurrentDisjointSets() {
+        ConcurrentDisjointSets sets = new ConcurrentDisjointSets(numNodes);
+        int unions = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (sets.union(pairs[i], pairs[i + 1])) {
+                unions++;
+            }
+        }
+        return unions;
+    }
+}
@@ -0,0 +1,218 @@
+package benchmark;
+
+import graph.CityNode;
+import graph.Graph;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Synthetic graphs for the benchmarks. Every generator is sized by the
+ *  approximate number of roads, so different shapes of the same size do
+ *  about the same amount of work per arc. Coordinates are in the range of
+ *  the USA map (x in [0, 7], y in [0, 4]). */
+public class GraphGenerators {
+
+    /** Shapes of generated graphs */
+    public enum GraphType {
+        /** Random points, connected to all points within a radius (about 8 neighbors), cost = distance */
+        GEOMETRIC,
+        /** Square grid with 4 neighbors per node and random costs */
+        GRID,
+        /** Preferential attachment (Barabasi-Albert), 4 roads per new node, random costs */
+        POWER_LAW,
+        /** Every pair of nodes is connected, random costs */
+        COMPLETE
+    }
+
+    private static final int MAX_COST = 1_000_000;
+
+    /**
+     * Generate a graph
+     * @param type shape of the graph
+     * @param numRoads approximate number of roads
+     * @param seed seed of the random generator
+     * @return the graph
+     */
+    public static Graph generate(GraphType type, int numRoads, long seed) {
+        Random random = new Random(seed);
+        switch (type) {
+            case GEOMETRIC:
+                return geometric(Math.max(2, numRoads / 4), 8, random);
+            case GRID:
+                return grid((int) Math.max(2, Math.sqrt(numRoads / 2.0)), random);
+            case POWER_LAW:
+                return powerLaw(Math.max(5, numRoads / 4), 4, random);
+            case COMPLETE:
+                return complete((int) Math.max(2, Math.sqrt(2.0 * numRoads)), random);
+            default:
+                throw new IllegalArgumentException("Unknown graph type " + type);
+        }
+    }
+
+    /**
+     * Write a graph in the NODES/ARCS text format read by Graph(String filename)
+     * @param graph graph to write
+     * @param filename name of the output file
+     */
+    public static void writeText(Graph graph, String filename) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+            out.println("NODES");
+            out.println(graph.numNodes());
+            for (int i = 0; i < graph.numNodes(); i++) {
+                CityNode node = graph.getNode(i);
+                out.println(node.getCity() + " " + node.getX() + " " + node.getY());
+            }
+            out.println("ARCS");
+            for (int arc = 0; arc < graph.numArcs(); arc++) {
+                if (graph.arcEdgeId(arc) == arc) {
+                    out.println(graph.getNode(graph.arcSource(arc)).getCity() + " "
+                            + graph.getNode(graph.arcTarget(arc)).getCity() + " " + graph.arcCost(arc));
+                }
+            }
+        }
+    }
+
+    /** Random geometric graph with about degree neighbors per node */
+    private static Graph geometric(int n, int degree, Random random) {
+        CityNode[] nodes = randomNodes(n, random);
+        // connect points closer than radius; bucket the points in cells of that size
+        double radius = Math.sqrt(degree * 7.0 * 4.0 / (Math.PI * n));
+        int cellsX = Math.max(1, (int) (7.0 / radius));
+        int cellsY = Math.max(1, (int) (4.0 / radius));
+        int[] cellStart = new int[cellsX * cellsY + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cell(nodes[i], cellsX, cellsY);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cellsX * cellsY; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, cellsX * cellsY);
+        int[] byCell = new int[n];
+        for (int i = 0; i < n; i++) {
+            byCell[fill[cellOf[i]]++] = i;
+        }
+
+        RoadList roads = new RoadList();
+        for (int i = 0; i < n; i++) {
+            int cx = cellOf[i] % cellsX;
+            int cy = cellOf[i] / cellsX;
+            for (int y = Math.max(0, cy - 1); y <= Math.min(cellsY - 1, cy + 1); y++) {
+                for (int x = Math.max(0, cx - 1); x <= Math.min(cellsX - 1, cx + 1); x++) {
+                    int c = y * cellsX + x;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int j = byCell[k];
+                        double d = distance(nodes[i], nodes[j]);
+                        if (j > i && d <= radius) {
+                            roads.add(i, j, (int) (d * 1000));
+                        }
+                    }
+                }
+            }
+        }
+        return roads.toGraph(nodes);
+    }
+
+    /** side x side grid, every node connected to its right and lower neighbor */
+    private static Graph grid(int side, Random random) {
+        CityNode[] nodes = new CityNode[side * side];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new CityNode("C" + i, 7.0 * (i % side) / side, 4.0 * (i / side) / side);
+        }
+        RoadList roads = new RoadList();
+        for (int i = 0; i < nodes.length; i++) {
+            if (i % side + 1 < side) {
+                roads.add(i, i + 1, random.nextInt(MAX_COST));
+            }
+            if (i + side < nodes.length) {
+                roads.add(i, i + side, random.nextInt(MAX_COST));
+            }
+        }
+        return roads.toGraph(nodes);
+    }
+
+    /** Barabasi-Albert graph: each new node connects to perNode existing nodes chosen proportionally to degree */
+    private static Graph powerLaw(int n, int perNode, Random random) {
+        CityNode[] nodes = randomNodes(n, random);
+        RoadList roads = new RoadList();
+        // every endpoint of every road, so a uniform pick is proportional to degree
+        int[] endpoints = new int[2 * perNode * n + 2 * perNode * perNode];
+        int numEndpoints = 0;
+        for (int i = 0; i <= perNode; i++) {
+            for (int j = 0; j < i; j++) {
+                roads.add(i, j, random.nextInt(MAX_COST));
+                endpoints[numEndpoints++] = i;
+                endpoints[numEndpoints++] = j;
+            }
+        }
+        for (int i = perNode + 1; i < n; i++) {
+            int before = numEndpoints;
+            for (int k = 0; k < perNode; k++) {
+                int j = endpoints[random.nextInt(before)];
+                roads.add(i, j, random.nextInt(MAX_COST));
+                endpoints[numEndpoints++] = i;
+                endpoints[numEndpoints++] = j;
+            }
+        }
+        return roads.toGraph(nodes);
+    }
+
+    /** Complete graph on n nodes */
+    private static Graph complete(int n, Random random) {
+        CityNode[] nodes = randomNodes(n, random);
+        RoadList roads = new RoadList();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                roads.add(i, j, random.nextInt(MAX_COST));
+            }
+        }
+        return roads.toGraph(nodes);
+    }
+
+    private static CityNode[] randomNodes(int n, Random random) {
+        CityNode[] nodes = new CityNode[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new CityNode("C" + i, 7 * random.nextDouble(), 4 * random.nextDouble());
+        }
+        return nodes;
+    }
+
+    private static int cell(CityNode node, int cellsX, int cellsY) {
+        int x = Math.min(cellsX - 1, (int) (node.getX() / 7.0 * cellsX));
+        int y = Math.min(cellsY - 1, (int) (node.getY() / 4.0 * cellsY));
+        return y * cellsX + x;
+    }
+
+    private static double distance(CityNode a, CityNode b) {
+        return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+    }
+
+    /** Growable primitive arrays of roads */
+    private static class RoadList {
+        int[] from = new int[16];
+        int[] to = new int[16];
+        int[] cost = new int[16];
+        int size;
+
+        void add(int u, int v, int c) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+                cost = Arrays.copyOf(cost, 2 * size);
+            }
+            from[size] = u;
+            to[size] = v;
+            cost[size] = c;
+            size++;
+        }
+
+        Graph toGraph(CityNode[] nodes) {
+            return new Graph(nodes, from, to, cost, size);
+        }
+    }
+}
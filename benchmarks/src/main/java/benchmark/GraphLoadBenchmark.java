@@ -0,0 +1,66 @@
+package benchmark;
+
+import graph.Graph;
+import graph.GraphLoader;
+import graph.GraphSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Loading the same graph from the text format (both loaders) and from a snapshot. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphLoadBenchmark {
+    @Param({"100000", "1000000"})
+    public int numRoads;
+
+    private File textFile;
+    private File snapshotFile;
+
+    @Setup
+    public void writeFiles() throws IOException {
+        Graph graph = GraphGenerators.generate(GraphGenerators.GraphType.GEOMETRIC, numRoads, 42);
+        textFile = File.createTempFile("graph", ".txt");
+        snapshotFile = File.createTempFile("graph", ".mstg");
+        GraphGenerators.writeText(graph, textFile.getPath());
+        GraphSnapshot.write(graph, snapshotFile.getPath());
+    }
+
+    @TearDown
+    public void deleteFiles() {
+        textFile.delete();
+        snapshotFile.delete();
+    }
+
+    @Benchmark
+    public Graph textConstructor() {
+        return new Graph(textFile.getPath());
+    }
+
+    @Benchmark
+    public Graph mappedLoader() throws IOException {
+        return new GraphLoader().load(textFile.getPath());
+    }
+
+    @Benchmark
+    public Graph snapshot() throws IOException {
+        return GraphSnapshot.open(snapshotFile.getPath());
+    }
+}
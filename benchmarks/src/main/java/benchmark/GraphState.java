@@ -0,0 +1,24 @@
+package benchmark;
+
+import graph.Graph;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmark state holding one generated graph per (type, size) parameter combination. */
+@State(Scope.Benchmark)
+public class GraphState {
+    @Param({"GEOMETRIC", "GRID", "POWER_LAW", "COMPLETE"})
+    public GraphGenerators.GraphType type;
+
+    @Param({"10000", "100000", "1000000"})
+    public int numRoads;
+
+    public Graph graph;
+
+    @Setup
+    public void generate() {
+        graph = GraphGenerators.generate(type, numRoads, 42);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import graph.EdgeCursor;
+import graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import priorityQueue.DaryHeap;
+import priorityQueue.IndexedPriorityQueue;
+import priorityQueue.MinHeap;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/** MinHeap against DaryHeap on the reduceKey/removeMin sequence of Prim's algorithm. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+    /** 0 for MinHeap, otherwise the arity of the DaryHeap */
+    @Param({"0", "2", "4", "8"})
+    public int arity;
+
+    @Param({"100000", "1000000"})
+    public int numRoads;
+
+    private Graph graph;
+
+    @Setup
+    public void generate() {
+        graph = GraphGenerators.generate(GraphGenerators.GraphType.GEOMETRIC, numRoads, 42);
+    }
+
+    /** The heap operations of Prim's algorithm from vertex 0; returns the number of reduceKey calls */
+    @Benchmark
+    public long primWorkload() {
+        int n = graph.numNodes();
+        IndexedPriorityQueue queue = arity == 0 ? new MinHeap(n) : new DaryHeap(n, arity);
+        int[] cost = new int[n];
+        boolean[] added = new boolean[n];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        EdgeCursor cursor = graph.edgeCursor();
+        long reduceKeys = 1;
+        cost[0] = -1;
+        queue.reduceKey(0, -1);
+        while (!queue.isEmpty()) {
+            int v = queue.removeMin();
+            if (cost[v] == Integer.MAX_VALUE) {
+                break; // MinHeap also holds the vertices that were never reached
+            }
+            added[v] = true;
+            cursor.reset(v);
+            while (cursor.next()) {
+                int w = cursor.target();
+                if (!added[w] && cursor.cost() < cost[w]) {
+                    cost[w] = cursor.cost();
+                    queue.reduceKey(w, cost[w]);
+                    reduceKeys++;
+                }
+            }
+        }
+        return reduceKeys;
+    }
+
+    /** Fill the heap with random priorities and empty it */
+    @Benchmark
+    public long removeAll() {
+        int n = graph.numNodes();
+        IndexedPriorityQueue queue = arity == 0 ? new MinHeap(n) : new DaryHeap(n, arity);
+        long seed = 42;
+        for (int v = 0; v < n; v++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            queue.reduceKey(v, (int) (seed >>> 34));
+        }
+        long sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.removeMin();
+        }
+        return sum;
+    }
+}
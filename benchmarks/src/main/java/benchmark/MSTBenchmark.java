@@ -0,0 +1,97 @@
+package benchmark;
+
+import algo.BoruvkaAlgorithm;
+import algo.KruskalAlgorithm;
+import algo.MSTAlgorithm;
+import algo.MSTWorkspace;
+import algo.ParallelPrimAlgorithm;
+import algo.PrimAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Full MST computations on the generated graphs. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MSTBenchmark {
+
+    /** A workspace per thread, reused by every invocation (as in BatchMSTEngine) */
+    @State(Scope.Thread)
+    public static class WorkspaceState {
+        public final MSTWorkspace workspace = new MSTWorkspace();
+    }
+
+    @Benchmark
+    public MSTAlgorithm prim(GraphState state) {
+        MSTAlgorithm algo = new PrimAlgorithm(state.graph, 0);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm primWorkspace(GraphState state, WorkspaceState workspace) {
+        MSTAlgorithm algo = new PrimAlgorithm(state.graph, 0, PrimAlgorithm.DEFAULT_HEAP_ARITY, workspace.workspace);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm primBinaryHeap(GraphState state) {
+        MSTAlgorithm algo = new PrimAlgorithm(state.graph, 0, 2);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm primParallel(GraphState state) {
+        MSTAlgorithm algo = new ParallelPrimAlgorithm(state.graph);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm kruskalClassic(GraphState state) {
+        MSTAlgorithm algo = new KruskalAlgorithm(state.graph, KruskalAlgorithm.Mode.CLASSIC);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm kruskalFilter(GraphState state) {
+        MSTAlgorithm algo = new KruskalAlgorithm(state.graph, KruskalAlgorithm.Mode.FILTER);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm kruskalFilterWorkspace(GraphState state, WorkspaceState workspace) {
+        MSTAlgorithm algo = new KruskalAlgorithm(state.graph, KruskalAlgorithm.Mode.FILTER, workspace.workspace);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm kruskalRadix(GraphState state) {
+        MSTAlgorithm algo = new KruskalAlgorithm(state.graph, KruskalAlgorithm.Mode.RADIX);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm boruvka(GraphState state) {
+        MSTAlgorithm algo = new BoruvkaAlgorithm(state.graph);
+        algo.computeMST();
+        return algo;
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import algo.PrimAlgorithm;
+import graph.Edge;
+import graph.EdgeCursor;
+import graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Layout of Prim's state: the relaxation scan over all arcs with the old table of
+ *  int[n][3] rows against one primitive array per column (and a bit set for Added),
+ *  and a full PrimAlgorithm run whose edges are read through the packed result.
+ *  Run with -prof gc to see the allocation per operation. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimStateBenchmark {
+
+    @Benchmark
+    public long rowTableScan(GraphState state) {
+        Graph graph = state.graph;
+        int n = graph.numNodes();
+        int[][] table = new int[n][3];
+        for (int[] row : table) {
+            row[1] = Integer.MAX_VALUE;
+            row[2] = -1;
+        }
+        List<Edge> edges = new ArrayList<>();
+        EdgeCursor cursor = graph.edgeCursor();
+        for (int u = 0; u < n; u++) {
+            table[u][0] = 1;
+            if (table[u][2] != -1) {
+                edges.add(new Edge(u, table[u][2], table[u][1]));
+            }
+            cursor.reset(u);
+            while (cursor.next()) {
+                int[] row = table[cursor.target()];
+                if (row[0] == 0 && (row[2] == -1 || cursor.cost() < row[1])) {
+                    row[1] = cursor.cost();
+                    row[2] = u;
+                }
+            }
+        }
+        return edges.size();
+    }
+
+    @Benchmark
+    public long columnArraysScan(GraphState state) {
+        Graph graph = state.graph;
+        int n = graph.numNodes();
+        long[] added = new long[(n + 63) >>> 6];
+        int[] cost = new int[n];
+        int[] parent = new int[n];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        int[] treeEdges = new int[3 * n];
+        int numEdges = 0;
+        EdgeCursor cursor = graph.edgeCursor();
+        for (int u = 0; u < n; u++) {
+            added[u >>> 6] |= 1L << u;
+            if (parent[u] != -1) {
+                treeEdges[3 * numEdges] = u;
+                treeEdges[3 * numEdges + 1] = parent[u];
+                treeEdges[3 * numEdges + 2] = cost[u];
+                numEdges++;
+            }
+            cursor.reset(u);
+            while (cursor.next()) {
+                int v = cursor.target();
+                if ((added[v >>> 6] & (1L << v)) == 0 && (parent[v] == -1 || cursor.cost() < cost[v])) {
+                    cost[v] = cursor.cost();
+                    parent[v] = u;
+                }
+            }
+        }
+        return numEdges;
+    }
+
+    @Benchmark
+    public long prim(GraphState state) {
+        PrimAlgorithm algo = new PrimAlgorithm(state.graph, 0);
+        algo.computeMST();
+        return algo.numMSTEdges();
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import algo.KruskalAlgorithm;
+import algo.MSTAlgorithm;
+import algo.PrimAlgorithm;
+import graph.Graph;
+import graph.VertexOrdering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** MST computations on the same graph with its vertices renumbered by each
+ *  VertexOrdering. The generated geometric graphs number their points in random
+ *  order, like a file that lists cities alphabetically; the grid is already
+ *  numbered row by row and serves as a control. Run with
+ *  -prof perfnorm (Linux) to see the cache misses per operation. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VertexOrderingBenchmark {
+    @Param({"NONE", "HILBERT", "BFS", "RCM"})
+    public VertexOrdering ordering;
+
+    @Param({"GEOMETRIC", "GRID"})
+    public GraphGenerators.GraphType type;
+
+    @Param({"1000000", "4000000"})
+    public int numRoads;
+
+    private Graph graph;
+
+    @Setup
+    public void generate() {
+        graph = GraphGenerators.generate(type, numRoads, 42).reorder(ordering);
+    }
+
+    @Benchmark
+    public MSTAlgorithm prim() {
+        MSTAlgorithm algo = new PrimAlgorithm(graph, 0);
+        algo.computeMST();
+        return algo;
+    }
+
+    @Benchmark
+    public MSTAlgorithm kruskalFilter() {
+        MSTAlgorithm algo = new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.FILTER);
+        algo.computeMST();
+        return algo;
+    }
+}
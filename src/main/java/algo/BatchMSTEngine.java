@@ -0,0 +1,265 @@
+package algo;
+
+import graph.Graph;
+import graph.GraphLoader;
+import graph.GraphSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/** Computes the MSTs of batches of graphs on a work-stealing ForkJoinPool, for
+ *  programs that run many small and medium MSTs and would otherwise spend their
+ *  time allocating (and collecting) a heap, a table and disjoint sets per graph.
+ *
+ *  Every graph of a batch is a task of its own, so the threads steal graphs from
+ *  each other and from other batches that run at the same time. A task borrows an
+ *  MSTWorkspace from a pool and returns it when its MST is done; the pool never
+ *  holds more workspaces than the number of tasks that ran at the same time, and
+ *  each of them grows to the largest graph it has seen. */
+public class BatchMSTEngine implements AutoCloseable {
+    private final BatchRunner.Algorithm algorithm;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedDeque<MSTWorkspace> workspaces = new ConcurrentLinkedDeque<>();
+
+    /** The MSTs of one batch and how long it took */
+    public static class BatchResult {
+        private final List<MSTAlgorithm> msts;
+        private final long nanos;
+        private final long numNodes;
+        private final long numArcs;
+
+        BatchResult(List<MSTAlgorithm> msts, long nanos, long numNodes, long numArcs) {
+            this.msts = msts;
+            this.nanos = nanos;
+            this.numNodes = numNodes;
+            this.numArcs = numArcs;
+        }
+
+        /**
+         * Return the computed algorithms, in the order of the graphs of the batch
+         * @return one MSTAlgorithm per graph
+         */
+        public List<MSTAlgorithm> getMSTs() {
+            return msts;
+        }
+
+        /**
+         * Return the time from the start of the first MST to the end of the last one
+         * @return nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Return the number of graphs computed per second
+         * @return throughput in graphs per second
+         */
+        public double graphsPerSecond() {
+            return msts.size() / (nanos / 1e9);
+        }
+
+        /**
+         * Return the number of arcs processed per second
+         * @return throughput in arcs per second
+         */
+        public double arcsPerSecond() {
+            return numArcs / (nanos / 1e9);
+        }
+
+        /**
+         * Return the summary of the batch
+         * @return graphs, nodes, arcs, time and throughput
+         */
+        @Override
+        public String toString() {
+            return String.format("%d graphs, %d nodes, %d arcs in %.1f ms: %.1f graphs/s, %.2f M arcs/s",
+                    msts.size(), numNodes, numArcs, nanos / 1e6, graphsPerSecond(), arcsPerSecond() / 1e6);
+        }
+    }
+
+    /**
+     * Constructor with one thread per processor
+     * @param algorithm algorithm used for every graph
+     */
+    public BatchMSTEngine(BatchRunner.Algorithm algorithm) {
+        this(algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     * @param algorithm algorithm used for every graph
+     * @param numThreads number of threads of the pool
+     */
+    public BatchMSTEngine(BatchRunner.Algorithm algorithm, int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        }
+        this.algorithm = algorithm;
+        this.pool = new ForkJoinPool(numThreads);
+    }
+
+    /**
+     * Start computing the MSTs of a batch. Batches that are submitted before the
+     * previous ones are done share the threads of the pool
+     * @param graphs the graphs of the batch
+     * @return the result, when every MST of the batch is done
+     */
+    public CompletableFuture<BatchResult> submit(List<Graph> graphs) {
+        CompletableFuture<BatchResult> future = new CompletableFuture<>();
+        pool.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    future.complete(computeBatch(graphs));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Compute the MSTs of a batch and wait for them
+     * @param graphs the graphs of the batch
+     * @return the result
+     */
+    public BatchResult run(List<Graph> graphs) {
+        return submit(graphs).join();
+    }
+
+    /** Fork one task per graph and wait for all of them (runs in the pool) */
+    private BatchResult computeBatch(List<Graph> graphs) {
+        long start = System.nanoTime();
+        MSTAlgorithm[] msts = new MSTAlgorithm[graphs.size()];
+        List<RecursiveAction> tasks = new ArrayList<>(graphs.size());
+        long numNodes = 0;
+        long numArcs = 0;
+        for (int i = 0; i < graphs.size(); i++) {
+            int index = i;
+            Graph graph = graphs.get(i);
+            numNodes += graph.numNodes();
+            numArcs += graph.numArcs();
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    msts[index] = computeMST(graph);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return new BatchResult(Arrays.asList(msts), System.nanoTime() - start, numNodes, numArcs);
+    }
+
+    /** Compute the MST of one graph with a borrowed workspace */
+    private MSTAlgorithm computeMST(Graph graph) {
+        MSTWorkspace workspace = workspaces.pollFirst();
+        if (workspace == null) {
+            workspace = new MSTWorkspace();
+        }
+        try {
+            MSTAlgorithm mst = algorithm.create(graph, workspace);
+            mst.computeMST();
+            return mst;
+        } finally {
+            // the most recently used (and warmest) workspace is handed out first
+            workspaces.addFirst(workspace);
+        }
+    }
+
+    /**
+     * Return the number of workspaces in the pool
+     * @return number of idle workspaces
+     */
+    public int numWorkspaces() {
+        return workspaces.size();
+    }
+
+    /**
+     * Return the memory held by the idle workspaces
+     * @return bytes
+     */
+    public long workspaceBytes() {
+        long bytes = 0;
+        for (MSTWorkspace workspace : workspaces) {
+            bytes += workspace.bytes();
+        }
+        return bytes;
+    }
+
+    /** Stop the threads of the pool after the batches that were submitted */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load graph files and compute their MSTs in batches, printing the throughput of every batch.
+     * Usage: BatchMSTEngine [--algo NAME] [--threads N] [--batch N] [--rounds N] file...
+     * With --rounds, all the batches are computed again, so later rounds show the
+     * throughput with warm workspaces.
+     */
+    public static void main(String[] args) throws IOException {
+        BatchRunner.Algorithm algorithm = BatchRunner.Algorithm.KRUSKAL;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int batchSize = 64;
+        int rounds = 1;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--algo":
+                    algorithm = BatchRunner.Algorithm.byName(BatchRunner.value(args, ++i));
+                    break;
+                case "--threads":
+                    numThreads = Integer.parseInt(BatchRunner.value(args, ++i));
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(BatchRunner.value(args, ++i));
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(BatchRunner.value(args, ++i));
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    files.add(args[i]);
+            }
+        }
+        if (files.isEmpty() || batchSize < 1) {
+            System.out.println("Usage: BatchMSTEngine [--algo NAME] [--threads N] [--batch N] [--rounds N] file...");
+            return;
+        }
+        List<Graph> graphs = new ArrayList<>();
+        for (String file : files) {
+            graphs.add(GraphSnapshot.isSnapshot(file) ? GraphSnapshot.open(file) : new GraphLoader().load(file));
+        }
+
+        try (BatchMSTEngine engine = new BatchMSTEngine(algorithm, numThreads)) {
+            for (int round = 0; round < rounds; round++) {
+                List<CompletableFuture<BatchResult>> batches = new ArrayList<>();
+                for (int from = 0; from < graphs.size(); from += batchSize) {
+                    batches.add(engine.submit(graphs.subList(from, Math.min(graphs.size(), from + batchSize))));
+                }
+                for (int b = 0; b < batches.size(); b++) {
+                    System.out.printf("round %d, batch %d: %s%n", round + 1, b + 1, batches.get(b).join());
+                }
+            }
+            System.out.printf("%d workspaces, %d bytes%n", engine.numWorkspaces(), engine.workspaceBytes());
+        }
+    }
+}
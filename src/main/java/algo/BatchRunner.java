@@ -0,0 +1,395 @@
+package algo;
+
+import graph.Graph;
+import graph.GraphLoader;
+import graph.GraphSnapshot;
+import graph.VertexOrdering;
+import graph.Weights;
+import metrics.MSTMetrics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Headless mode of MSTDriver: computes the MST of many graph files on a pool of
+ *  worker threads, without opening a window.
+ *
+ *  MSTDriver --headless [--algo prim|prim-parallel|kruskal|kruskal-classic|kruskal-radix|boruvka|euclidean]
+ *            [--format csv|json|bin] [--threads N] [--order none|hilbert|bfs|rcm]
+ *            [--cache DIR] [--cache-mb N] [--out DIR] file...
+ *
+ *  Every file is loaded (text or GraphSnapshot), its MST is computed with the chosen
+ *  algorithm, and, if --out is given, the MST edges are written to DIR/name.mst.csv,
+ *  .json or .bin. One summary line per file (nodes, MST edges, connected components,
+ *  total weight and the load, compute and write times) is printed to System.out in
+ *  the chosen format (csv for bin), in the order the files were given. With --order,
+ *  the vertices are renumbered after loading (see VertexOrdering; part of the load
+ *  time), and the binary output still uses the ids of the input file.
+ *
+ *  With --cache-mb (memory only) or --cache (memory and DIR), MSTs are looked up in
+ *  an MSTResultCache by the content hash of the graph, so a file that was already
+ *  computed is only loaded; the cache statistics are printed to System.err.
+ *
+ *  When the JVM runs with -Dmst.metrics=true, the MSTMetrics of the whole batch are
+ *  written as JSON to DIR/metrics.json (or to System.err without --out). */
+public class BatchRunner {
+    /** Magic number at the start of a binary MST file ("MSTE") */
+    public static final int BINARY_MAGIC = 0x4D535445;
+    private static final long DEFAULT_CACHE_BYTES = 256L << 20; // memory of the cache without --cache-mb
+
+    /** Algorithms that can be selected with --algo */
+    public enum Algorithm {
+        PRIM("prim"), PRIM_PARALLEL("prim-parallel"), KRUSKAL("kruskal"), KRUSKAL_CLASSIC("kruskal-classic"), KRUSKAL_RADIX("kruskal-radix"),
+        BORUVKA("boruvka"),
+        /** MST of the complete graph on the coordinates of the cities; ignores the ARCS */
+        EUCLIDEAN("euclidean");
+
+        private final String name;
+
+        Algorithm(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Create the algorithm for the graph
+         * @param graph input graph
+         * @return a new MSTAlgorithm
+         */
+        MSTAlgorithm create(Graph graph) {
+            return create(graph, null);
+        }
+
+        /**
+         * Create the algorithm for the graph. Prim and the Kruskal modes take their
+         * scratch arrays from the workspace; the other algorithms ignore it
+         * @param graph input graph
+         * @param workspace reused scratch arrays, or null
+         * @return a new MSTAlgorithm
+         */
+        MSTAlgorithm create(Graph graph, MSTWorkspace workspace) {
+            switch (this) {
+                case PRIM:
+                    return new PrimAlgorithm(graph, 0, PrimAlgorithm.DEFAULT_HEAP_ARITY, workspace);
+                case PRIM_PARALLEL:
+                    return new ParallelPrimAlgorithm(graph);
+                case KRUSKAL:
+                    return new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.FILTER, workspace);
+                case KRUSKAL_CLASSIC:
+                    return new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.CLASSIC, workspace);
+                case KRUSKAL_RADIX:
+                    return new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.RADIX, workspace);
+                case BORUVKA:
+                    return new BoruvkaAlgorithm(graph);
+                default:
+                    return new EuclideanMSTAlgorithm(graph);
+            }
+        }
+
+        /** Find the algorithm with the given command line name */
+        static Algorithm byName(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name.equals(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** Formats of the output files */
+    public enum Format { CSV, JSON, BIN }
+
+    private Algorithm algorithm = Algorithm.KRUSKAL;
+    private Format format = Format.CSV;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private VertexOrdering ordering = VertexOrdering.NONE;
+    private File cacheDir; // disk tier of the cache, or null
+    private long cacheBytes = -1; // memory of the cache, -1 if not given
+    private MSTResultCache cache; // null: no cache
+    private File outDir; // null: do not write the edges
+    private final List<String> files = new ArrayList<>();
+
+    /**
+     * Parse the command line. Arguments that do not start with -- are input files
+     * @param args command line arguments (--headless is ignored)
+     */
+    public BatchRunner(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--headless":
+                    break;
+                case "--algo":
+                    algorithm = Algorithm.byName(value(args, ++i));
+                    break;
+                case "--format":
+                    format = Format.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--threads":
+                    numThreads = Integer.parseInt(value(args, ++i));
+                    if (numThreads < 1) {
+                        throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+                    }
+                    break;
+                case "--order":
+                    ordering = VertexOrdering.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--cache":
+                    cacheDir = new File(value(args, ++i));
+                    break;
+                case "--cache-mb":
+                    cacheBytes = Long.parseLong(value(args, ++i)) << 20;
+                    break;
+                case "--out":
+                    outDir = new File(value(args, ++i));
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    files.add(args[i]);
+            }
+        }
+        if (cacheDir != null || cacheBytes >= 0) {
+            cache = new MSTResultCache(cacheBytes >= 0 ? cacheBytes : DEFAULT_CACHE_BYTES, cacheDir);
+        }
+    }
+
+    /**
+     * Run the batch. Prints the summary of every file to System.out
+     * @return number of files that could not be processed
+     */
+    public int run() {
+        if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+            System.err.println("Could not create the output directory " + outDir);
+            return files.size();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, files.size())));
+        List<Future<Result>> results = new ArrayList<>();
+        for (String file : files) {
+            results.add(pool.submit(() -> process(file)));
+        }
+        pool.shutdown();
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        if (format != Format.JSON) {
+            out.println("file,algorithm,nodes,edges,components,totalWeight,loadMillis,mstMillis,writeMillis");
+        }
+        int failed = 0;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                Result result = results.get(i).get();
+                out.println(format == Format.JSON ? result.toJson(true) + "}" : result.toCsv());
+            } catch (ExecutionException e) {
+                out.flush();
+                System.err.println(files.get(i) + ": " + e.getCause());
+                failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed += files.size() - i;
+                break;
+            }
+            out.flush(); // show every line as soon as it is known
+        }
+        if (MSTMetrics.ENABLED) {
+            writeMetrics();
+        }
+        if (cache != null) {
+            System.err.println(cache);
+        }
+        return failed;
+    }
+
+    /** Write the JSON report of MSTMetrics */
+    private void writeMetrics() {
+        if (outDir == null) {
+            System.err.println(MSTMetrics.toJson());
+            return;
+        }
+        File target = new File(outDir, "metrics.json");
+        try (PrintWriter out = new PrintWriter(new FileWriter(target))) {
+            out.println(MSTMetrics.toJson());
+        } catch (IOException e) {
+            System.err.println("Could not write " + target + ": " + e.getMessage());
+        }
+    }
+
+    /** Load one file, compute its MST and write the edges */
+    private Result process(String file) throws IOException {
+        Result result = new Result(file);
+        long start = System.nanoTime();
+        // the files are already processed in parallel, so each one is parsed by one thread
+        Graph graph = GraphSnapshot.isSnapshot(file) ? GraphSnapshot.open(file) : new GraphLoader(1).load(file);
+        graph = graph.reorder(ordering);
+        result.loadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        MSTAlgorithm mst = algorithm.create(graph);
+        if (cache != null) {
+            mst = new CachedMSTAlgorithm(graph, mst, algorithm.toString(), cache);
+        }
+        mst.computeMST();
+        result.mstNanos = System.nanoTime() - start;
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.MST_NANOS.add(result.mstNanos);
+            MSTMetrics.MST_RUNS.increment();
+        }
+        result.numNodes = graph.numNodes();
+        SpanningForest forest = mst.getSpanningForest();
+        result.numEdges = forest.numEdges();
+        result.numComponents = forest.numComponents();
+        result.weights = mst.getWeights();
+        result.totalWeight = forest.getTotalWeightAsDouble();
+        if (result.weights.isIntegral()) {
+            result.exactTotalWeight = forest.getTotalWeight();
+        }
+
+        if (outDir != null) {
+            start = System.nanoTime();
+            File target = new File(outDir, new File(file).getName() + ".mst." + format.name().toLowerCase(Locale.ROOT));
+            write(graph, mst, result, target);
+            result.writeNanos = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    /** Write the MST edges of one file in the chosen format */
+    private void write(Graph graph, MSTAlgorithm mst, Result result, File target) throws IOException {
+        MSTResult edges = mst.getResult();
+        if (format == Format.BIN) {
+            // header: magic, number of nodes, number of edges, weight kind, total weight;
+            // then (id1, id2, weight) per edge. Weights and the total are longs for
+            // Weights.Kind.INT and LONG, doubles for DOUBLE
+            Weights weights = result.weights;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(target), 1 << 16))) {
+                out.writeInt(BINARY_MAGIC);
+                out.writeInt(result.numNodes);
+                out.writeInt(result.numEdges);
+                out.writeInt(weights.getKind().ordinal());
+                if (weights.isIntegral()) {
+                    out.writeLong(result.exactTotalWeight);
+                } else {
+                    out.writeDouble(result.totalWeight);
+                }
+                for (int i = 0; i < edges.numEdges(); i++) {
+                    out.writeInt(graph.getOriginalId(edges.id1(i)));
+                    out.writeInt(graph.getOriginalId(edges.id2(i)));
+                    if (weights.isIntegral()) {
+                        out.writeLong(weights.longWeight(edges.cost(i)));
+                    } else {
+                        out.writeDouble(weights.doubleWeight(edges.cost(i)));
+                    }
+                }
+            }
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(target), 1 << 16))) {
+            if (format == Format.CSV) {
+                out.println("city1,city2,cost");
+                for (int i = 0; i < edges.numEdges(); i++) {
+                    out.print(csv(graph.getNode(edges.id1(i)).getCity()));
+                    out.print(',');
+                    out.print(csv(graph.getNode(edges.id2(i)).getCity()));
+                    out.print(',');
+                    out.println(result.weights.format(edges.cost(i)));
+                }
+            } else {
+                out.print(result.toJson(false));
+                out.println(",\"mst\":[");
+                for (int i = 0; i < edges.numEdges(); i++) {
+                    out.print("{\"city1\":" + json(graph.getNode(edges.id1(i)).getCity())
+                            + ",\"city2\":" + json(graph.getNode(edges.id2(i)).getCity())
+                            + ",\"cost\":" + result.weights.format(edges.cost(i)) + "}");
+                    out.println(i + 1 < edges.numEdges() ? "," : "");
+                }
+                out.println("]}");
+            }
+            if (out.checkError()) {
+                throw new IOException("Could not write " + target);
+            }
+        }
+    }
+
+    /** Summary of one processed file */
+    private class Result {
+        final String file;
+        int numNodes;
+        int numEdges;
+        int numComponents; // more than 1 if the graph is not connected
+        Weights weights; // weights of the costs of the graph
+        double totalWeight;
+        long exactTotalWeight; // the total, if the weights are whole numbers
+        long loadNanos, mstNanos, writeNanos;
+
+        Result(String file) {
+            this.file = file;
+        }
+
+        /** The total weight as text: exact for whole weights, the Kahan sum otherwise */
+        String total() {
+            return weights.isIntegral() ? Long.toString(exactTotalWeight) : Double.toString(totalWeight);
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%s,%.3f,%.3f,%.3f", csv(file), algorithm,
+                    numNodes, numEdges, numComponents, total(), loadNanos / 1e6, mstNanos / 1e6, writeNanos / 1e6);
+        }
+
+        /** The fields of a JSON object, without the closing brace */
+        String toJson(boolean withWriteTime) {
+            String json = String.format(Locale.ROOT, "{\"file\":%s,\"algorithm\":\"%s\",\"nodes\":%d,"
+                    + "\"edges\":%d,\"components\":%d,\"totalWeight\":%s,\"loadMillis\":%.3f,\"mstMillis\":%.3f",
+                    json(file), algorithm, numNodes, numEdges, numComponents, total(), loadNanos / 1e6, mstNanos / 1e6);
+            return withWriteTime ? String.format(Locale.ROOT, "%s,\"writeMillis\":%.3f", json, writeNanos / 1e6) : json;
+        }
+    }
+
+    /** Quote a CSV field if it has a comma, a quote or a line break */
+    private static String csv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    /** JSON string literal */
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
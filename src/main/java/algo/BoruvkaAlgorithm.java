@@ -0,0 +1,185 @@
+package algo;
+
+import graph.*;
+import sets.ConcurrentDisjointSets;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Subclass of MSTAlgorithm. Computes MST of the graph using Boruvka's algorithm,
+ *  running the expensive parts of each round on a ForkJoinPool.
+ *
+ *  Every round, each component finds its cheapest outgoing edge (in parallel over
+ *  ranges of vertices), the components are merged along the selected edges through
+ *  ConcurrentDisjointSets, and every vertex is relabeled with its new component.
+ *  The number of components at least halves every round, so there are O(log n) rounds.
+ *
+ *  Edges are compared by (cost, edge id). Since no two edges are equal under this
+ *  order the MST is unique, so the result does not depend on the number of threads
+ *  and is the same set of edges that KruskalAlgorithm returns. */
+public class BoruvkaAlgorithm extends MSTAlgorithm {
+    private static final int SEQUENTIAL_THRESHOLD = 4096; // vertices handled by one fork-join task
+    private static final long NONE = Long.MAX_VALUE; // no outgoing edge found
+
+    private final Graph graph;
+    private final int numThreads; // 0 to use the common pool
+
+    /**
+     * Constructor for BoruvkaAlgorithm. Uses the common ForkJoinPool
+     * @param graph input graph
+     */
+    public BoruvkaAlgorithm(Graph graph) {
+        this(graph, 0);
+    }
+
+    /**
+     * Constructor for BoruvkaAlgorithm
+     * @param graph input graph
+     * @param numThreads number of threads to use (0 for the common ForkJoinPool)
+     */
+    public BoruvkaAlgorithm(Graph graph, int numThreads) {
+        super(graph);
+        if (numThreads < 0) {
+            throw new IllegalArgumentException("Number of threads can not be negative: " + numThreads);
+        }
+        this.graph = graph;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Compute minimum spanning tree for this graph using Boruvka's algorithm.
+     * Add edges of MST to edgesMST list.
+     */
+    @Override
+    public void computeMST() {
+        ForkJoinPool pool = numThreads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(numThreads);
+        try {
+            computeMST(pool);
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Run the rounds of Boruvka's algorithm on the given pool
+     * @param pool pool that runs the parallel phases
+     */
+    private void computeMST(ForkJoinPool pool) {
+        int n = numNodes();
+        int[] component = new int[n]; // component[v] is the root of v's set in nSets
+        for (int v = 0; v < n; v++) {
+            component[v] = v;
+        }
+        ConcurrentDisjointSets nSets = new ConcurrentDisjointSets(n);
+        boolean[] selected = new boolean[n]; // selected[c]: the edge chosen by component c joins the MST
+        // cheapest[c] is the smallest (cost, edge id) key of an edge leaving component c
+        AtomicLongArray cheapest = new AtomicLongArray(n);
+        for (int v = 0; v < n; v++) {
+            cheapest.set(v, NONE);
+        }
+
+        int added;
+        do {
+            // 1. every vertex offers its cheapest edge leaving its component to the component
+            pool.invoke(new VertexRange(0, n, (from, to) -> {
+                EdgeCursor cursor = edgeCursor();
+                for (int v = from; v < to; v++) {
+                    int c = component[v];
+                    long best = NONE;
+                    cursor.reset(v);
+                    while (cursor.next()) {
+                        if (component[cursor.target()] != c) {
+                            best = Math.min(best, key(cursor.cost(), cursor.edgeId()));
+                        }
+                    }
+                    long current = cheapest.get(c);
+                    while (best < current && !cheapest.compareAndSet(c, current, best)) {
+                        current = cheapest.get(c);
+                    }
+                }
+            }));
+
+            // 2. merge the components along the selected edges. When two components
+            // select the same edge, only the one with the smaller id adds it; the other
+            // selected edges form a forest, so every union succeeds
+            pool.invoke(new VertexRange(0, n, (from, to) -> {
+                for (int c = from; c < to; c++) {
+                    long best = cheapest.get(c);
+                    selected[c] = false;
+                    if (component[c] != c || best == NONE) {
+                        continue;
+                    }
+                    int arc = (int) best;
+                    int u = graph.arcSource(arc);
+                    int v = graph.arcTarget(arc);
+                    int other = component[u] == c ? component[v] : component[u];
+                    if (cheapest.get(other) == best && other < c) {
+                        continue;
+                    }
+                    selected[c] = nSets.union(u, v);
+                }
+            }));
+
+            // add the edges in the order of the components, so the list is the same for any thread count
+            added = 0;
+            for (int c = 0; c < n; c++) {
+                if (selected[c]) {
+                    int arc = (int) cheapest.get(c);
+                    addMSTEdge(graph.arcSource(arc), graph.arcTarget(arc), graph.arcCost(arc));
+                    added++;
+                }
+            }
+
+            // 3. relabel the vertices with the roots of their new components
+            pool.invoke(new VertexRange(0, n, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    component[v] = nSets.find(v);
+                    cheapest.set(v, NONE);
+                }
+            }));
+        } while (added > 0 && !isCancelled());
+    }
+
+    /**
+     * Key used to compare edges: the cost in the high 32 bits, the edge id
+     * (which is an arc index, so non-negative) in the low 32 bits
+     * @param cost cost of the edge
+     * @param edgeId edge id of the edge
+     * @return key
+     */
+    private static long key(int cost, int edgeId) {
+        return ((long) cost << 32) | edgeId;
+    }
+
+    /** Work done on a range of vertices [from, to) */
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    /** Fork-join task that splits a range of vertices in halves until it is small enough */
+    static class VertexRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final RangeBody body;
+
+        VertexRange(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                body.run(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new VertexRange(from, mid, body), new VertexRange(mid, to, body));
+            }
+        }
+    }
+}
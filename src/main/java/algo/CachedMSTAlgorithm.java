@@ -0,0 +1,72 @@
+package algo;
+
+import graph.Graph;
+import graph.Weights;
+
+/** An MSTAlgorithm that looks the MST up in an MSTResultCache before running
+ *  another algorithm. On a hit the cached edges are added and the algorithm does
+ *  not run; on a miss it runs, and its edges are added to the cache (unless it
+ *  was cancelled). */
+public class CachedMSTAlgorithm extends MSTAlgorithm {
+    private final MSTAlgorithm algorithm; // computes the MST on a miss
+    private final MSTResultCache cache;
+    private final String key;
+    private Weights weights; // weights of the costs of the MST edges, set by computeMST
+    private boolean hit; // true if the last computeMST was answered by the cache
+
+    /**
+     * Constructor
+     * @param graph input graph
+     * @param algorithm algorithm for the graph, used on a miss
+     * @param name name of the algorithm (part of the cache key)
+     * @param cache the cache
+     */
+    public CachedMSTAlgorithm(Graph graph, MSTAlgorithm algorithm, String name, MSTResultCache cache) {
+        super(graph);
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.key = MSTResultCache.key(graph, name);
+        this.weights = graph.getWeights();
+    }
+
+    /**
+     * Add the cached MST edges, or compute them with the algorithm and cache them.
+     */
+    @Override
+    public void computeMST() {
+        MSTResult result = cache.get(key);
+        hit = result != null;
+        if (!hit) {
+            algorithm.computeMST();
+            result = algorithm.getResult();
+            if (!algorithm.isCancelled()) {
+                cache.put(key, result);
+            }
+        }
+        weights = result.getWeights();
+        // the result is not changed by the cache or by this algorithm, so its array can be shared
+        setMSTEdges(result.packedEdges(), result.numEdges());
+        for (int i = 0; i < result.numEdges(); i++) {
+            notifyEdgeAdded(result.id1(i), result.id2(i), result.cost(i), i + 1);
+        }
+    }
+
+    /**
+     * Check if the last computeMST found the result in the cache
+     * @return true on a hit
+     */
+    public boolean isCacheHit() {
+        return hit;
+    }
+
+    @Override
+    public Weights getWeights() {
+        return weights;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        algorithm.cancel();
+    }
+}
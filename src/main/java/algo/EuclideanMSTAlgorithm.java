@@ -0,0 +1,307 @@
+package algo;
+
+import graph.*;
+import sets.DisjointSets;
+
+import java.util.Arrays;
+
+/** Subclass of MSTAlgorithm. Computes the MST of the complete graph on the cities,
+ *  where the cost of every pair is the Euclidean distance between their x/y
+ *  coordinates. The ARCS of the graph are ignored.
+ *
+ *  The n^2 pairs are never built. The cities are stored in a k-d tree, and the
+ *  algorithm runs Boruvka rounds: in every round each city asks the tree for its
+ *  nearest city in another component, and each component keeps the closest answer.
+ *  Subtrees whose cities are all in the asking city's component, or that are
+ *  farther than the best answer so far, are skipped. Components only grow, so the
+ *  distance from a city to its nearest city outside its component never shrinks;
+ *  a city whose distance from the previous rounds is already larger than its
+ *  component's best pair does not ask at all. There are O(log n) rounds.
+ *
+ *  Pairs at the same distance are ordered by their endpoints, so the tree is unique.
+ *  The cost of every MST edge is the rank of its length (see Weights); getWeights()
+ *  returns the lengths. */
+public class EuclideanMSTAlgorithm extends MSTAlgorithm {
+    private static final int LEAF_SIZE = 8; // most cities in a leaf of the k-d tree
+
+    private final double[] xs; // coordinates of every city
+    private final double[] ys;
+    private Weights weights = Weights.INT; // lengths of the MST edges, set by computeMST
+
+    // k-d tree: node k covers the cities perm[lo[k] .. hi[k] - 1] and the box
+    // [minX[k], maxX[k]] x [minY[k], maxY[k]]; leaves have left[k] == -1
+    private int[] perm;
+    private int[] lo, hi, left, right;
+    private double[] minX, maxX, minY, maxY;
+    private int[] nodeComponent; // component of all cities of the node, or -1 if they differ
+    private int numTreeNodes;
+
+    // state of a round: closest pair (squared distance) leaving every component
+    private int[] component; // component of every city (root in the DisjointSets)
+    private double[] bestDist;
+    private int[] bestU, bestV;
+    private double[] lowerBound; // no city outside p's component is closer to p than this (squared)
+    private double found; // smallest squared distance seen by the current query
+
+    /**
+     * Constructor for EuclideanMSTAlgorithm. Takes the graph
+     * @param graph input graph (only the coordinates of the cities are used)
+     */
+    public EuclideanMSTAlgorithm(Graph graph) {
+        super(graph);
+        int n = graph.numNodes();
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = graph.getNode(i).getX();
+            ys[i] = graph.getNode(i).getY();
+        }
+    }
+
+    /**
+     * Compute the Euclidean minimum spanning tree of the cities.
+     * Add edges of MST to edgesMST list.
+     */
+    @Override
+    public void computeMST() {
+        int n = numNodes();
+        buildTree();
+        DisjointSets sets = new DisjointSets();
+        sets.createSets(n);
+        component = new int[n];
+        for (int v = 0; v < n; v++) {
+            component[v] = v;
+        }
+        bestDist = new double[n];
+        bestU = new int[n];
+        bestV = new int[n];
+        lowerBound = new double[n];
+
+        int[] from = new int[Math.max(0, n - 1)];
+        int[] to = new int[from.length];
+        double[] length = new double[from.length];
+        int numEdges = 0;
+        while (numEdges < n - 1 && !isCancelled()) {
+            Arrays.fill(bestDist, Double.POSITIVE_INFINITY);
+            Arrays.fill(bestU, -1);
+            labelTree();
+            for (int p = 0; p < n; p++) {
+                double bound = bestDist[component[p]];
+                if (lowerBound[p] > bound) {
+                    continue; // p can not improve its component's pair
+                }
+                found = bound;
+                nearestOutside(0, p);
+                // nothing outside was closer than found (the query only skipped farther subtrees)
+                lowerBound[p] = Math.max(lowerBound[p], found);
+            }
+            // every component's closest pair is an MST edge; two components may pick the same one
+            for (int c = 0; c < n; c++) {
+                if (bestU[c] >= 0 && sets.find(bestU[c]) != sets.find(bestV[c])) {
+                    sets.union(bestU[c], bestV[c]);
+                    from[numEdges] = bestU[c];
+                    to[numEdges] = bestV[c];
+                    length[numEdges] = Math.sqrt(bestDist[c]);
+                    numEdges++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                component[v] = sets.find(v);
+            }
+        }
+
+        // the costs of the edges are the ranks of their lengths
+        int[] ranks = new int[numEdges];
+        weights = Weights.rankDoubles(length, numEdges, ranks);
+        for (int i = 0; i < numEdges; i++) {
+            addMSTEdge(from[i], to[i], ranks[i]);
+        }
+        perm = null;
+        component = null;
+        bestDist = null;
+        bestU = null;
+        bestV = null;
+        lowerBound = null;
+    }
+
+    /** The lengths of the MST edges (available after computeMST) */
+    @Override
+    public Weights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Look for a city closer to p than the best pair of p's component, in another
+     * component, in the subtree of the given node
+     * @param node node of the k-d tree
+     * @param p city that asks
+     */
+    private void nearestOutside(int node, int p) {
+        int c = component[p];
+        if (nodeComponent[node] == c || boxDistance(node, p) > bestDist[c]) {
+            return;
+        }
+        if (left[node] == -1) {
+            for (int k = lo[node]; k < hi[node]; k++) {
+                int q = perm[k];
+                if (component[q] != c) {
+                    double dx = xs[p] - xs[q];
+                    double dy = ys[p] - ys[q];
+                    double dist = dx * dx + dy * dy;
+                    found = Math.min(found, dist);
+                    offer(c, dist, Math.min(p, q), Math.max(p, q));
+                }
+            }
+            return;
+        }
+        // the child whose box is closer first, so the bound shrinks sooner
+        if (boxDistance(left[node], p) <= boxDistance(right[node], p)) {
+            nearestOutside(left[node], p);
+            nearestOutside(right[node], p);
+        } else {
+            nearestOutside(right[node], p);
+            nearestOutside(left[node], p);
+        }
+    }
+
+    /** Keep the pair (u, v) for component c if it is smaller in the (distance, u, v) order */
+    private void offer(int c, double dist, int u, int v) {
+        if (dist < bestDist[c] || (dist == bestDist[c]
+                && (u < bestU[c] || (u == bestU[c] && v < bestV[c])))) {
+            bestDist[c] = dist;
+            bestU[c] = u;
+            bestV[c] = v;
+        }
+    }
+
+    /** Squared distance from city p to the box of a node (0 if p is inside) */
+    private double boxDistance(int node, int p) {
+        double dx = Math.max(0, Math.max(minX[node] - xs[p], xs[p] - maxX[node]));
+        double dy = Math.max(0, Math.max(minY[node] - ys[p], ys[p] - maxY[node]));
+        return dx * dx + dy * dy;
+    }
+
+    /** Build the k-d tree over all cities */
+    private void buildTree() {
+        int n = numNodes();
+        perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        int capacity = Math.max(1, 4 * (n / LEAF_SIZE) + 4);
+        lo = new int[capacity];
+        hi = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        minX = new double[capacity];
+        maxX = new double[capacity];
+        minY = new double[capacity];
+        maxY = new double[capacity];
+        nodeComponent = new int[capacity];
+        numTreeNodes = 0;
+        build(0, n);
+    }
+
+    /**
+     * Create the node for the cities perm[from .. to - 1] and its subtree. The range
+     * is split at its median along the wider side of its bounding box.
+     * @return index of the node
+     */
+    private int build(int from, int to) {
+        int node = numTreeNodes++;
+        if (node == lo.length) {
+            grow();
+        }
+        lo[node] = from;
+        hi[node] = to;
+        double x0 = Double.POSITIVE_INFINITY, x1 = Double.NEGATIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int k = from; k < to; k++) {
+            x0 = Math.min(x0, xs[perm[k]]);
+            x1 = Math.max(x1, xs[perm[k]]);
+            y0 = Math.min(y0, ys[perm[k]]);
+            y1 = Math.max(y1, ys[perm[k]]);
+        }
+        minX[node] = x0;
+        maxX[node] = x1;
+        minY[node] = y0;
+        maxY[node] = y1;
+        if (to - from <= LEAF_SIZE) {
+            left[node] = -1;
+            right[node] = -1;
+            return node;
+        }
+        int mid = (from + to) >>> 1;
+        select(from, to, mid, x1 - x0 >= y1 - y0 ? xs : ys);
+        int l = build(from, mid);
+        int r = build(mid, to);
+        left[node] = l;
+        right[node] = r;
+        return node;
+    }
+
+    /** Reorder perm[from .. to - 1] so perm[k] has the k-th smallest coordinate (quickselect) */
+    private void select(int from, int to, int k, double[] coord) {
+        int a = from;
+        int b = to - 1;
+        while (a < b) {
+            double pivot = coord[perm[(a + b) >>> 1]];
+            int i = a;
+            int j = b;
+            while (i <= j) {
+                while (coord[perm[i]] < pivot) {
+                    i++;
+                }
+                while (coord[perm[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = perm[i];
+                    perm[i] = perm[j];
+                    perm[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                b = j;
+            } else if (k >= i) {
+                a = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /** Compute nodeComponent for the current components. Children come after their
+     *  parent in the node arrays, so one backward pass sees every child first. */
+    private void labelTree() {
+        for (int node = numTreeNodes - 1; node >= 0; node--) {
+            if (left[node] == -1) {
+                int c = component[perm[lo[node]]];
+                for (int k = lo[node] + 1; k < hi[node] && c != -1; k++) {
+                    if (component[perm[k]] != c) {
+                        c = -1;
+                    }
+                }
+                nodeComponent[node] = c;
+            } else {
+                int c = nodeComponent[left[node]];
+                nodeComponent[node] = c == nodeComponent[right[node]] ? c : -1;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = 2 * lo.length;
+        lo = Arrays.copyOf(lo, capacity);
+        hi = Arrays.copyOf(hi, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        nodeComponent = Arrays.copyOf(nodeComponent, capacity);
+    }
+}
@@ -0,0 +1,508 @@
+package algo;
+
+import sets.DisjointSets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.StringTokenizer;
+
+/** Kruskal's algorithm for graph files whose roads do not fit in memory. Only the
+ *  cities (names and the DisjointSets over their ids) are kept in memory.
+ *
+ *  The ARCS section is read in runs of runSize roads; every run is sorted and written
+ *  to a temporary file as binary records (kind, cost, id1, id2, line). The runs are
+ *  merged, at most MERGE_FAN_IN at a time, and the merged stream of roads is fed
+ *  to the DisjointSets. MST edges are written to the output file as they are found,
+ *  one "city1 city2 cost" line each, so memory use does not depend on the number
+ *  of roads.
+ *
+ *  Costs may be integers (up to a long) or decimals. Roads of equal cost are taken
+ *  in the order of their city ids (smaller id first), then of their lines in the
+ *  file. That is the edge id order of Graph, so the result is the same set of edges
+ *  that KruskalAlgorithm returns. */
+public class ExternalKruskal {
+    public static final int DEFAULT_RUN_SIZE = 1 << 20; // roads sorted in memory at a time
+    private static final int MERGE_FAN_IN = 64; // runs merged at the same time
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte INTEGER = 0; // kinds of costs in a record
+    private static final byte DECIMAL = 1;
+
+    private final int runSize;
+    private final File tmpDir; // directory of the run files
+
+    // result of the last run
+    private int numNodes;
+    private int numEdges;
+    private int numRuns;
+    private long numRoads;
+    private long longTotal; // total of the integer costs of the MST edges
+    private double doubleTotal; // Kahan sum of the decimal costs
+    private double compensation; // low-order bits lost by the Kahan sum
+    private boolean hasDecimals;
+
+    /**
+     * Constructor with the default run size and the system temporary directory
+     */
+    public ExternalKruskal() {
+        this(DEFAULT_RUN_SIZE, null);
+    }
+
+    /**
+     * Constructor
+     * @param runSize number of roads sorted in memory at a time
+     * @param tmpDir directory for the run files, or null for the system temporary directory
+     */
+    public ExternalKruskal(int runSize, File tmpDir) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("Run size must be positive: " + runSize);
+        }
+        this.runSize = runSize;
+        this.tmpDir = tmpDir;
+    }
+
+    /** One road of the ARCS section */
+    private static class Record {
+        byte kind; // INTEGER or DECIMAL
+        long bits; // the cost, or Double.doubleToLongBits of it
+        int id1;
+        int id2;
+        long line; // position in the ARCS section, breaks ties between parallel roads
+
+        /** Read the next record of a run; false at the end of the run */
+        boolean read(DataInputStream in) throws IOException {
+            try {
+                kind = in.readByte();
+            } catch (EOFException e) {
+                return false;
+            }
+            bits = in.readLong();
+            id1 = in.readInt();
+            id2 = in.readInt();
+            line = in.readLong();
+            return true;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(kind);
+            out.writeLong(bits);
+            out.writeInt(id1);
+            out.writeInt(id2);
+            out.writeLong(line);
+        }
+
+        String cost() {
+            return kind == INTEGER ? Long.toString(bits) : Double.toString(Double.longBitsToDouble(bits));
+        }
+    }
+
+    /**
+     * Compute the minimum spanning forest of a graph file and write its edges
+     * @param input graph in the NODES/ARCS text format
+     * @param output file for the MST edges
+     * @throws IOException if a file can not be read or written, or the input is not valid
+     */
+    public void run(String input, String output) throws IOException {
+        numEdges = 0;
+        numRuns = 0;
+        numRoads = 0;
+        longTotal = 0;
+        doubleTotal = 0;
+        compensation = 0;
+        hasDecimals = false;
+        File dir = (tmpDir == null ? Files.createTempDirectory("mst-runs")
+                : Files.createTempDirectory(tmpDir.toPath(), "mst-runs")).toFile();
+        List<File> runs = new ArrayList<>();
+        try {
+            String[] names;
+            try (BufferedReader reader = new BufferedReader(new FileReader(input), BUFFER_SIZE)) {
+                names = readNodes(reader, input);
+                writeRuns(reader, input, names, dir, runs);
+            }
+            numNodes = names.length;
+            numRuns = runs.size();
+            while (runs.size() > MERGE_FAN_IN) {
+                runs = mergePass(runs, dir);
+            }
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(output), BUFFER_SIZE))) {
+                kruskal(runs, names, out);
+                if (out.checkError()) {
+                    throw new IOException("Could not write " + output);
+                }
+            }
+        } finally {
+            for (File run : runs) {
+                Files.deleteIfExists(run.toPath());
+            }
+            File[] left = dir.listFiles();
+            if (left != null) {
+                for (File file : left) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            Files.deleteIfExists(dir.toPath());
+        }
+    }
+
+    /** Read the NODES section; return the city names, the index is the node id */
+    private String[] readNodes(BufferedReader reader, String input) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !line.trim().equals("NODES")) {
+            throw new IOException(input + ": expected NODES");
+        }
+        line = reader.readLine();
+        int n;
+        try {
+            n = Integer.parseInt(line == null ? "" : line.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(input + ": expected the number of nodes");
+        }
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException(input + ": unexpected end of the NODES section");
+            }
+            names[i] = new StringTokenizer(line).nextToken();
+        }
+        line = reader.readLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = reader.readLine();
+        }
+        if (line == null || !line.trim().equals("ARCS")) {
+            throw new IOException(input + ": expected ARCS");
+        }
+        return names;
+    }
+
+    /** Read the ARCS section in runs of runSize roads and write every run sorted */
+    private void writeRuns(BufferedReader reader, String input, String[] names, File dir, List<File> runs)
+            throws IOException {
+        HashMap<String, Integer> ids = new HashMap<>(2 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        byte[] kind = new byte[runSize];
+        long[] bits = new long[runSize];
+        int[] id1 = new int[runSize];
+        int[] id2 = new int[runSize];
+        long[] lineOf = new long[runSize];
+        int size = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            StringTokenizer tokens = new StringTokenizer(line);
+            if (!tokens.hasMoreTokens()) {
+                continue;
+            }
+            Integer from = ids.get(tokens.nextToken());
+            Integer to = tokens.hasMoreTokens() ? ids.get(tokens.nextToken()) : null;
+            if (from == null || to == null || !tokens.hasMoreTokens()) {
+                throw new IOException(input + ": invalid road: " + line);
+            }
+            String cost = tokens.nextToken();
+            try {
+                bits[size] = Long.parseLong(cost);
+                kind[size] = INTEGER;
+            } catch (NumberFormatException e) {
+                if (isInteger(cost)) {
+                    throw new IOException(input + ": cost out of the long range: " + line);
+                }
+                double value = Double.parseDouble(cost);
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new IOException(input + ": invalid cost: " + line);
+                }
+                bits[size] = Double.doubleToLongBits(value);
+                kind[size] = DECIMAL;
+            }
+            id1[size] = from;
+            id2[size] = to;
+            lineOf[size] = numRoads++;
+            if (++size == runSize) {
+                runs.add(writeRun(kind, bits, id1, id2, lineOf, size, dir));
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            runs.add(writeRun(kind, bits, id1, id2, lineOf, size, dir));
+        }
+    }
+
+    /** Sort the first size roads of the arrays and write them to a new run file */
+    private File writeRun(byte[] kind, long[] bits, int[] id1, int[] id2, long[] lineOf, int size, File dir)
+            throws IOException {
+        // sort an index array with a merge sort, so no record objects are created
+        int[] index = new int[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        long[] pair = new long[size];
+        for (int i = 0; i < size; i++) {
+            pair[i] = pair(id1[i], id2[i]);
+        }
+        mergeSort(index, new int[size], 0, size, kind, bits, pair, lineOf);
+
+        File run = File.createTempFile("run", ".bin", dir);
+        Record record = new Record();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+            for (int k = 0; k < size; k++) {
+                int i = index[k];
+                record.kind = kind[i];
+                record.bits = bits[i];
+                record.id1 = id1[i];
+                record.id2 = id2[i];
+                record.line = lineOf[i];
+                record.write(out);
+            }
+        }
+        return run;
+    }
+
+    /** Merge sort of index[from .. to - 1] by the (cost, cities, line) of the roads */
+    private static void mergeSort(int[] index, int[] tmp, int from, int to, byte[] kind, long[] bits,
+                                  long[] pair, long[] lineOf) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(index, tmp, from, mid, kind, bits, pair, lineOf);
+        mergeSort(index, tmp, mid, to, kind, bits, pair, lineOf);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            int a = index[i];
+            int b = index[j];
+            if (compare(kind[b], bits[b], pair[b], lineOf[b], kind[a], bits[a], pair[a], lineOf[a]) < 0) {
+                tmp[k++] = index[j++];
+            } else {
+                tmp[k++] = index[i++];
+            }
+        }
+        while (i < mid) {
+            tmp[k++] = index[i++];
+        }
+        while (j < to) {
+            tmp[k++] = index[j++];
+        }
+        System.arraycopy(tmp, from, index, from, to - from);
+    }
+
+    /** The ids of the cities of a road, smaller id first, packed in a long */
+    private static long pair(int id1, int id2) {
+        return id1 < id2 ? ((long) id1 << 32) | id2 : ((long) id2 << 32) | id1;
+    }
+
+    /** Compare two roads by cost, then by cities, then by line */
+    private static int compare(byte kindA, long bitsA, long pairA, long lineA,
+                               byte kindB, long bitsB, long pairB, long lineB) {
+        int c;
+        if (kindA == INTEGER && kindB == INTEGER) {
+            c = Long.compare(bitsA, bitsB);
+        } else if (kindA == DECIMAL && kindB == DECIMAL) {
+            c = Double.compare(Double.longBitsToDouble(bitsA), Double.longBitsToDouble(bitsB));
+        } else {
+            // a long and a double: compare exactly
+            c = decimal(kindA, bitsA).compareTo(decimal(kindB, bitsB));
+        }
+        if (c == 0) {
+            c = Long.compare(pairA, pairB);
+        }
+        return c != 0 ? c : Long.compare(lineA, lineB);
+    }
+
+    private static BigDecimal decimal(byte kind, long bits) {
+        return kind == INTEGER ? BigDecimal.valueOf(bits) : new BigDecimal(Double.longBitsToDouble(bits));
+    }
+
+    private static int compare(Record a, Record b) {
+        return compare(a.kind, a.bits, pair(a.id1, a.id2), a.line, b.kind, b.bits, pair(b.id1, b.id2), b.line);
+    }
+
+    /** A run being merged, with its next record */
+    private static class RunReader {
+        final DataInputStream in;
+        final Record head = new Record();
+
+        RunReader(File run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), BUFFER_SIZE));
+        }
+    }
+
+    /** Receives the records of a merge in order */
+    private interface RecordSink {
+        /** @return false to stop the merge */
+        boolean accept(Record record) throws IOException;
+    }
+
+    /** Merge the runs and pass their records to the sink in (cost, cities, line) order */
+    private static void merge(List<File> runs, RecordSink sink) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> compare(a.head, b.head));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.head.read(reader.in)) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                if (!sink.accept(reader.head)) {
+                    return;
+                }
+                if (reader.head.read(reader.in)) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    /** Merge groups of MERGE_FAN_IN runs into longer runs */
+    private static List<File> mergePass(List<File> runs, File dir) throws IOException {
+        List<File> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += MERGE_FAN_IN) {
+            List<File> group = runs.subList(from, Math.min(runs.size(), from + MERGE_FAN_IN));
+            File run = File.createTempFile("run", ".bin", dir);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+                merge(group, record -> {
+                    record.write(out);
+                    return true;
+                });
+            }
+            for (File file : group) {
+                Files.deleteIfExists(file.toPath());
+            }
+            merged.add(run);
+        }
+        return merged;
+    }
+
+    /** Feed the merged roads to the DisjointSets and write the MST edges */
+    private void kruskal(List<File> runs, String[] names, PrintWriter out) throws IOException {
+        DisjointSets sets = new DisjointSets();
+        sets.createSets(names.length);
+        merge(runs, record -> {
+            if (sets.find(record.id1) != sets.find(record.id2)) {
+                sets.union(record.id1, record.id2);
+                out.print(names[record.id1]);
+                out.print(' ');
+                out.print(names[record.id2]);
+                out.print(' ');
+                out.println(record.cost());
+                addToTotal(record);
+                numEdges++;
+            }
+            return numEdges < names.length - 1; // the tree is complete
+        });
+    }
+
+    private void addToTotal(Record record) {
+        if (record.kind == INTEGER) {
+            longTotal = Math.addExact(longTotal, record.bits);
+            return;
+        }
+        hasDecimals = true;
+        double y = Double.longBitsToDouble(record.bits) - compensation;
+        double t = doubleTotal + y;
+        compensation = (t - doubleTotal) - y;
+        doubleTotal = t;
+    }
+
+    /** Return true if the cost is an optional sign followed by digits */
+    private static boolean isInteger(String cost) {
+        int i = cost.startsWith("-") || cost.startsWith("+") ? 1 : 0;
+        if (i == cost.length()) {
+            return false;
+        }
+        for (; i < cost.length(); i++) {
+            if (cost.charAt(i) < '0' || cost.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of edges of the last MST
+     * @return number of MST edges
+     */
+    public int numMSTEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Return the number of connected components of the last graph
+     * @return number of components (1 if the graph is connected)
+     */
+    public int numComponents() {
+        return numNodes - numEdges;
+    }
+
+    /**
+     * Return the number of sorted runs written for the last graph
+     * @return number of runs
+     */
+    public int numRuns() {
+        return numRuns;
+    }
+
+    /**
+     * Return the number of roads in the last graph
+     * @return number of roads
+     */
+    public long numRoads() {
+        return numRoads;
+    }
+
+    /**
+     * Return the total weight of the last MST as text: exact if all costs are integers
+     * @return total weight
+     */
+    public String getTotalWeight() {
+        if (!hasDecimals) {
+            return Long.toString(longTotal);
+        }
+        return Double.toString(doubleTotal + longTotal);
+    }
+
+    /**
+     * Compute the MST of a graph file that does not fit in memory.
+     * Usage: ExternalKruskal input.txt output.txt [runSize [tmpDir]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Usage: ExternalKruskal <input.txt> <output.txt> [run size] [temporary directory]");
+            return;
+        }
+        ExternalKruskal kruskal = new ExternalKruskal(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RUN_SIZE,
+                args.length > 3 ? new File(args[3]) : null);
+        long start = System.nanoTime();
+        kruskal.run(args[0], args[1]);
+        System.out.printf("%d roads in %d runs: %d MST edges, %d components, total weight %s, %.1f ms%n",
+                kruskal.numRoads(), kruskal.numRuns(), kruskal.numMSTEdges(), kruskal.numComponents(),
+                kruskal.getTotalWeight(), (System.nanoTime() - start) / 1e6);
+    }
+}
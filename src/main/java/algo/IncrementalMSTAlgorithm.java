@@ -0,0 +1,493 @@
+package algo;
+
+import dynamicTree.LinkCutTree;
+import graph.*;
+import sets.DisjointSets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/** Subclass of MSTAlgorithm that keeps the MST up to date while roads are added,
+ *  removed or change their cost, instead of recomputing it from scratch.
+ *
+ *  The current tree is stored in a LinkCutTree, where each road is a node of its
+ *  own between the nodes of its two cities, with the cost as its value:
+ *  - adding a road (or making a road cheaper) asks for the most expensive road on
+ *    the tree path between its endpoints, and swaps the two if the new road is
+ *    cheaper: O(log n) amortized.
+ *  - removing a tree road (or making it more expensive) cuts it and looks for the
+ *    cheapest road that reconnects the two halves. The roads that are not in the
+ *    tree are kept sorted by cost, and the first one that crosses the cut is taken,
+ *    so this is fast when a replacement is cheap, and O(m log n) in the worst case.
+ *
+ *  A road is identified by its two endpoints; there is at most one road between
+ *  two cities (for parallel roads in the graph, the cheapest one is kept).
+ *
+ *  The updates take real weights, not the ranks the graph stores: longs on a graph
+ *  with integer weights, doubles on a graph with fractional weights (see Weights).
+ *  Decimal weights are kept as long bits that compare like the doubles. The edges
+ *  of the tree and of an MSTDelta get their own Weights, built when they are read. */
+public class IncrementalMSTAlgorithm extends MSTAlgorithm {
+    private final int numCities;
+    private final LinkCutTree forest; // node v is city v, node numCities + e is road e
+
+    // roads, indexed by slot; free slots are reused
+    private int[] roadU = new int[0];
+    private int[] roadV = new int[0];
+    private long[] roadValue = new long[0]; // weight of the road, or sortable bits of a decimal weight
+    private boolean[] inTree = new boolean[0];
+    private int numSlots;
+    private int[] freeSlots = new int[0];
+    private int numFree;
+    private final boolean decimals; // the graph has fractional weights
+    private final HashMap<Long, Integer> slotOfPair = new HashMap<>();
+    // roads ordered by (value, slot); a road must be removed from nonTreeRoads before its value changes
+    private final Comparator<Integer> byValue = (a, b) -> roadValue[a] != roadValue[b]
+            ? Long.compare(roadValue[a], roadValue[b]) : Integer.compare(a, b);
+    private final TreeSet<Integer> nonTreeRoads = new TreeSet<>(byValue); // slots of the roads not in the tree
+
+    private boolean treeChanged; // edgesMST has to be rebuilt before it is read
+    private Weights treeWeights = Weights.INT; // weights of the costs in edgesMST
+    // (u, v, value) of the roads that joined or left the tree since the last query
+    private final LinkedHashMap<Integer, long[]> addedSinceQuery = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, long[]> removedSinceQuery = new LinkedHashMap<>();
+
+    /**
+     * Constructor for IncrementalMSTAlgorithm. Takes the graph
+     * @param graph input graph; its roads are the starting point of the updates
+     */
+    public IncrementalMSTAlgorithm(Graph graph) {
+        super(graph);
+        numCities = graph.numNodes();
+        forest = new LinkCutTree(numCities);
+        decimals = !graph.getWeights().isIntegral();
+    }
+
+    /**
+     * Compute minimum spanning tree of the roads of the graph with Kruskal's
+     * algorithm, and load it into the link-cut tree. Later changes are applied
+     * with addEdge, updateCost and removeEdge.
+     */
+    @Override
+    public void computeMST() {
+        Weights weights = super.getWeights();
+        EdgeCursor cursor = edgeCursor();
+        for (int u = 0; u < numCities; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                // every road once, from its lower endpoint
+                if (cursor.edgeId() != cursor.arc()) {
+                    continue;
+                }
+                // ranks are in the same order as the weights, so the cheapest parallel road has the smallest value
+                long value = decimals ? sortable(weights.doubleWeight(cursor.cost()))
+                        : weights.longWeight(cursor.cost());
+                Integer slot = slotOfPair.get(pairKey(u, cursor.target()));
+                if (slot == null) {
+                    slotOfPair.put(pairKey(u, cursor.target()), newSlot(u, cursor.target(), value));
+                } else if (value < roadValue[slot]) {
+                    roadValue[slot] = value;
+                }
+            }
+        }
+
+        Integer[] slots = new Integer[numSlots];
+        for (int slot = 0; slot < numSlots; slot++) {
+            slots[slot] = slot;
+        }
+        Arrays.sort(slots, byValue);
+        DisjointSets nSets = new DisjointSets();
+        nSets.createSets(numCities);
+        for (int slot : slots) {
+            forest.setValue(numCities + slot, roadValue[slot]);
+            if (nSets.find(roadU[slot]) != nSets.find(roadV[slot])) {
+                nSets.union(roadU[slot], roadV[slot]);
+                linkRoad(slot);
+            } else {
+                nonTreeRoads.add(slot);
+            }
+        }
+        treeChanged = true;
+        addedSinceQuery.clear();
+        removedSinceQuery.clear();
+        syncMST();
+    }
+
+    /**
+     * Add a road. If there is already a road between u and v, its cost is updated instead.
+     * On a graph with fractional weights, the cost is taken as a double
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param cost weight of the road
+     */
+    public void addEdge(int u, int v, long cost) {
+        addValue(u, v, decimals ? sortable(cost) : cost);
+    }
+
+    /**
+     * Add a road. If there is already a road between u and v, its cost is updated instead.
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param cost weight of the road
+     * @throws IllegalArgumentException if the graph has integer weights, or cost is NaN
+     */
+    public void addEdge(int u, int v, double cost) {
+        addValue(u, v, decimalValue(cost));
+    }
+
+    /**
+     * Change the cost of the road between u and v. On a graph with fractional weights,
+     * the cost is taken as a double
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param newCost new weight of the road
+     * @throws IllegalArgumentException if there is no such road
+     */
+    public void updateCost(int u, int v, long newCost) {
+        updateValue(slotOf(u, v), decimals ? sortable(newCost) : newCost);
+    }
+
+    /**
+     * Change the cost of the road between u and v
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param newCost new weight of the road
+     * @throws IllegalArgumentException if there is no such road, the graph has
+     *         integer weights, or newCost is NaN
+     */
+    public void updateCost(int u, int v, double newCost) {
+        long value = decimalValue(newCost);
+        updateValue(slotOf(u, v), value);
+    }
+
+    /** Add a road with the given value, or update the value of the road between u and v */
+    private void addValue(int u, int v, long value) {
+        checkCity(u);
+        checkCity(v);
+        Integer existing = slotOfPair.get(pairKey(u, v));
+        if (existing != null) {
+            updateValue(existing, value);
+            return;
+        }
+        int slot = newSlot(u, v, value);
+        slotOfPair.put(pairKey(u, v), slot);
+        insert(slot);
+    }
+
+    /** Change the value of the road in slot */
+    private void updateValue(int slot, long newValue) {
+        long oldValue = roadValue[slot];
+        if (newValue == oldValue) {
+            return;
+        }
+        if (!inTree[slot]) {
+            // a non-tree road can only enter the tree by becoming cheaper
+            nonTreeRoads.remove(slot);
+            roadValue[slot] = newValue;
+            insert(slot);
+            return;
+        }
+
+        recordRemoved(slot);
+        roadValue[slot] = newValue;
+        forest.setValue(numCities + slot, newValue);
+        if (newValue > oldValue) {
+            // a more expensive tree road may be replaced by a road that crosses the same cut
+            cutRoad(slot);
+            int replacement = cheapestCrossing(slot);
+            if (replacement >= 0) {
+                nonTreeRoads.remove(replacement);
+                linkRoad(replacement);
+                recordAdded(replacement);
+                inTree[slot] = false;
+                nonTreeRoads.add(slot);
+                treeChanged = true;
+                return;
+            }
+            linkRoad(slot);
+        }
+        recordAdded(slot);
+        treeChanged = true;
+    }
+
+    /**
+     * Remove the road between u and v
+     * @param u id of the first city
+     * @param v id of the second city
+     * @throws IllegalArgumentException if there is no such road
+     */
+    public void removeEdge(int u, int v) {
+        int slot = slotOf(u, v);
+        slotOfPair.remove(pairKey(u, v));
+        if (inTree[slot]) {
+            recordRemoved(slot);
+            cutRoad(slot);
+            inTree[slot] = false;
+            int replacement = cheapestCrossing(-1); // any road, even one of the largest cost
+            if (replacement >= 0) {
+                nonTreeRoads.remove(replacement);
+                linkRoad(replacement);
+                recordAdded(replacement);
+            }
+            treeChanged = true;
+        } else {
+            nonTreeRoads.remove(slot);
+        }
+        freeSlots = growIfFull(freeSlots, numFree);
+        freeSlots[numFree++] = slot;
+    }
+
+    /**
+     * Return the current MST (or spanning forest, if the roads do not connect all cities)
+     * @return list of the edges of the tree, with costs of getWeights()
+     */
+    public List<Edge> getCurrentTree() {
+        return new ArrayList<>(getMSTEdgeList());
+    }
+
+    /**
+     * Return the changes of the tree since the previous call (or since computeMST)
+     * @return edges that joined and left the tree
+     */
+    public MSTDelta pollDelta() {
+        List<long[]> roads = new ArrayList<>(addedSinceQuery.values());
+        roads.addAll(removedSinceQuery.values());
+        int[] ranks = new int[roads.size()];
+        Weights weights = rank(roads, ranks);
+        List<Edge> added = new ArrayList<>();
+        List<Edge> removed = new ArrayList<>();
+        for (int i = 0; i < roads.size(); i++) {
+            long[] road = roads.get(i);
+            Edge edge = new Edge((int) road[0], (int) road[1], ranks[i]);
+            (i < addedSinceQuery.size() ? added : removed).add(edge);
+        }
+        addedSinceQuery.clear();
+        removedSinceQuery.clear();
+        return new MSTDelta(added, removed, weights);
+    }
+
+    /** Rebuild the edges before they are read. printMST, getTotalWeight and getMSTEdges all read the tree after it */
+    @Override
+    protected void updateMST() {
+        syncMST();
+    }
+
+    /**
+     * Return the weights of the costs of the tree edges, built from the current tree
+     * @return weights of the tree
+     */
+    @Override
+    public Weights getWeights() {
+        syncMST();
+        return treeWeights;
+    }
+
+    /** Put a new (or cheaper) road into the tree if it is cheaper than the most expensive road on the path */
+    private void insert(int slot) {
+        int u = roadU[slot];
+        int v = roadV[slot];
+        forest.setValue(numCities + slot, roadValue[slot]);
+        if (u != v && !forest.connected(u, v)) {
+            linkRoad(slot);
+            recordAdded(slot);
+            treeChanged = true;
+            return;
+        }
+        if (u != v) {
+            // a city node is the maximum only when every road on the path has the value Long.MIN_VALUE
+            int max = forest.pathMax(u, v) - numCities;
+            if (max >= 0 && roadValue[max] > roadValue[slot]) {
+                recordRemoved(max);
+                cutRoad(max);
+                inTree[max] = false;
+                nonTreeRoads.add(max);
+                linkRoad(slot);
+                recordAdded(slot);
+                treeChanged = true;
+                return;
+            }
+        }
+        inTree[slot] = false;
+        nonTreeRoads.add(slot);
+    }
+
+    /**
+     * Find the cheapest non-tree road that reconnects the two trees created by a cut
+     * @param bound only roads cheaper than the road in this slot are considered, or any road if -1
+     * @return slot of the road, or -1 if there is none
+     */
+    private int cheapestCrossing(int bound) {
+        Iterator<Integer> it = nonTreeRoads.iterator();
+        while (it.hasNext()) {
+            int slot = it.next();
+            if (bound >= 0 && roadValue[slot] >= roadValue[bound]) {
+                return -1;
+            }
+            int a = roadU[slot];
+            int b = roadV[slot];
+            // the endpoints of every non-tree road were connected before the cut,
+            // so a road whose endpoints are not connected now crosses the cut
+            if (a != b && !forest.connected(a, b)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** Add the road to the link-cut tree */
+    private void linkRoad(int slot) {
+        forest.link(roadU[slot], numCities + slot);
+        forest.link(numCities + slot, roadV[slot]);
+        inTree[slot] = true;
+    }
+
+    /** Remove the road from the link-cut tree */
+    private void cutRoad(int slot) {
+        forest.cut(roadU[slot], numCities + slot);
+        forest.cut(numCities + slot, roadV[slot]);
+    }
+
+    /** Store a road in a free slot and return the slot */
+    private int newSlot(int u, int v, long value) {
+        int slot;
+        if (numFree > 0) {
+            slot = freeSlots[--numFree];
+        } else {
+            slot = numSlots++;
+            if (slot == roadU.length) {
+                int capacity = 2 * slot + 16;
+                roadU = Arrays.copyOf(roadU, capacity);
+                roadV = Arrays.copyOf(roadV, capacity);
+                roadValue = Arrays.copyOf(roadValue, capacity);
+                inTree = Arrays.copyOf(inTree, capacity);
+            }
+            forest.ensureSize(numCities + numSlots);
+        }
+        roadU[slot] = u;
+        roadV[slot] = v;
+        roadValue[slot] = value;
+        inTree[slot] = false;
+        return slot;
+    }
+
+    /** Remember that the road joined the tree since the last query */
+    private void recordAdded(int slot) {
+        long[] road = {roadU[slot], roadV[slot], roadValue[slot]};
+        long[] removed = removedSinceQuery.get(slot);
+        if (removed != null && Arrays.equals(removed, road)) {
+            removedSinceQuery.remove(slot); // it left and came back unchanged (slots are reused, so compare all fields)
+        } else {
+            addedSinceQuery.put(slot, road);
+        }
+    }
+
+    /** Remember that the road left the tree since the last query */
+    private void recordRemoved(int slot) {
+        if (addedSinceQuery.remove(slot) == null) {
+            removedSinceQuery.put(slot, new long[]{roadU[slot], roadV[slot], roadValue[slot]});
+        }
+    }
+
+    /** Rebuild the edgesMST list of MSTAlgorithm if the tree changed */
+    private void syncMST() {
+        if (!treeChanged) {
+            return;
+        }
+        List<long[]> roads = new ArrayList<>();
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (inTree[slot]) {
+                roads.add(new long[]{roadU[slot], roadV[slot], roadValue[slot]});
+            }
+        }
+        int[] ranks = new int[roads.size()];
+        treeWeights = rank(roads, ranks);
+        treeChanged = false; // before addMSTEdge, so a listener that reads the tree does not sync again
+        clearMST();
+        for (int i = 0; i < roads.size(); i++) {
+            addMSTEdge((int) roads.get(i)[0], (int) roads.get(i)[1], ranks[i]);
+        }
+    }
+
+    /**
+     * Find the Weights of the values of some roads and the cost of every road in them.
+     * The values are the weights when they all fit in an int (and are not decimals)
+     * @param roads (u, v, value) of the roads
+     * @param ranks filled with the cost of every road
+     * @return the weights
+     */
+    private Weights rank(List<long[]> roads, int[] ranks) {
+        int n = roads.size();
+        long[] values = new long[n];
+        boolean ints = !decimals; // every value fits in an int, so the values can be the costs
+        for (int i = 0; i < n; i++) {
+            values[i] = roads.get(i)[2];
+            ints &= values[i] == (int) values[i];
+        }
+        if (ints) {
+            for (int i = 0; i < n; i++) {
+                ranks[i] = (int) values[i];
+            }
+            return Weights.INT;
+        }
+        if (!decimals) {
+            return Weights.rankLongs(values, n, ranks);
+        }
+        double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            doubles[i] = weight(values[i]);
+        }
+        return Weights.rankDoubles(doubles, n, ranks);
+    }
+
+    /** Value of a double weight; only a graph with fractional weights takes them */
+    private long decimalValue(double cost) {
+        if (!decimals) {
+            throw new IllegalArgumentException("The graph has integer weights: " + cost);
+        }
+        if (Double.isNaN(cost)) {
+            throw new IllegalArgumentException("Cost is not a number");
+        }
+        return sortable(cost);
+    }
+
+    /** Return long bits of a double that compare like the doubles (as signed longs) */
+    private static long sortable(double cost) {
+        long bits = Double.doubleToLongBits(cost + 0.0); // + 0.0 turns -0.0 into 0.0
+        return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+    }
+
+    /** The double whose sortable bits are value */
+    private static double weight(long value) {
+        return Double.longBitsToDouble(value >= 0 ? value : value ^ Long.MAX_VALUE);
+    }
+
+    /** Return the slot of the road between u and v */
+    private int slotOf(int u, int v) {
+        Integer slot = slotOfPair.get(pairKey(u, v));
+        if (slot == null) {
+            throw new IllegalArgumentException("No road between " + u + " and " + v);
+        }
+        return slot;
+    }
+
+    private void checkCity(int v) {
+        if (v < 0 || v >= numCities) {
+            throw new IllegalArgumentException("No such city: " + v);
+        }
+    }
+
+    /** Key of an unordered pair of cities */
+    private static long pairKey(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    private static int[] growIfFull(int[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, 2 * size + 16);
+    }
+}
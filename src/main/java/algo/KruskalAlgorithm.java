@@ -1,19 +1,67 @@
 package algo;
 
 import graph.*;
+import metrics.MSTMetrics;
 import sets.DisjointSets;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 
 /** Subclass of MSTAlgorithm. Computes MST of the graph using Kruskal's algorithm. */
 public class KruskalAlgorithm extends MSTAlgorithm {
+    private static final int MIN_BASE_CASE = 1024; // smallest partition that is sorted directly
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16; // partitions at least this big use parallelSort
+
+    /** How the edges are ordered before they are fed to the DisjointSets */
+    public enum Mode {
+        /** Copy every arc into a list of Edges and sort the whole list */
+        CLASSIC,
+        /** Filter-Kruskal: partition the edges around a pivot, process the light
+         *  half first, and drop heavy edges that would close a cycle before sorting them */
+        FILTER,
+        /** Sort the keys of the roads with a radix sort on their costs (one bucket per
+         *  cost when the costs span a small range), in linear passes instead of comparisons */
+        RADIX
+    }
+
+    private final Mode mode;
+    private final MSTWorkspace workspace; // reused keys, endpoints and sets, or null
+
+    // state of a FILTER or RADIX run: endpoints of every road, indexed by the low 32 bits of a key
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private int numRoads; // number of keys filled by collectRoads
+    private int numMSTEdges; // number of edges added to the MST so far
 
     /**
      * Constructor for KruskalAlgorithm. Takes the graph
      * @param graph input graph
      */
-    public KruskalAlgorithm(Graph graph) { super(graph); }
+    public KruskalAlgorithm(Graph graph) { this(graph, Mode.FILTER); }
+
+    /**
+     * Constructor for KruskalAlgorithm
+     * @param graph input graph
+     * @param mode how the edges are ordered
+     */
+    public KruskalAlgorithm(Graph graph, Mode mode) {
+        this(graph, mode, null);
+    }
+
+    /**
+     * Constructor for KruskalAlgorithm that takes its arrays from a workspace
+     * instead of allocating them
+     * @param graph input graph
+     * @param mode how the edges are ordered
+     * @param workspace scratch arrays shared with other algorithms that run before or after this one,
+     *                  or null
+     */
+    public KruskalAlgorithm(Graph graph, Mode mode, MSTWorkspace workspace) {
+        super(graph);
+        this.mode = mode;
+        this.workspace = workspace;
+    }
 
     /**
      * Compute minimum spanning tree for this graph. Add edges of MST to
@@ -21,25 +69,44 @@ public class KruskalAlgorithm extends MSTAlgorithm {
      */
     @Override
     public void computeMST() {
-        DisjointSets nSets = new DisjointSets();
+        switch (mode) {
+            case FILTER:
+                computeFilterMST();
+                break;
+            case RADIX:
+                computeRadixMST();
+                break;
+            default:
+                computeClassicMST();
+        }
+    }
+
+    /** Kruskal's algorithm over a sorted list of all arcs */
+    private void computeClassicMST() {
+        DisjointSets nSets = newSets();
         ArrayList<Edge> sortedEdge = new ArrayList<>();
         nSets.createSets(numNodes());
 
         // get all the unsorted edges from all the nodes and store it to an ArrayList
-        Edge temp;
+        EdgeCursor cursor = edgeCursor();
         for (int i = 0; i < numNodes(); i++) {
-            temp = getFirstEdge(i);
-            while (temp != null) {
-                sortedEdge.add(temp);
-                temp = temp.next();
+            cursor.reset(i);
+            while (cursor.next()) {
+                sortedEdge.add(new Edge(i, cursor.target(), cursor.cost()));
             }
         }
 
         // sort all the unsorted edges according to the priority
+        long start = MSTMetrics.start();
         Collections.sort(sortedEdge);
+        MSTMetrics.stop(MSTMetrics.SORT_NANOS, start);
 
         // Iterate until we go through all the sorted edges from the ArrayList
+        start = MSTMetrics.start();
         for (Edge e : sortedEdge) {
+            if (isCancelled()) {
+                break;
+            }
             int root1 = nSets.find(e.getId1());
             int root2 = nSets.find(e.getId2());
             // if the root of the edge is not the same, then we will add the edge to the MSTEdge
@@ -49,7 +116,191 @@ public class KruskalAlgorithm extends MSTAlgorithm {
                 nSets.union(e.getId1(), e.getId2());
             }
         }
+        MSTMetrics.stop(MSTMetrics.UNION_FIND_NANOS, start);
     }
 
-}
+    /** Filter-Kruskal over the keys of the roads (see collectRoads) */
+    private void computeFilterMST() {
+        long[] keys = collectRoads();
+        DisjointSets nSets = newSets();
+        nSets.createSets(numNodes());
+        numMSTEdges = 0;
+        filterKruskal(keys, 0, numRoads, nSets, Math.max(MIN_BASE_CASE, numNodes()));
+        edgeSource = null;
+        edgeTarget = null;
+    }
+
+    /** Kruskal's algorithm over the keys of the roads, sorted by RadixSort */
+    private void computeRadixMST() {
+        long[] keys = collectRoads();
+        long start = MSTMetrics.start();
+        RadixSort.sort(keys, numRoads, 32, workspace != null ? workspace.sortBuffer(numRoads) : null);
+        MSTMetrics.stop(MSTMetrics.SORT_NANOS, start);
+
+        DisjointSets nSets = newSets();
+        nSets.createSets(numNodes());
+        numMSTEdges = 0;
+        start = MSTMetrics.start();
+        kruskal(keys, 0, numRoads, nSets);
+        MSTMetrics.stop(MSTMetrics.UNION_FIND_NANOS, start);
+        edgeSource = null;
+        edgeTarget = null;
+    }
+
+    /**
+     * Take each road once (from its lower endpoint; self-loops are skipped) and
+     * store it as a key with the cost in the high 32 bits and the road index in the
+     * low 32 bits. Roads are indexed in edge id order, so ties are broken the same
+     * way as in the classic mode. Fills edgeSource, edgeTarget and numRoads.
+     * @return the keys, in road index order (with a workspace, the array may be
+     *         longer than numRoads)
+     */
+    private long[] collectRoads() {
+        // count the roads, so the arrays can be allocated once
+        EdgeCursor cursor = edgeCursor();
+        numRoads = 0;
+        for (int i = 0; i < numNodes(); i++) {
+            cursor.reset(i);
+            while (cursor.next()) {
+                if (cursor.edgeId() == cursor.arc() && cursor.target() != i) {
+                    numRoads++;
+                }
+            }
+        }
+
+        long[] keys = workspace != null ? workspace.keys(numRoads) : new long[numRoads];
+        edgeSource = workspace != null ? workspace.sources(numRoads) : new int[numRoads];
+        edgeTarget = workspace != null ? workspace.targets(numRoads) : new int[numRoads];
+        int r = 0;
+        for (int i = 0; i < numNodes(); i++) {
+            cursor.reset(i);
+            while (cursor.next()) {
+                if (cursor.edgeId() == cursor.arc() && cursor.target() != i) {
+                    keys[r] = ((long) cursor.cost() << 32) | r;
+                    edgeSource[r] = i;
+                    edgeTarget[r] = cursor.target();
+                    r++;
+                }
+            }
+        }
+        return keys;
+    }
 
+    /** The disjoint sets of the workspace, or new ones */
+    private DisjointSets newSets() {
+        return workspace != null ? workspace.sets() : new DisjointSets();
+    }
+
+    /**
+     * Process the keys in [from, to): small ranges are sorted and fed to Kruskal
+     * directly; larger ones are split around a pivot, the light part is processed
+     * first, and the heavy part is filtered before it is processed.
+     *
+     * @param keys keys of the roads
+     * @param from index of the first key of the range
+     * @param to index one past the last key of the range
+     * @param nSets disjoint sets of the vertices
+     * @param baseCase size of the ranges that are sorted directly
+     */
+    private void filterKruskal(long[] keys, int from, int to, DisjointSets nSets, int baseCase) {
+        if (from >= to || numMSTEdges == numNodes() - 1 || isCancelled()) {
+            return;
+        }
+        if (to - from <= baseCase) {
+            long start = MSTMetrics.start();
+            if (to - from >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(keys, from, to);
+            } else {
+                Arrays.sort(keys, from, to);
+            }
+            MSTMetrics.stop(MSTMetrics.SORT_NANOS, start);
+            start = MSTMetrics.start();
+            kruskal(keys, from, to, nSets);
+            MSTMetrics.stop(MSTMetrics.UNION_FIND_NANOS, start);
+            return;
+        }
+
+        // partitioning is part of sorting; filtering is DisjointSets work
+        long start = MSTMetrics.start();
+        int mid = partition(keys, from, to, medianOfThree(keys, from, to));
+        MSTMetrics.stop(MSTMetrics.SORT_NANOS, start);
+        filterKruskal(keys, from, mid, nSets, baseCase);
+        start = MSTMetrics.start();
+        int end = filter(keys, mid, to, nSets);
+        MSTMetrics.stop(MSTMetrics.UNION_FIND_NANOS, start);
+        filterKruskal(keys, mid, end, nSets, baseCase);
+    }
+
+    /**
+     * Add the edges of the sorted range to the MST if they connect different sets
+     * @param keys keys of the roads, sorted in [from, to)
+     * @param from index of the first key
+     * @param to index one past the last key
+     * @param nSets disjoint sets of the vertices
+     */
+    private void kruskal(long[] keys, int from, int to, DisjointSets nSets) {
+        for (int k = from; k < to && numMSTEdges < numNodes() - 1 && !isCancelled(); k++) {
+            int road = (int) keys[k];
+            int u = edgeSource[road];
+            int v = edgeTarget[road];
+            if (nSets.find(u) != nSets.find(v)) {
+                addMSTEdge(u, v, (int) (keys[k] >> 32));
+                nSets.union(u, v);
+                numMSTEdges++;
+            }
+        }
+    }
+
+    /**
+     * Move the keys of the roads whose endpoints are still in different sets to
+     * the front of the range
+     * @return index one past the last kept key
+     */
+    private int filter(long[] keys, int from, int to, DisjointSets nSets) {
+        int end = from;
+        for (int k = from; k < to; k++) {
+            int road = (int) keys[k];
+            if (nSets.find(edgeSource[road]) != nSets.find(edgeTarget[road])) {
+                keys[end++] = keys[k];
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Median of the first, middle and last key of the range. Keys are distinct,
+     * so both sides of the partition around it are non-empty.
+     */
+    private static long medianOfThree(long[] keys, int from, int to) {
+        long a = keys[from];
+        long b = keys[(from + to) >>> 1];
+        long c = keys[to - 1];
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * Reorder the range so the keys that are at most pivot come first
+     * @return index of the first key greater than pivot
+     */
+    private static int partition(long[] keys, int from, int to, long pivot) {
+        int i = from;
+        int j = to - 1;
+        while (true) {
+            while (i <= j && keys[i] <= pivot) {
+                i++;
+            }
+            while (i <= j && keys[j] > pivot) {
+                j--;
+            }
+            if (i >= j) {
+                return i;
+            }
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+            i++;
+            j--;
+        }
+    }
+
+}
@@ -1,18 +1,30 @@
 package algo;
 
 import graph.Edge;
+import graph.EdgeCursor;
 import graph.Graph;
+import graph.Weights;
 
 import java.awt.*;
-import java.util.ArrayList;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /** Parent class of PrimAlgorithm and KruskalAlgorithm.
  * Fill in the code in printMST() method. */
 public abstract class MSTAlgorithm {
     private Graph graph; // stores the reference to the graph
-    private List<Edge> edgesMST = new ArrayList<>(); // edges that belong to
-    // minimal spanning tree
+    // edges that belong to minimal spanning tree, as (id1, id2, cost) triples (see MSTResult)
+    private int[] edgesMST = new int[48];
+    private int numEdges; // number of edges in edgesMST
+    private Point[][] mstPoints; // getMSTEdges of the current edges, or null
+    private volatile MSTProgressListener listener; // notified about every MST edge, may be null
+    private volatile boolean cancelled; // set by cancel(), checked by computeMST
 
     public MSTAlgorithm(Graph graph) { this.graph = graph; }
 
@@ -21,7 +33,128 @@ public abstract class MSTAlgorithm {
      * @param edge edge that is a part of MST
      */
     public void addMSTEdge(Edge edge) {
-        edgesMST.add(edge);
+        append(edge.getId1(), edge.getId2(), edge.getCost());
+        MSTProgressListener l = listener;
+        if (l != null) {
+            l.edgeAdded(edge, numEdges);
+        }
+    }
+
+    /** Add an edge to the Minimal Spanning Tree without creating an Edge
+     * (unless there is a progress listener)
+     *
+     * @param id1 id of the first node
+     * @param id2 id of the second node
+     * @param cost cost of the edge
+     */
+    protected void addMSTEdge(int id1, int id2, int cost) {
+        append(id1, id2, cost);
+        notifyEdgeAdded(id1, id2, cost, numEdges);
+    }
+
+    /** Replace the edges of the Minimal Spanning Tree. Used by algorithms that
+     * collect the (id1, id2, cost) triples themselves; the listener is not notified
+     *
+     * @param triples the edges, taken over without a copy
+     * @param count number of edges in triples
+     */
+    protected void setMSTEdges(int[] triples, int count) {
+        edgesMST = triples;
+        numEdges = count;
+        mstPoints = null;
+    }
+
+    private void append(int id1, int id2, int cost) {
+        if (3 * numEdges == edgesMST.length) {
+            edgesMST = Arrays.copyOf(edgesMST, 2 * edgesMST.length + 48);
+        }
+        edgesMST[3 * numEdges] = id1;
+        edgesMST[3 * numEdges + 1] = id2;
+        edgesMST[3 * numEdges + 2] = cost;
+        numEdges++;
+        mstPoints = null;
+    }
+
+    /**
+     * Notify the listener about an MST edge that a subclass stores itself instead of
+     * calling addMSTEdge. The Edge is only created if there is a listener
+     * @param id1 id of the first node
+     * @param id2 id of the second node
+     * @param cost cost of the edge
+     * @param numEdges number of edges in the MST so far
+     */
+    protected void notifyEdgeAdded(int id1, int id2, int cost, int numEdges) {
+        MSTProgressListener l = listener;
+        if (l != null) {
+            l.edgeAdded(new Edge(id1, id2, cost), numEdges);
+        }
+    }
+
+    /**
+     * Set the listener that is notified every time an edge is added to the MST
+     * @param listener the listener, or null for none
+     */
+    public void setProgressListener(MSTProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Ask a running computeMST to stop. May be called from any thread; computeMST
+     * returns soon after, and the edges found so far stay in the result.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if cancel() was called
+     * @return true if the computation should stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Wait until every worker of a pool is done, so everything they wrote can be
+     * read. If this thread is interrupted or a worker fails, the computation is
+     * cancelled and the other workers are still waited for.
+     * @param pool pool that runs the workers; it is shut down
+     * @param workers the submitted workers
+     * @throws IllegalStateException if a worker threw an exception
+     */
+    protected void awaitWorkers(ExecutorService pool, List<Future<?>> workers) {
+        pool.shutdown();
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (Future<?> worker : workers) {
+            while (true) {
+                try {
+                    worker.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    cancel();
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("MST worker failed", failure);
+        }
+    }
+
+    /** Remove all edges from the list of edges of the Minimal Spanning Tree */
+    protected void clearMST() {
+        numEdges = 0;
+        mstPoints = null;
     }
 
     /**
@@ -32,14 +165,87 @@ public abstract class MSTAlgorithm {
 
     /** Print the edges of the MST tree.
      * On each line it should print one edge, using names of two cities.
+     * The lines are buffered and written to System.out at the end.
      * */
     public void printMST() {
-        for (int i = 0; i < edgesMST.size(); i++) {
-            String city1 = graph.getNode(edgesMST.get(i).getId1()).getCity();
-            String city2 = graph.getNode(edgesMST.get(i).getId2()).getCity();
-            System.out.println(city2 + " " + city1);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        for (Edge edge : getMSTEdgeList()) {
+            out.print(graph.getNode(edge.getId2()).getCity());
+            out.print(' ');
+            out.println(graph.getNode(edge.getId1()).getCity());
         }
+        out.flush(); // do not close, that would close System.out
+    }
+
+    /** Called before the edges are read. Subclasses that build their edges lazily
+     * (see IncrementalMSTAlgorithm) bring them up to date here */
+    protected void updateMST() {
+    }
+
+    /**
+     * Return the edges of the MST, in the order they were added. The list is a view
+     * of the packed edges (see getResult): every get creates a new Edge
+     * @return read-only list of the MST edges
+     */
+    public List<Edge> getMSTEdgeList() {
+        updateMST();
+        return new MSTResult(numNodes(), edgesMST, numEdges, getWeights()).asList();
+    }
 
+    /**
+     * Return the MST as packed (id1, id2, cost) triples, in the order the edges were
+     * added. The triples are copied, so the result does not change with the algorithm
+     * @return the MST
+     */
+    public MSTResult getResult() {
+        updateMST();
+        return new MSTResult(numNodes(), Arrays.copyOf(edgesMST, 3 * numEdges), numEdges, getWeights());
+    }
+
+    /**
+     * Return the number of edges in the MST
+     * @return number of MST edges
+     */
+    public int numMSTEdges() {
+        return getMSTEdgeList().size();
+    }
+
+    /**
+     * Return the sum of the weights of the MST edges. Computed in a long, so it does
+     * not overflow when many int costs are added; exact unless the graph has
+     * fractional weights (then it is getTotalWeightAsDouble() rounded).
+     * @return total weight of the MST
+     * @throws ArithmeticException if the total does not fit in a long
+     */
+    public long getTotalWeight() {
+        return getResult().getTotalWeight();
+    }
+
+    /**
+     * Return the sum of the weights of the MST edges as a double. Uses Kahan
+     * summation, so fractional weights of millions of edges add up accurately.
+     * @return total weight of the MST
+     */
+    public double getTotalWeightAsDouble() {
+        return getResult().getTotalWeightAsDouble();
+    }
+
+    /**
+     * Return the weights of the costs of the MST edges. These are the weights of
+     * the graph (see Graph.getWeights()), unless the algorithm makes its own edges.
+     * @return weights of the costs of the MST edges
+     */
+    public Weights getWeights() {
+        return graph.getWeights();
+    }
+
+    /**
+     * Group the MST edges by connected component. On a disconnected graph the
+     * algorithms compute a minimum spanning forest, one tree per component.
+     * @return the spanning forest
+     */
+    public SpanningForest getSpanningForest() {
+        return new SpanningForest(numNodes(), getMSTEdgeList(), getWeights());
     }
 
     /**
@@ -50,13 +256,12 @@ public abstract class MSTAlgorithm {
         return graph.numNodes();
     }
 
-    /** Return the head of the linked list that contains all edges outgoing
-     * from nodeId
-     * @param nodeId id of the node
-     * @return head of the linked list of Edges
+    /** Return a cursor over the outgoing arcs of the underlying graph.
+     * Reset it to a node to visit the edges outgoing from that node.
+     * @return EdgeCursor of the graph
      */
-    public Edge getFirstEdge(int nodeId) {
-        return graph.getFirstEdge(nodeId);
+    public EdgeCursor edgeCursor() {
+        return graph.edgeCursor();
     }
 
 
@@ -64,21 +269,22 @@ public abstract class MSTAlgorithm {
     /**
      * Used in GUIApp to display the MST. Returns a 2D Array, where each element
      * represents an edge and is an array of two Points (where this edge starts
-     * and where it is going).
+     * and where it is going). The array is built once and returned again until
+     * the MST changes, so it must not be modified.
      */
     public Point[][] getMSTEdges() {
-        Point[][] edges = new Point[edgesMST.size()][2];
+        updateMST();
+        if (mstPoints != null) {
+            return mstPoints;
+        }
+        Point[][] edges = new Point[numEdges][2];
         Point[] locations = graph.getNodes();
-        int i = 0;
-
-        for (Edge edge : edgesMST) {
-            edges[i][0] = locations[edge.getId1()];
-            edges[i][1] = locations[edge.getId2()];
-            i++;
+        for (int i = 0; i < numEdges; i++) {
+            edges[i][0] = locations[edgesMST[3 * i]];
+            edges[i][1] = locations[edgesMST[3 * i + 1]];
         }
-
+        mstPoints = edges;
         return edges;
     }
 
 }
-
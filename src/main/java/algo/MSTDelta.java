@@ -0,0 +1,70 @@
+package algo;
+
+import graph.Edge;
+import graph.Weights;
+
+import java.util.List;
+
+/** Changes of the MST between two queries of an IncrementalMSTAlgorithm:
+ *  the edges that joined the tree and the edges that left it.
+ *  An edge whose cost changed while it stayed in the tree appears in both
+ *  lists (with the old cost in removed and the new cost in added).
+ *  The costs of both lists are costs of getWeights(). */
+public class MSTDelta {
+    private final List<Edge> added;
+    private final List<Edge> removed;
+    private final Weights weights;
+
+    /**
+     * Constructor of MSTDelta for edges whose costs are the weights
+     * @param added edges that joined the MST
+     * @param removed edges that left the MST
+     */
+    public MSTDelta(List<Edge> added, List<Edge> removed) {
+        this(added, removed, Weights.INT);
+    }
+
+    /**
+     * Constructor of MSTDelta
+     * @param added edges that joined the MST
+     * @param removed edges that left the MST
+     * @param weights weights of the costs of the edges
+     */
+    public MSTDelta(List<Edge> added, List<Edge> removed, Weights weights) {
+        this.added = added;
+        this.removed = removed;
+        this.weights = weights;
+    }
+
+    /**
+     * Getter for added
+     * @return edges that joined the MST
+     */
+    public List<Edge> getAdded() {
+        return added;
+    }
+
+    /**
+     * Getter for removed
+     * @return edges that left the MST
+     */
+    public List<Edge> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Getter for weights
+     * @return weights of the costs of the edges
+     */
+    public Weights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Check if the MST did not change
+     * @return true if no edge joined or left the MST
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
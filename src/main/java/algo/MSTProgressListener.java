@@ -0,0 +1,16 @@
+package algo;
+
+import graph.Edge;
+
+/** Receives the edges of the MST while an MSTAlgorithm is computing it.
+ *  Called on the thread that runs computeMST (for the parallel algorithms,
+ *  on the thread that adds the edges to the result). */
+public interface MSTProgressListener {
+
+    /**
+     * Called after an edge was added to the MST
+     * @param edge the new edge
+     * @param numEdges number of edges in the MST so far (at most numNodes() - 1)
+     */
+    void edgeAdded(Edge edge, int numEdges);
+}
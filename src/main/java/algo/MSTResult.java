@@ -0,0 +1,402 @@
+package algo;
+
+import graph.Edge;
+import graph.Weights;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/** The edges of an MST packed in one int array as (id1, id2, cost) triples, 12 bytes
+ *  per edge, with the Weights of the costs. Edges are read by index or with forEach,
+ *  so a large result can be iterated, summed and exported without an Edge object
+ *  per edge; asList is a view that creates the Edges on demand.
+ *
+ *  writeTo streams the result to a channel (a file, a socket or a pipe) through one
+ *  buffer, and read maps a file back. The format is big-endian: magic "MSTR",
+ *  version, number of nodes, number of edges, weight kind (see Weights.Kind), then
+ *  per edge id1 and id2 and either the int cost (12 bytes per edge) or, for long and
+ *  double weights, the weight itself as a long or the bits of a double (16 bytes per
+ *  edge). The rank table of the graph is not written: a result that is read back has
+ *  a table of the weights of its own edges only (see compact). */
+public class MSTResult {
+    /** Magic number at the start of an exported result ("MSTR") */
+    public static final int MAGIC = 0x4D535452;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final int numNodes;
+    private final int[] edges; // (id1, id2, cost) of edge i at 3 * i
+    private final int numEdges;
+    private final Weights weights;
+
+    /** Receives the edges of a result */
+    public interface EdgeVisitor {
+        void visit(int id1, int id2, int cost);
+    }
+
+    /**
+     * Constructor. The array is not copied
+     * @param numNodes number of nodes of the graph
+     * @param edges (id1, id2, cost) triples, at least 3 * numEdges ints
+     * @param numEdges number of edges
+     * @param weights weights of the costs
+     */
+    public MSTResult(int numNodes, int[] edges, int numEdges, Weights weights) {
+        if (numEdges < 0 || 3L * numEdges > edges.length) {
+            throw new IllegalArgumentException("Invalid number of edges: " + numEdges);
+        }
+        this.numNodes = numNodes;
+        this.edges = edges;
+        this.numEdges = numEdges;
+        this.weights = weights;
+    }
+
+    /**
+     * Getter for numNodes
+     * @return number of nodes of the graph
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Getter for numEdges
+     * @return number of edges of the MST
+     */
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Getter for weights
+     * @return weights of the costs of the edges
+     */
+    public Weights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Return the first node of an edge
+     * @param i index of the edge
+     * @return node id
+     */
+    public int id1(int i) {
+        return edges[3 * i];
+    }
+
+    /**
+     * Return the second node of an edge
+     * @param i index of the edge
+     * @return node id
+     */
+    public int id2(int i) {
+        return edges[3 * i + 1];
+    }
+
+    /**
+     * Return the cost of an edge
+     * @param i index of the edge
+     * @return cost (a rank, see Weights)
+     */
+    public int cost(int i) {
+        return edges[3 * i + 2];
+    }
+
+    /** The packed triples (at least 3 * numEdges ints), not copied */
+    int[] packedEdges() {
+        return edges;
+    }
+
+    /**
+     * Return the result with Weights that only hold the weights of its own edges.
+     * The costs are renumbered to the ranks of the smaller table, in the same order,
+     * so the edges compare the same. A result of a large graph with long or double
+     * weights otherwise keeps the rank table of the whole graph alive
+     * @return this result if its costs are ints or its table has no other weights,
+     * otherwise a new result
+     */
+    public MSTResult compact() {
+        if (weights.getKind() == Weights.Kind.INT || weights.size() <= numEdges && isDense()) {
+            return this;
+        }
+        int[] triples = Arrays.copyOf(edges, 3 * numEdges);
+        int[] ranks = new int[numEdges];
+        Weights table;
+        if (weights.getKind() == Weights.Kind.LONG) {
+            long[] values = new long[numEdges];
+            for (int i = 0; i < numEdges; i++) {
+                values[i] = weights.longWeight(edges[3 * i + 2]);
+            }
+            table = Weights.rankLongs(values, numEdges, ranks);
+        } else {
+            double[] values = new double[numEdges];
+            for (int i = 0; i < numEdges; i++) {
+                values[i] = weights.doubleWeight(edges[3 * i + 2]);
+            }
+            table = Weights.rankDoubles(values, numEdges, ranks);
+        }
+        for (int i = 0; i < numEdges; i++) {
+            triples[3 * i + 2] = ranks[i];
+        }
+        return new MSTResult(numNodes, triples, numEdges, table);
+    }
+
+    /** Check if every rank of the table is the cost of an edge */
+    private boolean isDense() {
+        boolean[] used = new boolean[weights.size()];
+        int numUsed = 0;
+        for (int i = 2, end = 3 * numEdges; i < end; i += 3) {
+            if (!used[edges[i]]) {
+                used[edges[i]] = true;
+                numUsed++;
+            }
+        }
+        return numUsed == used.length;
+    }
+
+    /**
+     * Return an estimate of the memory held by the result: the triples and the rank table
+     * @return bytes
+     */
+    public long bytes() {
+        return 4L * edges.length + 8L * weights.size() + 64;
+    }
+
+    /**
+     * Pass every edge to the visitor, in order
+     * @param visitor the visitor
+     */
+    public void forEach(EdgeVisitor visitor) {
+        for (int i = 0, end = 3 * numEdges; i < end; i += 3) {
+            visitor.visit(edges[i], edges[i + 1], edges[i + 2]);
+        }
+    }
+
+    /**
+     * Return the edges as a read-only list. Every get creates a new Edge
+     * @return view of the edges
+     */
+    public List<Edge> asList() {
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int i) {
+                if (i < 0 || i >= numEdges) {
+                    throw new IndexOutOfBoundsException("Index " + i + " out of " + numEdges);
+                }
+                return new Edge(edges[3 * i], edges[3 * i + 1], edges[3 * i + 2]);
+            }
+
+            @Override
+            public int size() {
+                return numEdges;
+            }
+        };
+    }
+
+    /**
+     * Return the sum of the weights of the edges; exact for whole-number weights
+     * @return total weight
+     * @throws ArithmeticException if the total does not fit in a long
+     */
+    public long getTotalWeight() {
+        if (!weights.isIntegral()) {
+            return Math.round(getTotalWeightAsDouble());
+        }
+        long total = 0;
+        for (int i = 2, end = 3 * numEdges; i < end; i += 3) {
+            total = Math.addExact(total, weights.longWeight(edges[i]));
+        }
+        return total;
+    }
+
+    /**
+     * Return the sum of the weights of the edges, with Kahan summation
+     * @return total weight
+     */
+    public double getTotalWeightAsDouble() {
+        double total = 0;
+        double compensation = 0; // low-order bits lost by the previous additions
+        for (int i = 2, end = 3 * numEdges; i < end; i += 3) {
+            double y = weights.doubleWeight(edges[i]) - compensation;
+            double t = total + y;
+            compensation = (t - total) - y;
+            total = t;
+        }
+        return total;
+    }
+
+    /**
+     * Write the result to a channel, through one buffer of BUFFER_SIZE bytes
+     * @param channel the channel, for example a FileChannel or a Pipe.SinkChannel
+     * @return number of bytes written
+     * @throws IOException if the channel can not be written
+     */
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        putHeader(buffer);
+        if (weights.getKind() == Weights.Kind.INT) {
+            int ints = 3 * numEdges;
+            for (int i = 0; i < ints; ) {
+                int count = Math.min(buffer.remaining() / 4, ints - i);
+                buffer.asIntBuffer().put(edges, i, count);
+                buffer.position(buffer.position() + 4 * count);
+                i += count;
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+            }
+        } else {
+            for (int i = 0; i < numEdges; i++) {
+                if (buffer.remaining() < 16) {
+                    drain(buffer, channel);
+                }
+                putWeightedEdge(buffer, i);
+            }
+        }
+        drain(buffer, channel);
+        return byteSize();
+    }
+
+    /**
+     * Write the result to a file (created or replaced)
+     * @param path the file
+     * @throws IOException if the file can not be written
+     */
+    public void writeTo(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(channel);
+        }
+    }
+
+    /**
+     * Write the result into a buffer, for example a MappedByteBuffer shared with another process
+     * @param buffer the buffer, with at least byteSize() bytes remaining
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void writeTo(ByteBuffer buffer) {
+        if (buffer.remaining() < byteSize()) {
+            throw new BufferOverflowException();
+        }
+        putHeader(buffer);
+        if (weights.getKind() == Weights.Kind.INT) {
+            int position = buffer.position();
+            buffer.asIntBuffer().put(edges, 0, 3 * numEdges);
+            buffer.position(position + 12 * numEdges);
+        } else {
+            for (int i = 0; i < numEdges; i++) {
+                putWeightedEdge(buffer, i);
+            }
+        }
+    }
+
+    /**
+     * Return the number of bytes writeTo writes
+     * @return size of the exported result
+     */
+    public long byteSize() {
+        return HEADER_BYTES + (weights.getKind() == Weights.Kind.INT ? 12L : 16L) * numEdges;
+    }
+
+    /**
+     * Read a result that writeTo wrote to a file. The file is mapped, and the edges
+     * are copied from the mapping into the array with one bulk get
+     * @param path the file
+     * @return the result
+     * @throws IOException if the file can not be read or is not an exported result
+     */
+    public static MSTResult read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /**
+     * Read a result from a buffer that writeTo filled
+     * @param buffer the buffer, positioned at the magic number
+     * @return the result
+     * @throws IOException if the buffer does not hold an exported result
+     */
+    public static MSTResult read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not an exported MST result");
+        }
+        int numNodes = buffer.getInt();
+        int numEdges = buffer.getInt();
+        int kind = buffer.getInt();
+        if (kind < 0 || kind >= Weights.Kind.values().length) {
+            throw new IOException("Unknown weight kind " + kind);
+        }
+        int edgeBytes = kind == Weights.Kind.INT.ordinal() ? 12 : 16;
+        if (numEdges < 0 || (long) edgeBytes * numEdges > buffer.remaining()) {
+            throw new IOException("Invalid number of edges: " + numEdges);
+        }
+        int[] edges = new int[3 * numEdges];
+        if (kind == Weights.Kind.INT.ordinal()) {
+            int position = buffer.position();
+            buffer.asIntBuffer().get(edges);
+            buffer.position(position + 12 * numEdges);
+            return new MSTResult(numNodes, edges, numEdges, Weights.INT);
+        }
+        long[] bits = new long[numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            edges[3 * i] = buffer.getInt();
+            edges[3 * i + 1] = buffer.getInt();
+            bits[i] = buffer.getLong();
+        }
+        // the costs become the ranks of a table of the weights of these edges only
+        int[] ranks = new int[numEdges];
+        Weights weights;
+        if (kind == Weights.Kind.LONG.ordinal()) {
+            weights = Weights.rankLongs(bits, numEdges, ranks);
+        } else {
+            double[] values = new double[numEdges];
+            for (int i = 0; i < numEdges; i++) {
+                values[i] = Double.longBitsToDouble(bits[i]);
+                if (Double.isNaN(values[i])) {
+                    throw new IOException("Invalid weight of edge " + i);
+                }
+            }
+            weights = Weights.rankDoubles(values, numEdges, ranks);
+        }
+        for (int i = 0; i < numEdges; i++) {
+            edges[3 * i + 2] = ranks[i];
+        }
+        return new MSTResult(numNodes, edges, numEdges, weights);
+    }
+
+    private void putHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(numNodes).putInt(numEdges).putInt(weights.getKind().ordinal());
+    }
+
+    /** Put edge i with its weight: a long, or the bits of a double */
+    private void putWeightedEdge(ByteBuffer buffer, int i) {
+        int cost = edges[3 * i + 2];
+        buffer.putInt(edges[3 * i]).putInt(edges[3 * i + 1]);
+        if (weights.getKind() == Weights.Kind.LONG) {
+            buffer.putLong(weights.longWeight(cost));
+        } else {
+            buffer.putLong(Double.doubleToLongBits(weights.doubleWeight(cost)));
+        }
+    }
+
+    /** Write the bytes of the buffer to the channel and clear it */
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
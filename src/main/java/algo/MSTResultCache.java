@@ -0,0 +1,243 @@
+package algo;
+
+import graph.Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/** Cache of computed MSTs, keyed by the content hash of the graph (see
+ *  Graph.getContentHash) and the name of the algorithm, so a graph file that is
+ *  submitted again does not need a new computeMST.
+ *
+ *  Results are kept in memory as MSTResults in LRU order, up to a number of bytes
+ *  (see MSTResult.bytes: 12 bytes per edge, plus the weights of the edges for long and
+ *  double costs; results are compacted, so they do not keep the rank table of the
+ *  whole graph). With a directory, every result is also exported to
+ *  DIR/hash-algorithm.mstc (see MSTResult.writeTo), and a result that is not in
+ *  memory is read from there.
+ *  The map is guarded by the cache's lock, so one cache can be shared by the threads
+ *  of a BatchRunner; the files of the disk tier are read and written outside of it,
+ *  so a memory hit never waits for a file. Use it through CachedMSTAlgorithm. */
+public class MSTResultCache {
+    private final long maxBytes; // memory budget of the cached edges
+    private final File dir; // disk tier, or null
+    private final LinkedHashMap<String, MSTResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> writing = new HashSet<>(); // keys whose file is being written
+    private long bytes; // memory used by the results in the map
+
+    private long hits; // found in memory
+    private long diskHits; // found on disk
+    private long misses;
+    private long evictions; // removed from memory to stay within maxBytes
+
+    /**
+     * Constructor for a cache in memory only
+     * @param maxBytes memory budget of the cached edges
+     */
+    public MSTResultCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Constructor
+     * @param maxBytes memory budget of the cached edges
+     * @param dir directory of the disk tier (created if needed), or null for none
+     */
+    public MSTResultCache(long maxBytes, File dir) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.dir = dir;
+    }
+
+    /**
+     * Return the key of the MST of a graph computed by an algorithm
+     * @param graph the graph
+     * @param algorithm name of the algorithm (results of different algorithms may
+     *                  pick different edges among edges of equal cost)
+     * @return cache key
+     */
+    public static String key(Graph graph, String algorithm) {
+        return graph.getContentHash() + "-" + algorithm;
+    }
+
+    /**
+     * Look up a result, in memory first, then on disk
+     * @param key key from key()
+     * @return the result, or null if it is not cached
+     */
+    MSTResult get(String key) {
+        synchronized (this) {
+            MSTResult result = results.get(key);
+            if (result != null) {
+                hits++;
+                return result;
+            }
+        }
+        MSTResult result = read(key); // without the lock: other threads keep using the map
+        synchronized (this) {
+            if (result == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            store(key, result);
+            return result;
+        }
+    }
+
+    /**
+     * Add the MST computed for a key
+     * @param key key from key()
+     * @param result the MST (not copied, so it must not change)
+     */
+    void put(String key, MSTResult result) {
+        result = result.compact();
+        boolean write;
+        synchronized (this) {
+            store(key, result);
+            write = dir != null && writing.add(key); // another thread may already write the same result
+        }
+        if (!write) {
+            return;
+        }
+        try {
+            write(key, result);
+        } catch (IOException e) {
+            System.err.println("Could not write the MST cache file for " + key + ": " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                writing.remove(key);
+            }
+        }
+    }
+
+    /** Put a result in memory and evict the least recently used ones over the budget */
+    private void store(String key, MSTResult result) {
+        MSTResult old = results.put(key, result);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+        bytes += result.bytes();
+        Iterator<Map.Entry<String, MSTResult>> it = results.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().bytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /** The file of a key in the disk tier */
+    private File file(String key) {
+        return new File(dir, key + ".mstc");
+    }
+
+    /** Write a result to the disk tier. Written to a temporary file first, so
+     *  readers never see a partial file */
+    private void write(String key, MSTResult result) throws IOException {
+        if (!dir.mkdirs() && !dir.isDirectory()) { // another thread may have created it
+            throw new IOException("Could not create " + dir);
+        }
+        File tmp = File.createTempFile(key, ".tmp", dir);
+        try {
+            result.writeTo(tmp.toPath());
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        Files.move(tmp.toPath(), file(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Read a result from the disk tier; null if there is none or it is damaged */
+    private MSTResult read(String key) {
+        if (dir == null) {
+            return null;
+        }
+        File file = file(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            MSTResult result = MSTResult.read(file.toPath());
+            return result.numEdges() <= result.numNodes() ? result : null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring damaged MST cache file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remove all results from memory (the disk tier is kept)
+     */
+    public synchronized void clear() {
+        results.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Return the number of results in memory
+     * @return number of results
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Return the memory used by the results
+     * @return bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Return the number of lookups answered from memory
+     * @return number of memory hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return the number of lookups answered from the disk tier
+     * @return number of disk hits
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Return the number of lookups that found nothing
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Return the number of results removed from memory to stay within the budget
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Return the statistics as text
+     * @return hits, disk hits, misses, evictions and memory use
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("MST cache: %d hits, %d disk hits, %d misses, %d evictions, %d results in %d bytes",
+                hits, diskHits, misses, evictions, results.size(), bytes);
+    }
+}
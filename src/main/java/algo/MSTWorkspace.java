@@ -0,0 +1,155 @@
+package algo;
+
+import priorityQueue.DaryHeap;
+import sets.DisjointSets;
+
+/** Scratch arrays of PrimAlgorithm and KruskalAlgorithm that can be reused from one
+ *  graph to the next: the heap, the columns of Prim's table, the disjoint sets, and Kruskal's road
+ *  keys, endpoints and sort buffer. Every array grows to the largest graph seen and
+ *  is never shrunk, so after a few graphs computeMST only allocates its result.
+ *
+ *  A workspace must only be used by one algorithm at a time; BatchMSTEngine keeps
+ *  a pool of them, one per running task. */
+public class MSTWorkspace {
+    private DaryHeap heap;
+    private int heapSize; // number of node ids of heap
+    private int heapArity;
+    private long[] primAdded = new long[0];
+    private int[] primCost = new int[0];
+    private int[] primParent = new int[0];
+    private int[] primOrder = new int[0];
+    private final DisjointSets sets = new DisjointSets();
+    private long[] keys = new long[0];
+    private int[] sources = new int[0];
+    private int[] targets = new int[0];
+    private long[] sortBuffer = new long[0];
+
+    /**
+     * Return an empty heap for node ids 0 .. n - 1
+     * @param n number of node ids
+     * @param arity number of children per node
+     * @return the heap
+     */
+    DaryHeap heap(int n, int arity) {
+        if (heap == null || heapSize < n || heapArity != arity) {
+            heap = new DaryHeap(n, arity);
+            heapSize = n;
+            heapArity = arity;
+        }
+        return heap;
+    }
+
+    /**
+     * Return an array for the Added bits of Prim's table (one bit per node, not cleared)
+     * @param n number of nodes
+     * @return at least (n + 63) / 64 words
+     */
+    long[] primAdded(int n) {
+        if (primAdded.length < (n + 63) >>> 6) {
+            primAdded = new long[(n + 63) >>> 6];
+        }
+        return primAdded;
+    }
+
+    /**
+     * Return an array for the cost column of Prim's table
+     * @param n number of nodes
+     * @return the array (not cleared)
+     */
+    int[] primCost(int n) {
+        if (primCost.length < n) {
+            primCost = new int[n];
+        }
+        return primCost;
+    }
+
+    /**
+     * Return an array for the parent column of Prim's table
+     * @param n number of nodes
+     * @return the array (not cleared)
+     */
+    int[] primParent(int n) {
+        if (primParent.length < n) {
+            primParent = new int[n];
+        }
+        return primParent;
+    }
+
+    /**
+     * Return an array for the order in which Prim adds the vertices
+     * @param n number of nodes
+     * @return the array (not cleared)
+     */
+    int[] primOrder(int n) {
+        if (primOrder.length < n) {
+            primOrder = new int[n];
+        }
+        return primOrder;
+    }
+
+    /**
+     * Return the disjoint sets; createSets reuses their array
+     * @return the disjoint sets
+     */
+    DisjointSets sets() {
+        return sets;
+    }
+
+    /**
+     * Return an array for at least n road keys
+     * @param n number of roads
+     * @return the array (not cleared)
+     */
+    long[] keys(int n) {
+        if (keys.length < n) {
+            keys = new long[n];
+        }
+        return keys;
+    }
+
+    /**
+     * Return an array for the first endpoints of at least n roads
+     * @param n number of roads
+     * @return the array (not cleared)
+     */
+    int[] sources(int n) {
+        if (sources.length < n) {
+            sources = new int[n];
+        }
+        return sources;
+    }
+
+    /**
+     * Return an array for the second endpoints of at least n roads
+     * @param n number of roads
+     * @return the array (not cleared)
+     */
+    int[] targets(int n) {
+        if (targets.length < n) {
+            targets = new int[n];
+        }
+        return targets;
+    }
+
+    /**
+     * Return a scratch array for RadixSort of at least n keys
+     * @param n number of keys
+     * @return the array
+     */
+    long[] sortBuffer(int n) {
+        if (sortBuffer.length < n) {
+            sortBuffer = new long[n];
+        }
+        return sortBuffer;
+    }
+
+    /**
+     * Return an estimate of the memory held by the workspace
+     * @return bytes
+     */
+    public long bytes() {
+        long bytes = 12L * heapSize + 8L * primAdded.length + 4L * (primCost.length + primParent.length
+                + primOrder.length) + 4L * sets.capacity();
+        return bytes + 8L * keys.length + 4L * sources.length + 4L * targets.length + 8L * sortBuffer.length;
+    }
+}
@@ -0,0 +1,210 @@
+package algo;
+
+import graph.*;
+import priorityQueue.LongDaryHeap;
+import sets.ConcurrentDisjointSets;
+import sets.DisjointSets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Subclass of MSTAlgorithm. Grows many Prim trees at the same time, then joins
+ *  them with Kruskal's algorithm.
+ *
+ *  The vertices are sorted along a Hilbert curve (see VertexOrdering) and split
+ *  into one range per thread, so the threads start far apart on the map. Every
+ *  thread takes the unclaimed vertices of its range as seeds and grows a tree from
+ *  each with its own heap, claiming every vertex it adds (owner[v] = seed, with a
+ *  CAS). A tree stops when the lightest edge leaving it reaches a vertex of another
+ *  tree: that edge is still an MST edge (it is the lightest edge across the cut
+ *  around the tree), and the two trees are joined in a ConcurrentDisjointSets.
+ *  When all vertices are claimed, the roads between different trees are sorted
+ *  with RadixSort and Kruskal's algorithm adds the remaining MST edges.
+ *
+ *  Edges are compared by (cost, edge id), so the MST is unique: the result does
+ *  not depend on the number of threads or their timing, and it is the same set of
+ *  edges that KruskalAlgorithm and BoruvkaAlgorithm return. */
+public class ParallelPrimAlgorithm extends MSTAlgorithm {
+    private final Graph graph;
+    private final int numThreads;
+    private final int heapArity; // number of children per node of the LongDaryHeaps
+
+    /**
+     * Constructor for ParallelPrimAlgorithm. Uses one thread per processor
+     * @param graph input graph
+     */
+    public ParallelPrimAlgorithm(Graph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for ParallelPrimAlgorithm
+     * @param graph input graph
+     * @param numThreads number of threads that grow trees
+     */
+    public ParallelPrimAlgorithm(Graph graph, int numThreads) {
+        super(graph);
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        }
+        this.graph = graph;
+        this.numThreads = numThreads;
+        this.heapArity = PrimAlgorithm.DEFAULT_HEAP_ARITY;
+    }
+
+    /**
+     * Compute minimum spanning tree for this graph. The edges of the trees come
+     * first (thread by thread), then the edges that join the trees.
+     */
+    @Override
+    public void computeMST() {
+        int n = numNodes();
+        if (n == 0) {
+            return;
+        }
+        int[] order = VertexOrdering.HILBERT.order(graph);
+        AtomicIntegerArray owner = new AtomicIntegerArray(n); // seed of the tree of every vertex, or -1
+        for (int v = 0; v < n; v++) {
+            owner.set(v, -1);
+        }
+        ConcurrentDisjointSets trees = new ConcurrentDisjointSets(n); // sets of seeds
+
+        int threads = Math.min(numThreads, n);
+        List<List<Edge>> edgesOf = new ArrayList<>(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Edge> edges = new ArrayList<>();
+            edgesOf.add(edges);
+            int from = (int) ((long) t * n / threads);
+            int to = (int) ((long) (t + 1) * n / threads);
+            workers.add(pool.submit(() -> {
+                LongDaryHeap heap = new LongDaryHeap(n, heapArity);
+                EdgeCursor cursor = edgeCursor();
+                for (int i = from; i < to && !isCancelled(); i++) {
+                    int seed = order[i];
+                    if (owner.get(seed) == -1 && owner.compareAndSet(seed, -1, seed)) {
+                        growTree(seed, owner, trees, heap, cursor, edges);
+                    }
+                }
+            }));
+        }
+        awaitWorkers(pool, workers); // the workers must be done before edgesOf is read
+        for (List<Edge> edges : edgesOf) {
+            for (Edge edge : edges) {
+                addMSTEdge(edge);
+            }
+        }
+        if (!isCancelled()) {
+            joinTrees(owner, trees);
+        }
+    }
+
+    /**
+     * Grow the tree of a seed with Prim's algorithm until the lightest edge leaving
+     * it reaches a vertex that another tree claimed, or the component is done
+     * @param seed first vertex of the tree, already claimed
+     * @param owner seed of the tree of every vertex, or -1
+     * @param trees sets of seeds whose trees are joined
+     * @param heap empty heap, empty again when the method returns
+     * @param cursor cursor over the arcs of the graph
+     * @param edges receives the MST edges
+     */
+    private void growTree(int seed, AtomicIntegerArray owner, ConcurrentDisjointSets trees,
+                          LongDaryHeap heap, EdgeCursor cursor, List<Edge> edges) {
+        // the heap holds every vertex outside the tree that a road from the tree reaches,
+        // with the smallest (cost, edge id) key of those roads
+        scan(seed, seed, owner, heap, cursor);
+        while (!heap.isEmpty() && !isCancelled()) {
+            long key = heap.minPriority();
+            int v = heap.removeMin();
+            if (owner.get(v) == -1 && owner.compareAndSet(v, -1, seed)) {
+                edges.add(edge(key, v));
+                scan(v, seed, owner, heap, cursor);
+                continue;
+            }
+            // v belongs to another tree: the lightest edge leaving this tree joins them.
+            // If the other tree picked the same edge first, the trees are already joined
+            if (trees.union(seed, owner.get(v))) {
+                edges.add(edge(key, v));
+            }
+            break;
+        }
+        heap.clear();
+    }
+
+    /** Add the roads from u to vertices outside the tree to the heap */
+    private void scan(int u, int seed, AtomicIntegerArray owner, LongDaryHeap heap, EdgeCursor cursor) {
+        cursor.reset(u);
+        while (cursor.next()) {
+            int w = cursor.target();
+            if (owner.get(w) != seed) {
+                heap.reduceKey(w, ((long) cursor.cost() << 32) | cursor.edgeId());
+            }
+        }
+    }
+
+    /** The MST edge with the given key that adds vertex v */
+    private Edge edge(long key, int v) {
+        int edgeId = (int) key;
+        int a = graph.arcSource(edgeId);
+        int b = graph.arcTarget(edgeId);
+        return new Edge(v, a == v ? b : a, (int) (key >> 32));
+    }
+
+    /**
+     * Kruskal's algorithm over the roads between different trees
+     * @param owner seed of the tree of every vertex
+     * @param trees sets of seeds whose trees are joined
+     */
+    private void joinTrees(AtomicIntegerArray owner, ConcurrentDisjointSets trees) {
+        int n = numNodes();
+        int[] tree = new int[n];
+        for (int v = 0; v < n; v++) {
+            tree[v] = trees.find(owner.get(v));
+        }
+
+        // keys (cost, index) of the roads between trees, in edge id order; the
+        // endpoints of road r are source[r] and target[r]
+        EdgeCursor cursor = edgeCursor();
+        long[] keys = new long[16];
+        int[] source = new int[16];
+        int[] target = new int[16];
+        int numRoads = 0;
+        for (int u = 0; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                int v = cursor.target();
+                if (cursor.edgeId() == cursor.arc() && tree[u] != tree[v]) {
+                    if (numRoads == keys.length) {
+                        keys = Arrays.copyOf(keys, 2 * numRoads);
+                        source = Arrays.copyOf(source, 2 * numRoads);
+                        target = Arrays.copyOf(target, 2 * numRoads);
+                    }
+                    keys[numRoads] = ((long) cursor.cost() << 32) | numRoads;
+                    source[numRoads] = u;
+                    target[numRoads] = v;
+                    numRoads++;
+                }
+            }
+        }
+        RadixSort.sort(keys, numRoads, 32);
+
+        DisjointSets sets = new DisjointSets();
+        sets.createSets(n);
+        for (int k = 0; k < numRoads && !isCancelled(); k++) {
+            int r = (int) keys[k];
+            int a = tree[source[r]];
+            int b = tree[target[r]];
+            if (sets.find(a) != sets.find(b)) {
+                sets.union(a, b);
+                addMSTEdge(source[r], target[r], (int) (keys[k] >> 32));
+            }
+        }
+    }
+}
@@ -1,13 +1,39 @@
 package algo;
 
 import graph.*;
-import priorityQueue.MinHeap;
-import sets.DisjointSets;
+import priorityQueue.DaryHeap;
+import priorityQueue.IndexedPriorityQueue;
 
-/** Subclass of MSTAlgorithm. Uses Prim's algorithm to compute MST of the graph. */
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Subclass of MSTAlgorithm. Uses Prim's algorithm to compute MST of the graph.
+ *  If the graph is not connected, the tree is grown again from the first vertex
+ *  that was not reached, so the result is a minimum spanning forest (see
+ *  getSpanningForest). With more than one thread the components are grown in
+ *  parallel, one component per thread at a time. */
 public class PrimAlgorithm extends MSTAlgorithm {
+    public static final int DEFAULT_HEAP_ARITY = 4;
     private int sourceVertex;
-    private int[][] table;
+    private int heapArity; // number of children per node of the DaryHeap
+    private int numThreads; // number of threads that grow components
+    private final MSTWorkspace workspace; // reused heap and state arrays, or null
+
+    // Prim's table, one array per column:
+    // | added       | cost    | parent |
+    // | bit of v    | cost[v] | parent[v] (-1 while v is not reached) |
+    private long[] added; // bit v % 64 of added[v / 64] is set when v is in the tree
+    private int[] cost; // cost of the cheapest known road to v from the tree
+    private int[] parent; // the tree end of that road
+    private boolean sharedAdded; // threads set bits of added at the same time (parallel run)
+    private static final VarHandle ADDED = MethodHandles.arrayElementVarHandle(long[].class);
 
     /**
      * Constructor for PrimAlgorithm. Takes the graph
@@ -15,64 +41,242 @@ public class PrimAlgorithm extends MSTAlgorithm {
      * @param sourceVertex the first vertex of MST
      */
     public PrimAlgorithm(Graph graph, int sourceVertex) {
+        this(graph, sourceVertex, DEFAULT_HEAP_ARITY);
+    }
+
+    /**
+     * Constructor for PrimAlgorithm. Takes the graph
+     * @param graph input graph
+     * @param sourceVertex the first vertex of MST
+     * @param heapArity number of children per node of the priority queue (2 for a binary heap)
+     */
+    public PrimAlgorithm(Graph graph, int sourceVertex, int heapArity) {
+        this(graph, sourceVertex, heapArity, 1);
+    }
+
+    /**
+     * Constructor for PrimAlgorithm. Takes the graph
+     * @param graph input graph
+     * @param sourceVertex the first vertex of MST
+     * @param heapArity number of children per node of the priority queue (2 for a binary heap)
+     * @param numThreads number of threads that grow the trees of different components
+     */
+    public PrimAlgorithm(Graph graph, int sourceVertex, int heapArity, int numThreads) {
+        this(graph, sourceVertex, heapArity, numThreads, null);
+    }
+
+    /**
+     * Constructor for PrimAlgorithm that takes its heap and state arrays from a workspace
+     * instead of allocating them (one thread)
+     * @param graph input graph
+     * @param sourceVertex the first vertex of MST
+     * @param heapArity number of children per node of the priority queue (2 for a binary heap)
+     * @param workspace scratch arrays shared with other algorithms that run before or after this one
+     */
+    public PrimAlgorithm(Graph graph, int sourceVertex, int heapArity, MSTWorkspace workspace) {
+        this(graph, sourceVertex, heapArity, 1, workspace);
+    }
+
+    private PrimAlgorithm(Graph graph, int sourceVertex, int heapArity, int numThreads, MSTWorkspace workspace) {
         super(graph);
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        }
         this.sourceVertex = sourceVertex;
+        this.heapArity = heapArity;
+        this.numThreads = numThreads;
+        this.workspace = workspace;
     }
 
     /**
      * Compute minimum spanning tree for this graph using Prim's algorithm.
-     * Add edges of MST to edgesMST list.
+     * The MST edges are (vertex, parent, cost) triples (see MSTResult), copied out
+     * of the table at the end. On a disconnected graph, the edges
+     * of the source's component come first, then those of the other components in
+     * the order of their smallest vertex.
      * */
     @Override
     public void computeMST() {
-        // Note: must use a MinHeap and be efficient
-        MinHeap pQueue = new MinHeap(numNodes());
-        table = new int[numNodes()][3];
+        clearMST();
+        int n = numNodes();
+        if (n == 0) {
+            return;
+        }
         initiateTable();
+        // vertices added with a parent, in order (a tree has at most n - 1 of them)
+        VertexList order = new VertexList(workspace != null ? workspace.primOrder(n) : new int[n]);
+        if (numThreads > 1) {
+            computeParallel(order);
+        } else {
+            // vertices enter the heap on their first reduceKey, so only reached vertices are stored
+            IndexedPriorityQueue pQueue = workspace != null ? workspace.heap(n, heapArity)
+                    : new DaryHeap(n, heapArity);
+            EdgeCursor cursor = edgeCursor();
+            growTree(sourceVertex, pQueue, cursor, order, true);
+            // restart from every vertex the previous trees did not reach
+            for (int v = 0; v < n && !isCancelled(); v++) {
+                if (!hasBeenAdded(v)) {
+                    growTree(v, pQueue, cursor, order, true);
+                }
+            }
+        }
 
-        Edge temp;
-        int ct = 0;
-        int index = sourceVertex;
+        // the arrays of a workspace are reused by the next graph, so the result is copied out
+        int numOrdered = order.size;
+        int[] treeEdges = new int[3 * numOrdered];
+        for (int i = 0; i < numOrdered; i++) {
+            int v = order.items[i];
+            treeEdges[3 * i] = v;
+            treeEdges[3 * i + 1] = parent[v];
+            treeEdges[3 * i + 2] = cost[v];
+        }
+        setMSTEdges(treeEdges, numOrdered);
+    }
 
-        // update the cost of the source vertex in minheap
-        pQueue.reduceKey(index, -1);
+    /**
+     * Grow the components in parallel. The components are found first, then every
+     * thread takes the next component that is not taken yet, grows its tree with
+     * its own heap, and keeps the vertices of each component in a separate list.
+     * The lists are copied to order in the same order the sequential version uses.
+     * @param order receives the vertices that were added with a parent
+     */
+    private void computeParallel(VertexList order) {
+        int[] seeds = componentSeeds();
+        VertexList[] orderOf = new VertexList[seeds.length];
+        AtomicInteger nextComponent = new AtomicInteger();
+        sharedAdded = true;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, seeds.length));
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < Math.min(numThreads, seeds.length); t++) {
+            workers.add(pool.submit(() -> {
+                // components are disjoint, so the threads touch different entries of cost and parent
+                IndexedPriorityQueue pQueue = new DaryHeap(numNodes(), heapArity);
+                EdgeCursor cursor = edgeCursor();
+                int c;
+                while ((c = nextComponent.getAndIncrement()) < seeds.length && !isCancelled()) {
+                    VertexList vertices = new VertexList(new int[16]);
+                    growTree(seeds[c], pQueue, cursor, vertices, false);
+                    orderOf[c] = vertices;
+                }
+            }));
+        }
+        try {
+            awaitWorkers(pool, workers); // the workers must be done before orderOf is read
+        } finally {
+            sharedAdded = false;
+        }
+        for (VertexList vertices : orderOf) {
+            if (vertices != null) {
+                for (int i = 0; i < vertices.size; i++) {
+                    int v = vertices.items[i];
+                    order.add(v);
+                    notifyEdgeAdded(v, parent[v], cost[v], order.size);
+                }
+            }
+        }
+    }
 
-        // iterate until we visited all the nodes (cities)
-        while (ct < numNodes()) {
+    /**
+     * Find one vertex of every component: the source first, then the smallest
+     * vertex of every other component. Uses a breadth first search over the arcs.
+     * @return seed vertex of every component
+     */
+    private int[] componentSeeds() {
+        int n = numNodes();
+        boolean[] reached = new boolean[n];
+        int[] queue = new int[n];
+        int[] seeds = new int[n];
+        int numSeeds = 0;
+        EdgeCursor cursor = edgeCursor();
+        for (int i = -1; i < n; i++) {
+            int seed = i < 0 ? sourceVertex : i;
+            if (reached[seed]) {
+                continue;
+            }
+            seeds[numSeeds++] = seed;
+            reached[seed] = true;
+            int head = 0, tail = 0;
+            queue[tail++] = seed;
+            while (head < tail) {
+                cursor.reset(queue[head++]);
+                while (cursor.next()) {
+                    if (!reached[cursor.target()]) {
+                        reached[cursor.target()] = true;
+                        queue[tail++] = cursor.target();
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(seeds, numSeeds);
+    }
+
+    /** A growable list of vertex ids */
+    private static class VertexList {
+        int[] items;
+        int size;
+
+        VertexList(int[] items) {
+            this.items = items;
+        }
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = v;
+        }
+    }
+
+    /**
+     * Grow the minimum spanning tree of the component of start with Prim's algorithm
+     * @param start first vertex of the tree
+     * @param pQueue empty heap, empty again when the method returns
+     * @param cursor cursor over the arcs of the graph
+     * @param order receives the vertices that are added with a parent
+     * @param notify tell the progress listener about every new edge
+     */
+    private void growTree(int start, IndexedPriorityQueue pQueue, EdgeCursor cursor, VertexList order,
+                          boolean notify) {
+        cost[start] = 0;
+
+        // update the cost of the start vertex in minheap
+        pQueue.reduceKey(start, -1);
+
+        // iterate until there are no reachable nodes (cities) left in the heap
+        while (!pQueue.isEmpty() && !isCancelled()) {
             // get the vertexId with the smallest cost from minheap
-            int minIndex = pQueue.removeMin();
+            int index = pQueue.removeMin();
             // update the Added column on the table to true
             updateAdded(index);
 
-            // if it is not the sourceVertex
-            if (getPath(minIndex) != -1) {
-                Edge newEdge = new Edge(minIndex, getPath(minIndex), getCost(minIndex));
-                addMSTEdge(newEdge);
+            // if it is not the start vertex
+            if (parent[index] != -1) {
+                order.add(index);
+                if (notify) {
+                    notifyEdgeAdded(index, parent[index], cost[index], order.size);
+                }
             }
 
-            // update the index to smallest VertexID
-            index = minIndex;
-
             // visit all the edges on the smallest VertexID
-            temp = getFirstEdge(index);
-            while (temp != null) {
-                // if the vertex hasn't been added yet
-                if (!hasBeenAdded(temp.getId2())) {
-                    // check if the new cost is smaller than the existing cost on the table
-                    if (temp.getCost() < getCost(temp.getId2())) {
-                        // update the cost in minheap
-                        pQueue.reduceKey(temp.getId2(), temp.getCost());
-                        // update the cost and path in the table
-                        updateCostAndPath(temp.getId2(), temp.getCost(), index);
-                    }
+            cursor.reset(index);
+            while (cursor.next()) {
+                int target = cursor.target();
+                // if the vertex hasn't been added yet, check if the new cost is smaller than
+                // the existing cost on the table (a vertex without a parent was not reached
+                // yet, even an int.max road reaches it)
+                if (!hasBeenAdded(target) && (parent[target] == -1 || cursor.cost() < cost[target])) {
+                    // update the cost in minheap
+                    pQueue.reduceKey(target, cursor.cost());
+                    // update the cost and parent in the table
+                    cost[target] = cursor.cost();
+                    parent[target] = index;
                 }
-                // go to the next edge
-                temp = temp.next();
             }
-
-            ct++;
         }
-
+        // after a cancel the heap may still have vertices; empty it for the next tree
+        while (!pQueue.isEmpty()) {
+            pQueue.removeMin();
+        }
     }
 
     /**
@@ -83,18 +287,27 @@ public class PrimAlgorithm extends MSTAlgorithm {
      * | 0     | int.max | -1 |
      *
      * the sourceVertex (the vertex we want to start with) will have 0 cost
-     * while the other vertexes will have int.max as the cost
+     * while the other vertexes will have int.max as the cost. The first vertex of
+     * every other component gets cost 0 when its tree is grown.
      */
     private void initiateTable() {
-        // initially each vertex will have value 0 (false), int.max, -1 except for the source vertex
-        for (int i = 0; i < table.length; i++) {
-            table[i][0] = 0;
-            table[i][1] = Integer.MAX_VALUE;
-            table[i][2] = -1;
+        int n = numNodes();
+        if (workspace != null) {
+            added = workspace.primAdded(n);
+            cost = workspace.primCost(n);
+            parent = workspace.primParent(n);
+        } else {
+            added = new long[(n + 63) >>> 6];
+            cost = new int[n];
+            parent = new int[n];
         }
+        // initially each vertex will have value 0 (false), int.max, -1 except for the source vertex
+        Arrays.fill(added, 0, (n + 63) >>> 6, 0L);
+        Arrays.fill(cost, 0, n, Integer.MAX_VALUE);
+        Arrays.fill(parent, 0, n, -1);
 
         // source vertex cost is 0
-        table[sourceVertex][1] = 0;
+        cost[sourceVertex] = 0;
     }
 
     /**
@@ -103,51 +316,21 @@ public class PrimAlgorithm extends MSTAlgorithm {
      * @param vertex vertexID that we want to update
      */
     private void updateAdded(int vertex) {
-        // update to 1 (true) if we find the shortest path
-        table[vertex][0] = 1;
-    }
-
-    /**
-     * helper method to check the boolean value of a vertex from Added column
-     *
-     * @param vertex vertexID
-     */
-    private Boolean hasBeenAdded(int vertex) {
-        if (table[vertex][0] == 0) {
-            return false;
+        if (sharedAdded) {
+            // other threads set bits of the same word
+            ADDED.getAndBitwiseOr(added, vertex >>> 6, 1L << vertex);
         } else {
-            return true;
-        }
-    }
-
-    /**
-     * helper method to update the cost and path of a particular vertex
-     *
-     * @param vertex vertexID
-     */
-    private void updateCostAndPath(int vertex, int cost, int path) {
-        if (table[vertex][0] == 0 && table[vertex][1] > cost) {
-            table[vertex][1] = cost;
-            table[vertex][2] = path;
+            added[vertex >>> 6] |= 1L << vertex;
         }
     }
 
     /**
-     * helper method to get the cost value
-     *
-     * @param vertex vertexID
-     */
-    private int getCost(int vertex) {
-        return table[vertex][1];
-    }
-
-    /**
-     * helper method to get the path Value
+     * helper method to check the value of a vertex from Added column
      *
      * @param vertex vertexID
      */
-    private int getPath(int vertex) {
-        return table[vertex][2];
+    private boolean hasBeenAdded(int vertex) {
+        return (added[vertex >>> 6] & (1L << vertex)) != 0;
     }
 
 }
@@ -0,0 +1,119 @@
+package algo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/** LSD radix sort of the long keys used by KruskalAlgorithm (cost in the high bits,
+ *  road index in the low bits). Only the high bits are sorted: the sort is stable,
+ *  and the keys are created in road index order, so they end up fully sorted.
+ *
+ *  When the costs span fewer than BUCKET_LIMIT values, one counting pass with a
+ *  bucket per cost is enough. Otherwise the costs (minus the smallest one) are
+ *  sorted DIGIT_BITS bits at a time, skipping the digits above the largest cost.
+ *  Large arrays are split into chunks: the chunks are counted in parallel, the
+ *  histograms are added up, and the chunks are scattered in parallel. */
+final class RadixSort {
+    private static final int DIGIT_BITS = 11; // bits sorted by one pass (2048 buckets)
+    private static final int BUCKET_LIMIT = 1 << 16; // cost ranges up to this size are sorted in one pass
+    private static final int PARALLEL_THRESHOLD = 1 << 16; // arrays at least this big are sorted in parallel
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sort keys[0 .. n - 1] stably by key >> shift
+     * @param keys keys to sort
+     * @param n number of keys
+     * @param shift number of low bits that are not sorted (at least 1)
+     */
+    static void sort(long[] keys, int n, int shift) {
+        sort(keys, n, shift, null);
+    }
+
+    /**
+     * Sort keys[0 .. n - 1] stably by key >> shift, using a scratch array
+     * @param keys keys to sort
+     * @param n number of keys
+     * @param shift number of low bits that are not sorted (at least 1)
+     * @param buffer scratch array of at least n keys, or null to allocate one
+     */
+    static void sort(long[] keys, int n, int shift, long[] buffer) {
+        if (n < 2) {
+            return;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long value = keys[i] >> shift;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        long range = max - min; // does not overflow: the values have at most 63 bits
+        if (range == 0) {
+            return;
+        }
+
+        long[] src = keys;
+        long[] dst = buffer != null && buffer.length >= n ? buffer : new long[n];
+        if (range < BUCKET_LIMIT) {
+            pass(src, dst, n, min, shift, 0, (int) range + 1, -1);
+            src = dst;
+        } else {
+            int bits = 64 - Long.numberOfLeadingZeros(range);
+            for (int digit = 0; digit < bits; digit += DIGIT_BITS) {
+                int numBuckets = 1 << Math.min(DIGIT_BITS, bits - digit);
+                pass(src, dst, n, min, shift, digit, numBuckets, numBuckets - 1);
+                long[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+        }
+    }
+
+    /**
+     * One counting pass: move the keys from src to dst, ordered stably by one digit
+     * @param min smallest key >> shift
+     * @param digit index of the lowest bit of the digit in (key >> shift) - min
+     * @param numBuckets number of values of the digit
+     * @param mask mask of the digit bits, or -1 if the digit is the whole rest of the key
+     */
+    private static void pass(long[] src, long[] dst, int n, long min, int shift, int digit,
+                             int numBuckets, int mask) {
+        int numChunks = n < PARALLEL_THRESHOLD ? 1 : ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = (n + numChunks - 1) / numChunks;
+        int[][] count = new int[numChunks][numBuckets];
+        IntStream chunks = IntStream.range(0, numChunks);
+        (numChunks > 1 ? chunks.parallel() : chunks).forEach(c -> {
+            int[] counts = count[c];
+            for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                counts[bucket(src[i], min, shift, digit, mask)]++;
+            }
+        });
+
+        // start of every (bucket, chunk) in dst: buckets in order, chunks in order within a bucket
+        int position = 0;
+        for (int b = 0; b < numBuckets; b++) {
+            for (int c = 0; c < numChunks; c++) {
+                int size = count[c][b];
+                count[c][b] = position;
+                position += size;
+            }
+        }
+
+        chunks = IntStream.range(0, numChunks);
+        (numChunks > 1 ? chunks.parallel() : chunks).forEach(c -> {
+            int[] next = count[c];
+            for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                dst[next[bucket(src[i], min, shift, digit, mask)]++] = src[i];
+            }
+        });
+    }
+
+    /** The digit of a key */
+    private static int bucket(long key, long min, int shift, int digit, int mask) {
+        return (int) (((key >> shift) - min) >>> digit) & mask;
+    }
+}
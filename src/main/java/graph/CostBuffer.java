@@ -0,0 +1,206 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of road costs read from a file. Starts with an int[] and switches
+ * to a long[] when a cost does not fit in an int, or to a double[] when a cost has
+ * a fraction, so the common all-int file uses 4 bytes per road.
+ */
+class CostBuffer {
+    private Weights.Kind kind = Weights.Kind.INT;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int size;
+
+    CostBuffer(int capacity) {
+        this(capacity, Weights.Kind.INT);
+    }
+
+    /**
+     * Constructor for a buffer that can start with the array of a wider kind
+     * @param capacity number of costs the buffer holds without growing
+     * @param kind kind of the costs that will be added
+     */
+    CostBuffer(int capacity, Weights.Kind kind) {
+        this.kind = kind;
+        switch (kind) {
+            case INT:
+                ints = new int[Math.max(16, capacity)];
+                break;
+            case LONG:
+                longs = new long[Math.max(16, capacity)];
+                break;
+            default:
+                doubles = new double[Math.max(16, capacity)];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    Weights.Kind kind() {
+        return kind;
+    }
+
+    void addInt(int cost) {
+        switch (kind) {
+            case INT:
+                if (size == ints.length) {
+                    ints = Arrays.copyOf(ints, 2 * size);
+                }
+                ints[size++] = cost;
+                break;
+            case LONG:
+                addLong(cost);
+                break;
+            default:
+                addDouble(cost);
+        }
+    }
+
+    void addLong(long cost) {
+        if (kind == Weights.Kind.INT) {
+            if (cost == (int) cost) {
+                addInt((int) cost);
+                return;
+            }
+            toKind(Weights.Kind.LONG);
+        }
+        if (kind == Weights.Kind.DOUBLE) {
+            addDouble(cost);
+            return;
+        }
+        if (size == longs.length) {
+            longs = Arrays.copyOf(longs, 2 * size);
+        }
+        longs[size++] = cost;
+    }
+
+    void addDouble(double cost) {
+        if (Double.isNaN(cost) || Double.isInfinite(cost)) {
+            throw new NumberFormatException("Invalid cost: " + cost);
+        }
+        if (kind != Weights.Kind.DOUBLE) {
+            toKind(Weights.Kind.DOUBLE);
+        }
+        if (size == doubles.length) {
+            doubles = Arrays.copyOf(doubles, 2 * size);
+        }
+        doubles[size++] = cost;
+    }
+
+    /**
+     * Parse a cost from the input file
+     * @param token text of the cost
+     * @throws NumberFormatException if the cost is not a number, or is an integer out of the long range
+     */
+    void add(String token) {
+        if (isInteger(token)) {
+            addLong(Long.parseLong(token)); // a 20-digit integer is rejected, not rounded to a double
+        } else {
+            addDouble(Double.parseDouble(token));
+        }
+    }
+
+    /**
+     * Check if a token is an optional sign followed by digits
+     * @param token text of a cost
+     * @return true if the token is an integer, of any length
+     */
+    static boolean isInteger(String token) {
+        int i = token.startsWith("-") || token.startsWith("+") ? 1 : 0;
+        if (i == token.length()) {
+            return false;
+        }
+        for (; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Append all costs of another buffer (used to merge the chunks of GraphLoader) */
+    void addAll(CostBuffer other) {
+        if (other.kind.ordinal() > kind.ordinal()) {
+            toKind(other.kind);
+        }
+        if (other.kind == kind) {
+            int total = size + other.size;
+            switch (kind) {
+                case INT:
+                    if (total > ints.length) {
+                        ints = Arrays.copyOf(ints, Math.max(total, 2 * ints.length));
+                    }
+                    System.arraycopy(other.ints, 0, ints, size, other.size);
+                    break;
+                case LONG:
+                    if (total > longs.length) {
+                        longs = Arrays.copyOf(longs, Math.max(total, 2 * longs.length));
+                    }
+                    System.arraycopy(other.longs, 0, longs, size, other.size);
+                    break;
+                default:
+                    if (total > doubles.length) {
+                        doubles = Arrays.copyOf(doubles, Math.max(total, 2 * doubles.length));
+                    }
+                    System.arraycopy(other.doubles, 0, doubles, size, other.size);
+            }
+            size = total;
+            return;
+        }
+        // other has narrower costs: widen them one by one
+        for (int i = 0; i < other.size; i++) {
+            switch (other.kind) {
+                case INT:
+                    addInt(other.ints[i]);
+                    break;
+                case LONG:
+                    addLong(other.longs[i]);
+                    break;
+                default:
+                    addDouble(other.doubles[i]);
+            }
+        }
+    }
+
+    /** Convert the stored costs to a wider kind */
+    private void toKind(Weights.Kind newKind) {
+        int capacity = Math.max(16, 2 * size);
+        if (newKind == Weights.Kind.LONG) {
+            longs = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                longs[i] = ints[i];
+            }
+            ints = null;
+        } else {
+            doubles = new double[capacity];
+            for (int i = 0; i < size; i++) {
+                doubles[i] = kind == Weights.Kind.INT ? ints[i] : longs[i];
+            }
+            ints = null;
+            longs = null;
+        }
+        kind = newKind;
+    }
+
+    /**
+     * The int costs to store in the graph: the costs themselves, or their ranks
+     * @param costs array of at least size() entries, filled with the costs
+     * @return the weights of the costs
+     */
+    Weights toCosts(int[] costs) {
+        switch (kind) {
+            case INT:
+                System.arraycopy(ints, 0, costs, 0, size);
+                return Weights.INT;
+            case LONG:
+                return Weights.rankLongs(longs, size, costs);
+            default:
+                return Weights.rankDoubles(doubles, size, costs);
+        }
+    }
+}
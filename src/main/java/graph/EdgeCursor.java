@@ -0,0 +1,104 @@
+package graph;
+
+import metrics.MSTMetrics;
+
+/** A cursor over the outgoing arcs of a vertex in the CSR arrays of the Graph.
+ *  Replaces walking the linked list of Edge objects: reset the cursor to a vertex,
+ *  then call next() until it returns false.
+ *
+ *  EdgeCursor cursor = graph.edgeCursor();
+ *  cursor.reset(v);
+ *  while (cursor.next()) {
+ *      ... cursor.target() ... cursor.cost() ...
+ *  }
+ */
+public class EdgeCursor {
+    private final int[] offsets; // offsets[v] is the index of the first arc of v
+    private final int[] targets; // destination vertex of each arc
+    private final int[] costs; // cost of each arc
+    private final int[] edgeIds; // edge id of each arc (shared by both arcs of a road)
+    private int source; // vertex whose arcs are being visited
+    private int arc; // index of the current arc
+    private int end; // index one past the last arc of source
+
+    /**
+     * Constructor of EdgeCursor. Called from Graph.edgeCursor()
+     * @param offsets CSR offsets array
+     * @param targets CSR targets array
+     * @param costs CSR costs array
+     * @param edgeIds edge id of each arc
+     */
+    EdgeCursor(int[] offsets, int[] targets, int[] costs, int[] edgeIds) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        this.edgeIds = edgeIds;
+        this.arc = -1;
+        this.end = 0;
+    }
+
+    /**
+     * Position the cursor before the first arc of the given vertex
+     * @param nodeId id of the vertex
+     */
+    public void reset(int nodeId) {
+        source = nodeId;
+        arc = offsets[nodeId] - 1;
+        end = offsets[nodeId + 1];
+    }
+
+    /**
+     * Move to the next arc of the current vertex
+     * @return true if there is such an arc, false if all arcs were visited
+     */
+    public boolean next() {
+        if (++arc < end) {
+            if (MSTMetrics.ENABLED) {
+                MSTMetrics.EDGES_SCANNED.increment();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the source of the current arc
+     * @return id of the vertex the cursor was reset to
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * Getter for the destination of the current arc
+     * @return id of the destination vertex
+     */
+    public int target() {
+        return targets[arc];
+    }
+
+    /**
+     * Getter for the cost of the current arc
+     * @return cost of the arc
+     */
+    public int cost() {
+        return costs[arc];
+    }
+
+    /**
+     * Getter for the edge id of the current arc. Both arcs of a road have the
+     * same edge id, so it identifies the undirected road.
+     * @return edge id
+     */
+    public int edgeId() {
+        return edgeIds[arc];
+    }
+
+    /**
+     * Getter for the index of the current arc in the CSR arrays
+     * @return arc index
+     */
+    public int arc() {
+        return arc;
+    }
+}
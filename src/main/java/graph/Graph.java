@@ -1,9 +1,17 @@
 package graph;
 
+import metrics.MSTMetrics;
+
 import java.awt.*;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,8 +25,19 @@ import java.util.Map;
  */
 public class Graph {
     private CityNode[] nodes; // nodes of the graph
-    private Edge[] adjacencyList; // adjacency list; for each vertex stores a linked list of edges
+    // compressed sparse row (CSR) adjacency: the arcs outgoing from vertex v are
+    // stored at indices offsets[v] .. offsets[v + 1] - 1 of targets and costs
+    private int[] offsets;
+    private int[] targets;
+    private int[] costs;
+    // edge id of each arc: both arcs of a road share the id, which is the index of
+    // the arc stored at the lower endpoint (for self-loops, the first of the two arcs)
+    private int[] edgeIds;
+    private Weights weights = Weights.INT; // weight of every cost (ranks of long or double weights)
+    private Edge[] adjacencyList; // linked-list view of the arcs, built lazily for getFirstEdge
     private int numEdges; // total number of edges
+    private int[] originalIds; // id of every node in the input file, or null if the graph was not reordered
+    private volatile String contentHash; // computed by the first getContentHash call
     // Add other variable(s) as needed:
     // add a HashMap to map cities to vertexIds.
     private HashMap<String, Integer>  cityIdAndName = new HashMap<>();
@@ -30,6 +49,12 @@ public class Graph {
      *   @param filename name of the file that has nodes and edges
      */
     public Graph(String filename) {
+        long start = MSTMetrics.start();
+        // endpoints and costs of the roads, one entry per line of the ARCS section
+        int[] from = new int[16];
+        int[] to = new int[16];
+        CostBuffer cost = new CostBuffer(16); // int costs, or long/double weights if the file has them
+        int numRoads = 0;
 
         try {
             FileReader f = new FileReader(filename);
@@ -48,7 +73,6 @@ public class Graph {
                     line = reader.readLine();
                     totalCities = Integer.parseInt(line);
                     nodes = new CityNode[totalCities];
-                    adjacencyList = new Edge[totalCities];
                 } else if (word[0].equals("ARCS")) {
                     cityNodes = false;
                 } else if (cityNodes) { // if it is cityNodes, we will keep adding it to the nodes
@@ -59,37 +83,304 @@ public class Graph {
                     nodes[i] = newCityNode;
                     cityIdAndName.put(cityName, i);
                     i++;
-                } else { // otherwise, we will create new edges and add it to the adjacencyList
-                    int id1 = cityIdAndName.get(word[0]);
-                    int id2 = cityIdAndName.get(word[1]);
-                    int cost = Integer.parseInt(word[2]);
-                    Edge newEdge1 = new Edge(id1, id2, cost);
-                    Edge newEdge2 = new Edge(id2, id1, cost);
-                    addEdge(newEdge1, id1);
-                    addEdge(newEdge2, id2);
-                    numEdges += 2;
+                } else { // otherwise, we will remember the road and add it to the CSR arrays at the end
+                    if (numRoads == from.length) {
+                        from = Arrays.copyOf(from, 2 * numRoads);
+                        to = Arrays.copyOf(to, 2 * numRoads);
+                    }
+                    from[numRoads] = cityIdAndName.get(word[0]);
+                    to[numRoads] = cityIdAndName.get(word[1]);
+                    cost.add(word[2]);
+                    numRoads++;
                 }
             }
         } catch (IOException e) {
             System.out.println("No such file: " + filename);
         }
+
+        if (nodes != null) {
+            int[] ranks = new int[numRoads];
+            weights = cost.toCosts(ranks);
+            buildCSR(from, to, ranks, numRoads);
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.stop(MSTMetrics.LOAD_NANOS, start);
+            MSTMetrics.GRAPHS_LOADED.increment();
+        }
+    }
+
+    /**
+     * Constructor. Create the graph from nodes that were already read and the
+     * list of roads between them (used by the loaders that do not go through
+     * the line-by-line parsing above).
+     *
+     * @param nodes city nodes; the index in the array is the node id
+     * @param from first endpoint of each road
+     * @param to second endpoint of each road
+     * @param cost cost of each road
+     * @param numRoads number of roads stored in the arrays
+     */
+    public Graph(CityNode[] nodes, int[] from, int[] to, int[] cost, int numRoads) {
+        setNodes(nodes);
+        buildCSR(from, to, cost, numRoads);
+    }
+
+    /**
+     * Constructor. Like Graph(nodes, from, to, cost, numRoads), for long weights.
+     * The graph stores the rank of every weight as its cost (see Weights).
+     *
+     * @param nodes city nodes; the index in the array is the node id
+     * @param from first endpoint of each road
+     * @param to second endpoint of each road
+     * @param weight weight of each road
+     * @param numRoads number of roads stored in the arrays
+     */
+    public Graph(CityNode[] nodes, int[] from, int[] to, long[] weight, int numRoads) {
+        setNodes(nodes);
+        int[] ranks = new int[numRoads];
+        weights = Weights.rankLongs(weight, numRoads, ranks);
+        buildCSR(from, to, ranks, numRoads);
+    }
+
+    /**
+     * Constructor. Like Graph(nodes, from, to, cost, numRoads), for double weights
+     * (for example travel times). The graph stores the rank of every weight as its cost.
+     *
+     * @param nodes city nodes; the index in the array is the node id
+     * @param from first endpoint of each road
+     * @param to second endpoint of each road
+     * @param weight weight of each road (not NaN)
+     * @param numRoads number of roads stored in the arrays
+     */
+    public Graph(CityNode[] nodes, int[] from, int[] to, double[] weight, int numRoads) {
+        setNodes(nodes);
+        int[] ranks = new int[numRoads];
+        weights = Weights.rankDoubles(weight, numRoads, ranks);
+        buildCSR(from, to, ranks, numRoads);
+    }
+
+    /**
+     * Constructor used by GraphLoader: the costs were collected in a CostBuffer
+     *
+     * @param nodes city nodes; the index in the array is the node id
+     * @param from first endpoint of each road
+     * @param to second endpoint of each road
+     * @param cost costs of the roads
+     */
+    Graph(CityNode[] nodes, int[] from, int[] to, CostBuffer cost) {
+        setNodes(nodes);
+        int[] ranks = new int[cost.size()];
+        weights = cost.toCosts(ranks);
+        buildCSR(from, to, ranks, cost.size());
+    }
+
+
+    /**
+     * Constructor. Create the graph from nodes and CSR arrays that are already
+     * built (used when reading a GraphSnapshot).
+     *
+     * @param nodes city nodes; the index in the array is the node id
+     * @param offsets CSR offsets, of length nodes.length + 1
+     * @param targets destination vertex of each arc
+     * @param costs cost of each arc
+     * @param weights weight of every cost
+     */
+    Graph(CityNode[] nodes, int[] offsets, int[] targets, int[] costs, Weights weights) {
+        setNodes(nodes);
+        this.weights = weights;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        this.numEdges = targets.length;
+        computeEdgeIds();
+    }
+
+    /**
+     * Return a copy of this graph with the nodes renumbered: node order[i] of this
+     * graph is node i of the copy. The city names, coordinates and roads are the
+     * same, so the MST has the same weight and printMST shows the same cities; only
+     * the ids (and, among roads of equal cost, the one picked) can differ.
+     * getOriginalId maps the new ids back to the ids of the input file.
+     *
+     * @param order order[newId] is the id in this graph (a permutation of 0 .. numNodes() - 1)
+     * @return the renumbered graph
+     */
+    public Graph reorder(int[] order) {
+        int n = nodes.length;
+        if (order.length != n) {
+            throw new IllegalArgumentException("Order has " + order.length + " ids for " + n + " nodes");
+        }
+        int[] newId = new int[n];
+        Arrays.fill(newId, -1);
+        for (int i = 0; i < n; i++) {
+            if (newId[order[i]] != -1) {
+                throw new IllegalArgumentException("Node " + order[i] + " appears twice in the order");
+            }
+            newId[order[i]] = i;
+        }
+
+        CityNode[] newNodes = new CityNode[n];
+        int[] newOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            newNodes[i] = nodes[order[i]];
+            newOffsets[i + 1] = newOffsets[i] + offsets[order[i] + 1] - offsets[order[i]];
+        }
+        // the arcs of every vertex are sorted again by their new target; equal
+        // targets keep their order, so parallel roads still pair up in computeEdgeIds
+        int[] newTargets = new int[numEdges];
+        int[] newCosts = new int[numEdges];
+        long[] slots = new long[0];
+        for (int i = 0; i < n; i++) {
+            int from = offsets[order[i]];
+            int degree = offsets[order[i] + 1] - from;
+            if (slots.length < degree) {
+                slots = new long[Math.max(degree, 2 * slots.length)];
+            }
+            for (int k = 0; k < degree; k++) {
+                slots[k] = ((long) newId[targets[from + k]] << 32) | k;
+            }
+            Arrays.sort(slots, 0, degree);
+            for (int k = 0; k < degree; k++) {
+                newTargets[newOffsets[i] + k] = (int) (slots[k] >>> 32);
+                newCosts[newOffsets[i] + k] = costs[from + (int) slots[k]];
+            }
+        }
+
+        Graph graph = new Graph(newNodes, newOffsets, newTargets, newCosts, weights);
+        graph.originalIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            graph.originalIds[i] = getOriginalId(order[i]);
+        }
+        return graph;
     }
 
     /**
-     * Helper function to add edge to the specified vertex
+     * Return a copy of this graph with the nodes renumbered in the given order
+     * @param ordering how to order the nodes
+     * @return the renumbered graph (this graph for VertexOrdering.NONE)
+     */
+    public Graph reorder(VertexOrdering ordering) {
+        return ordering == VertexOrdering.NONE ? this : reorder(ordering.order(this));
+    }
+
+    /**
+     * Return the id a node had in the input file
+     * @param nodeId id of the node in this graph
+     * @return id before reorder, or nodeId if the graph was not reordered
+     */
+    public int getOriginalId(int nodeId) {
+        return originalIds == null ? nodeId : originalIds[nodeId];
+    }
+
+    /**
+     * Store the nodes and map the city names to node ids
+     * @param nodes city nodes; the index in the array is the node id
+     */
+    private void setNodes(CityNode[] nodes) {
+        this.nodes = nodes;
+        for (int i = 0; i < nodes.length; i++) {
+            cityIdAndName.put(nodes[i].getCity(), i);
+        }
+    }
+
+    /**
+     * Build the CSR arrays from the list of roads. Every road is stored as two arcs,
+     * one in each direction. The arcs of each vertex are sorted by target id, so the
+     * layout (and therefore the order in which algorithms see the arcs) does not
+     * depend on the order of the lines in the input file.
      *
-     *   @param e edge that we want to add
-     *   @param sourceId the vertex that we would like to add the edge to
+     * @param from first endpoint of each road
+     * @param to second endpoint of each road
+     * @param cost cost of each road
+     * @param numRoads number of roads stored in the arrays
+     */
+    private void buildCSR(int[] from, int[] to, int[] cost, int numRoads) {
+        int n = nodes.length;
+        numEdges = 2 * numRoads;
+        offsets = new int[n + 1];
+        targets = new int[numEdges];
+        costs = new int[numEdges];
+
+        // count the degree of every vertex, then turn the counts into start offsets
+        for (int r = 0; r < numRoads; r++) {
+            offsets[from[r] + 1]++;
+            offsets[to[r] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // each slot holds (target, road) packed into a long, so that sorting a
+        // vertex's slots orders its arcs by target
+        long[] slots = new long[numEdges];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int r = 0; r < numRoads; r++) {
+            slots[fill[from[r]]++] = ((long) to[r] << 32) | r;
+            slots[fill[to[r]]++] = ((long) from[r] << 32) | r;
+        }
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(slots, offsets[v], offsets[v + 1]);
+        }
+        for (int a = 0; a < numEdges; a++) {
+            targets[a] = (int) (slots[a] >>> 32);
+            costs[a] = cost[(int) slots[a]];
+        }
+        computeEdgeIds();
+    }
+
+    /**
+     * Fill edgeIds from the CSR arrays. Arcs are sorted by (target, road), so the
+     * k-th arc from u to v and the k-th arc from v to u belong to the same road.
+     */
+    private void computeEdgeIds() {
+        edgeIds = new int[numEdges];
+        for (int u = 0; u < nodes.length; u++) {
+            int a = offsets[u];
+            while (a < offsets[u + 1]) {
+                int v = targets[a];
+                // the arcs of u that go to v are a .. runEnd - 1
+                int runEnd = a + 1;
+                while (runEnd < offsets[u + 1] && targets[runEnd] == v) {
+                    runEnd++;
+                }
+                if (u < v) {
+                    for (int k = a; k < runEnd; k++) {
+                        edgeIds[k] = k;
+                    }
+                } else if (u > v) {
+                    int reverse = lowerBound(v, u);
+                    for (int k = a; k < runEnd; k++) {
+                        edgeIds[k] = reverse + (k - a);
+                    }
+                } else {
+                    // a self-loop is stored as two consecutive arcs of the same vertex
+                    for (int k = a; k < runEnd; k++) {
+                        edgeIds[k] = a + ((k - a) & ~1);
+                    }
+                }
+                a = runEnd;
+            }
+        }
+    }
+
+    /**
+     * Return the index of the first arc of vertex u whose target is at least v
+     * @param u source vertex
+     * @param v target vertex
+     * @return arc index
      */
-    private void addEdge(Edge e, int sourceId) {
-        // if there is no edge on the vertex(sourceId), we can just add it directly
-        if (adjacencyList[sourceId] == null) {
-            adjacencyList[sourceId] = e;
-        // if there is edge(s) on the vertex, we add the new edge as the head and set next to the existing edge(s)
-        } else {
-            e.setNext(adjacencyList[sourceId]);
-            adjacencyList[sourceId] = e;
+    private int lowerBound(int u, int v) {
+        int lo = offsets[u];
+        int hi = offsets[u + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (targets[mid] < v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
+        return lo;
     }
 
     /**
@@ -100,12 +391,176 @@ public class Graph {
         return nodes.length;
     }
 
+    /**
+     * Return the total number of arcs (each road is stored as two arcs)
+     * @return number of arcs
+     */
+    public int numArcs() {
+        return numEdges;
+    }
+
+    /**
+     * Return the weights of the costs. For files with int costs the cost of an arc
+     * is its weight; otherwise the cost is the rank of the weight, and this table
+     * gives the weight (use it for totals and output, not for comparisons).
+     * @return weights of the graph
+     */
+    public Weights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Return a SHA-256 hash of everything the MST depends on: the CSR arrays, the
+     * coordinates of the cities and the weights (city names are not included).
+     * Two graphs with the same hash have the same MST edges, with the same ids.
+     * Computed once, on the first call.
+     * @return the hash as 64 hex digits
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = computeContentHash();
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    private String computeContentHash() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JVM has it
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        buffer.putInt(nodes.length).putInt(numEdges);
+        for (int[] array : new int[][] {offsets, targets, costs}) {
+            for (int value : array) {
+                if (buffer.remaining() < 8) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+                buffer.putInt(value);
+            }
+        }
+        for (CityNode node : nodes) {
+            if (buffer.remaining() < 16) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            buffer.putDouble(node.getX()).putDouble(node.getY());
+        }
+        buffer.flip();
+        digest.update(buffer);
+
+        // the weights, in the format of Weights.write
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            weights.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a ByteArrayOutputStream does not fail
+        }
+        digest.update(bytes.toByteArray());
+
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /** Getter for the CSR offsets array (not copied; used by GraphSnapshot) */
+    int[] csrOffsets() {
+        return offsets;
+    }
+
+    /** Getter for the CSR targets array (not copied; used by GraphSnapshot) */
+    int[] csrTargets() {
+        return targets;
+    }
+
+    /** Getter for the CSR costs array (not copied; used by GraphSnapshot) */
+    int[] csrCosts() {
+        return costs;
+    }
+
+    /**
+     * Return a cursor over the CSR arcs of this graph. The cursor can be
+     * reset to any vertex, so one cursor is enough for a whole algorithm run.
+     * @return new EdgeCursor
+     */
+    public EdgeCursor edgeCursor() {
+        return new EdgeCursor(offsets, targets, costs, edgeIds);
+    }
+
+    /**
+     * Return the source vertex of an arc (binary search over the CSR offsets)
+     * @param arc arc index
+     * @return id of the vertex the arc goes out of
+     */
+    public int arcSource(int arc) {
+        int lo = 0;
+        int hi = nodes.length - 1;
+        // find the last vertex whose first arc is at or before arc
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= arc) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Return the destination vertex of an arc
+     * @param arc arc index
+     * @return id of the vertex the arc goes to
+     */
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    /**
+     * Return the cost of an arc
+     * @param arc arc index
+     * @return cost of the arc
+     */
+    public int arcCost(int arc) {
+        return costs[arc];
+    }
+
+    /**
+     * Return the edge id of an arc. Both arcs of a road have the same edge id,
+     * which is the index of the arc that goes out of the lower endpoint.
+     * @param arc arc index
+     * @return edge id
+     */
+    public int arcEdgeId(int arc) {
+        return edgeIds[arc];
+    }
+
     /** Return the head of the linked list that contains all edges outgoing
-     * from nodeId
+     * from nodeId. The linked list is only an adapter over the CSR arrays,
+     * built the first time it is requested; algorithms should use edgeCursor().
      * @param nodeId id of the node
      * @return head of the linked list of Edges
      */
     public Edge getFirstEdge(int nodeId) {
+        if (adjacencyList == null) {
+            adjacencyList = new Edge[nodes.length];
+            for (int v = 0; v < nodes.length; v++) {
+                // add the arcs back to front, so the list follows the CSR order
+                for (int a = offsets[v + 1] - 1; a >= offsets[v]; a--) {
+                    Edge e = new Edge(v, targets[a], costs[a]);
+                    e.setNext(adjacencyList[v]);
+                    adjacencyList[v] = e;
+                }
+            }
+        }
         return adjacencyList[nodeId];
     }
 
@@ -119,16 +574,16 @@ public class Graph {
      * This info can be obtained from the adjacency list
      */
     public Point[][] getEdges() {
-        if (adjacencyList == null || adjacencyList.length == 0) {
+        if (offsets == null || nodes.length == 0) {
             System.out.println("Adjacency list is empty. Load the graph first.");
             return null;
         }
         Point[][] edges2D = new Point[numEdges][2];
         int idx = 0;
-        for (int i = 0; i < adjacencyList.length; i++) {
-            for (Edge tmp = adjacencyList[i]; tmp != null; tmp = tmp.next(), idx++) {
-                edges2D[idx][0] = nodes[tmp.getId1()].getLocation();
-                edges2D[idx][1] = nodes[tmp.getId2()].getLocation();
+        for (int i = 0; i < nodes.length; i++) {
+            for (int a = offsets[i]; a < offsets[i + 1]; a++, idx++) {
+                edges2D[idx][0] = nodes[i].getLocation();
+                edges2D[idx][1] = nodes[targets[a]].getLocation();
             }
         }
 
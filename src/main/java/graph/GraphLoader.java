@@ -0,0 +1,542 @@
+package graph;
+
+import metrics.MSTMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A faster alternative to the Graph(String filename) constructor for large files.
+ * Memory-maps the NODES/ARCS file and tokenizes the bytes directly, so no String
+ * is created per field (only one per city name). The ARCS section is split into
+ * chunks on line boundaries and the chunks are parsed in parallel.
+ * The resulting Graph is the same as the one built by Graph(String filename).
+ */
+public class GraphLoader {
+    private static final int MIN_CHUNK = 1 << 20; // smallest ARCS chunk given to a worker (1 MB)
+    private static final int MAX_CHUNK = 1 << 30; // largest region mapped at once (1 GB)
+    private static final int CHUNKS_PER_THREAD = 4; // more chunks than threads to balance the load
+    private static final int INITIAL_NAME_BYTES = 1 << 20; // the name bytes grow from here as needed
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8; // largest array the JVM allocates
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int numThreads; // number of threads that parse the ARCS section
+    private long bytesRead; // size of the last loaded file
+    private long loadTimeNanos; // time it took to load the last file
+
+    // city names table: open addressing hash table from the bytes of a name to the node id
+    private byte[] nameBytes; // bytes of all city names, one after another
+    private int[] nameStart; // name of node i is nameBytes[nameStart[i] .. nameStart[i + 1] - 1]
+    private int[] nameTable; // node id + 1 for each used slot, 0 for empty slots
+
+    /** Constructor. Uses one parsing thread per available processor. */
+    public GraphLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     * @param numThreads number of threads used to parse the ARCS section
+     */
+    public GraphLoader(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        }
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Read the graph from the given file
+     * @param filename name of the file that has nodes and edges
+     * @return the graph
+     * @throws IOException if the file can not be read or is not in the NODES/ARCS format
+     */
+    public Graph load(String filename) throws IOException {
+        long start = System.nanoTime();
+        Graph graph;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_CHUNK));
+            Tokenizer tokens = new Tokenizer(header, 0, header.limit());
+
+            // NODES section: the number of cities, then one "name x y" line per city
+            if (!tokens.next() || !tokens.matches("NODES")) {
+                throw new IOException(filename + ": expected NODES");
+            }
+            tokens.expectNext(filename);
+            CityNode[] nodes = new CityNode[tokens.parseInt()];
+            nameBytes = new byte[(int) Math.min(16L * nodes.length + 16, INITIAL_NAME_BYTES)];
+            nameStart = new int[nodes.length + 1];
+            nameTable = new int[Integer.highestOneBit(2 * nodes.length + 1) << 1];
+            for (int i = 0; i < nodes.length; i++) {
+                tokens.expectNext(filename);
+                String city = addName(filename, i, header, tokens.start, tokens.end);
+                tokens.expectNext(filename);
+                double x = tokens.parseDouble();
+                tokens.expectNext(filename);
+                double y = tokens.parseDouble();
+                nodes[i] = new CityNode(city, x, y);
+            }
+            tokens.expectNext(filename);
+            if (!tokens.matches("ARCS")) {
+                throw new IOException(filename + ": expected ARCS");
+            }
+
+            // ARCS section: parsed in parallel chunks
+            RoadBuffer roads = parseArcs(channel, tokens.end, size);
+            graph = new Graph(nodes, roads.from, roads.to, roads.cost);
+            bytesRead = size;
+        } finally {
+            nameBytes = null;
+            nameStart = null;
+            nameTable = null;
+        }
+        loadTimeNanos = System.nanoTime() - start;
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.LOAD_NANOS.add(loadTimeNanos);
+            MSTMetrics.GRAPHS_LOADED.increment();
+        }
+        return graph;
+    }
+
+    /**
+     * Getter for the number of bytes read by the last load
+     * @return size of the last loaded file in bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Getter for the duration of the last load
+     * @return load time in nanoseconds
+     */
+    public long getLoadTimeNanos() {
+        return loadTimeNanos;
+    }
+
+    /**
+     * Load throughput of the last load
+     * @return megabytes (10^6 bytes) read per second
+     */
+    public double getThroughput() {
+        if (loadTimeNanos == 0) {
+            return 0;
+        }
+        return (bytesRead / 1e6) / (loadTimeNanos / 1e9);
+    }
+
+    /**
+     * Split the ARCS section into chunks that end on line boundaries and parse
+     * them on the worker threads. The roads are concatenated in file order.
+     *
+     * @param channel channel of the input file
+     * @param from file offset where the ARCS section starts (right after the ARCS keyword)
+     * @param size size of the file
+     * @return the roads of the file
+     */
+    private RoadBuffer parseArcs(FileChannel channel, long from, long size) throws IOException {
+        long chunkSize = (size - from) / ((long) numThreads * CHUNKS_PER_THREAD) + 1;
+        chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, chunkSize));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long pos = from + chunkSize;
+        while (pos < size) {
+            pos = nextLineStart(channel, pos, size);
+            bounds.add(pos);
+            pos += chunkSize;
+        }
+        if (bounds.get(bounds.size() - 1) < size) {
+            bounds.add(size);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<RoadBuffer>> parts = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                long chunkStart = bounds.get(i);
+                long chunkEnd = bounds.get(i + 1);
+                parts.add(executor.submit(() -> parseChunk(channel, chunkStart, chunkEnd)));
+            }
+
+            List<RoadBuffer> buffers = new ArrayList<>(parts.size());
+            for (Future<RoadBuffer> part : parts) {
+                buffers.add(part.get());
+            }
+            return RoadBuffer.concat(buffers);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the graph", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Return the offset of the first byte of the line that follows the given position
+     * @param channel channel of the input file
+     * @param pos file offset inside of a line
+     * @param size size of the file
+     * @return offset right after the next '\n', or size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Parse "city1 city2 cost" lines in the given region of the file
+     * @param channel channel of the input file
+     * @param start file offset of the first byte of the chunk
+     * @param end file offset one past the last byte of the chunk
+     * @return roads found in the chunk
+     */
+    private RoadBuffer parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        Tokenizer tokens = new Tokenizer(buf, 0, buf.limit());
+        RoadBuffer roads = new RoadBuffer((int) ((end - start) / 24) + 16);
+        while (tokens.next()) {
+            int id1 = findName(buf, tokens.start, tokens.end);
+            if (!tokens.next()) {
+                throw new IOException("Incomplete arc at offset " + (start + tokens.start));
+            }
+            int id2 = findName(buf, tokens.start, tokens.end);
+            if (!tokens.next()) {
+                throw new IOException("Incomplete arc at offset " + (start + tokens.start));
+            }
+            if (id1 < 0 || id2 < 0) {
+                throw new IOException("Unknown city in arc at offset " + (start + tokens.start));
+            }
+            roads.add(id1, id2);
+            // int costs are the common case; wider or fractional costs switch the buffer to long/double
+            if (tokens.isInteger()) {
+                try {
+                    roads.cost.addLong(tokens.parseLong());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Cost out of the long range at offset " + (start + tokens.start));
+                }
+            } else {
+                roads.cost.addDouble(tokens.parseDouble());
+            }
+        }
+        return roads;
+    }
+
+    /**
+     * Add the name of node id to the names table
+     * @param filename name of the file, for the error message
+     * @param id node id
+     * @param buf buffer that has the name
+     * @param start index of the first byte of the name
+     * @param end index one past the last byte of the name
+     * @return name as a String (used for the CityNode)
+     * @throws IOException if the names do not fit in one array
+     */
+    private String addName(String filename, int id, ByteBuffer buf, int start, int end) throws IOException {
+        int len = end - start;
+        int offset = nameStart[id];
+        if ((long) offset + len > nameBytes.length) {
+            if ((long) offset + len > MAX_ARRAY) {
+                throw new IOException(filename + ": the city names take more than " + MAX_ARRAY + " bytes");
+            }
+            // grow geometrically, in long so the doubling does not overflow
+            long capacity = Math.min(MAX_ARRAY, Math.max(2L * nameBytes.length, offset + len));
+            nameBytes = Arrays.copyOf(nameBytes, (int) capacity);
+        }
+        for (int i = 0; i < len; i++) {
+            nameBytes[offset + i] = buf.get(start + i);
+        }
+        nameStart[id + 1] = offset + len;
+
+        int mask = nameTable.length - 1;
+        int slot = hash(buf, start, end) & mask;
+        while (nameTable[slot] != 0 && !sameName(nameTable[slot] - 1, buf, start, end)) {
+            slot = (slot + 1) & mask;
+        }
+        nameTable[slot] = id + 1; // a repeated name maps to its last node, like HashMap.put
+        return new String(nameBytes, offset, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Look up the node id of the city name stored in the buffer
+     * @param buf buffer that has the name
+     * @param start index of the first byte of the name
+     * @param end index one past the last byte of the name
+     * @return node id, or -1 if there is no such city
+     */
+    private int findName(ByteBuffer buf, int start, int end) {
+        int mask = nameTable.length - 1;
+        int slot = hash(buf, start, end) & mask;
+        while (nameTable[slot] != 0) {
+            if (sameName(nameTable[slot] - 1, buf, start, end)) {
+                return nameTable[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Return true if the name of node id has the same bytes as buf[start .. end - 1] */
+    private boolean sameName(int id, ByteBuffer buf, int start, int end) {
+        int offset = nameStart[id];
+        if (nameStart[id + 1] - offset != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++, offset++) {
+            if (nameBytes[offset] != buf.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Hash of the bytes buf[start .. end - 1] */
+    private static int hash(ByteBuffer buf, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** Splits a region of a buffer into whitespace separated tokens without copying the bytes. */
+    private static class Tokenizer {
+        private final ByteBuffer buf;
+        private final int limit; // index one past the last byte of the region
+        private int pos; // index of the next byte to look at
+        private int start; // index of the first byte of the current token
+        private int end; // index one past the last byte of the current token
+
+        Tokenizer(ByteBuffer buf, int from, int limit) {
+            this.buf = buf;
+            this.pos = from;
+            this.limit = limit;
+        }
+
+        /**
+         * Move to the next token
+         * @return true if there is a next token
+         */
+        boolean next() {
+            while (pos < limit && buf.get(pos) <= ' ') {
+                pos++;
+            }
+            if (pos == limit) {
+                start = end = pos;
+                return false;
+            }
+            start = pos;
+            while (pos < limit && buf.get(pos) > ' ') {
+                pos++;
+            }
+            end = pos;
+            return true;
+        }
+
+        /** Move to the next token, failing if the end of the region was reached */
+        void expectNext(String filename) throws IOException {
+            if (!next()) {
+                throw new IOException(filename + ": unexpected end of file");
+            }
+        }
+
+        /** Return true if the current token is the given ASCII word */
+        boolean matches(String word) {
+            if (end - start != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (buf.get(start + i) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Parse the current token as an int, like Integer.parseInt */
+        int parseInt() {
+            long value = parseLong();
+            if (value != (int) value) {
+                throw new NumberFormatException("For input string: \"" + text() + "\"");
+            }
+            return (int) value;
+        }
+
+        /** Return true if the current token is an optional sign followed by digits */
+        boolean isInteger() {
+            int i = start;
+            if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                i++;
+            }
+            if (i == end) {
+                return false;
+            }
+            for (; i < end; i++) {
+                byte b = buf.get(i);
+                if (b < '0' || b > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Parse the current token as a long, like Long.parseLong */
+        long parseLong() {
+            int i = start;
+            boolean negative = buf.get(i) == '-';
+            if (negative || buf.get(i) == '+') {
+                i++;
+            }
+            if (i == end || end - i > 18) {
+                return Long.parseLong(text()); // empty or too long for the loop below: let the JDK decide
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + text() + "\"");
+                }
+                value = 10 * value + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parse the current token as a double. Plain decimals with few digits are
+         * computed directly (and are exact, since both the digits and the power of
+         * ten are exactly representable); anything else goes to Double.parseDouble.
+         */
+        double parseDouble() {
+            int i = start;
+            boolean negative = buf.get(i) == '-';
+            if (negative || buf.get(i) == '+') {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean point = false;
+            for (; i < end; i++) {
+                byte b = buf.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = 10 * mantissa + (b - '0');
+                    digits++;
+                    if (point) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && !point) {
+                    point = true;
+                } else {
+                    return Double.parseDouble(text()); // exponent, NaN, ... : let the JDK handle it
+                }
+            }
+            if (digits == 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(text());
+            }
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        /** The current token as a String (only used for error messages and rare number formats) */
+        String text() {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buf.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Growable primitive arrays of roads (endpoints of each road; the costs are in a CostBuffer). */
+    private static class RoadBuffer {
+        int[] from;
+        int[] to;
+        final CostBuffer cost; // cost of each road, added right after add(id1, id2)
+        int size;
+
+        RoadBuffer(int capacity) {
+            this(capacity, Weights.Kind.INT);
+        }
+
+        RoadBuffer(int capacity, Weights.Kind kind) {
+            from = new int[capacity];
+            to = new int[capacity];
+            cost = new CostBuffer(capacity, kind);
+        }
+
+        /** Concatenate the buffers in one buffer that is allocated once, with the widest kind of cost */
+        static RoadBuffer concat(List<RoadBuffer> parts) {
+            int total = 0;
+            Weights.Kind kind = Weights.Kind.INT;
+            for (RoadBuffer part : parts) {
+                total = Math.addExact(total, part.size);
+                if (part.cost.kind().ordinal() > kind.ordinal()) {
+                    kind = part.cost.kind();
+                }
+            }
+            RoadBuffer all = new RoadBuffer(total, kind);
+            for (RoadBuffer part : parts) {
+                all.addAll(part);
+            }
+            return all;
+        }
+
+        void add(int id1, int id2) {
+            if (size == from.length) {
+                grow(2 * size + 16);
+            }
+            from[size] = id1;
+            to[size] = id2;
+            size++;
+        }
+
+        void addAll(RoadBuffer other) {
+            if (size + other.size > from.length) {
+                grow(Math.max(size + other.size, 2 * from.length));
+            }
+            System.arraycopy(other.from, 0, from, size, other.size);
+            System.arraycopy(other.to, 0, to, size, other.size);
+            cost.addAll(other.cost);
+            size += other.size;
+        }
+
+        private void grow(int capacity) {
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+        }
+    }
+}
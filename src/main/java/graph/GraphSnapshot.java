@@ -0,0 +1,317 @@
+package graph;
+
+import metrics.MSTMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of a Graph. Written once from a graph that was parsed from the
+ * text format, and later opened with FileChannel.map instead of parsing the text
+ * again. The mapped pages live in the OS page cache, so several JVMs opening the
+ * same snapshot share them.
+ *
+ * Layout (little endian, every section starts at a multiple of 8 bytes):
+ * | magic | version | numNodes | numArcs | nameBytes (long) |   header, 24 bytes
+ * | double x[numNodes]          |   coordinates from the input file
+ * | double y[numNodes]          |
+ * | int offsets[numNodes + 1]   |   CSR arrays of the graph
+ * | int targets[numArcs]        |
+ * | int costs[numArcs]          |
+ * | int nameOffsets[numNodes + 1] | string table: name of node i is
+ * | byte names[nameBytes]       |   names[nameOffsets[i] .. nameOffsets[i + 1] - 1] (UTF-8)
+ * | int weightKind | int numRanks | Weights (version 2): Kind ordinal, and for LONG
+ * | long/double table[numRanks]  |   and DOUBLE the weight of every rank
+ *
+ * The arrays are copied out of the mapping in bulk (no per-field parsing),
+ * because the algorithms index plain int arrays in their inner loops.
+ */
+public class GraphSnapshot {
+    public static final int MAGIC = 0x4D535447; // "MSTG"
+    public static final int VERSION = 2; // version 1 files (no weights section) can still be opened
+    private static final int HEADER_SIZE = 24;
+    private static final long WINDOW = 1 << 30; // largest region mapped at once
+
+    /**
+     * Write the graph to a snapshot file
+     * @param graph graph to save
+     * @param filename name of the snapshot file
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Graph graph, String filename) throws IOException {
+        int n = graph.numNodes();
+        int m = graph.numArcs();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] nameOffsets = new int[n + 1];
+        byte[][] names = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            CityNode node = graph.getNode(i);
+            x[i] = node.getX();
+            y[i] = node.getY();
+            names[i] = node.getCity().getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i + 1] = nameOffsets[i] + names[i].length;
+        }
+        byte[] nameBytes = new byte[nameOffsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(names[i], 0, nameBytes, nameOffsets[i], names[i].length);
+        }
+
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putLong(nameBytes.length).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_SIZE - header.remaining());
+            }
+
+            long pos = HEADER_SIZE;
+            pos = writeDoubles(channel, pos, x);
+            pos = writeDoubles(channel, pos, y);
+            pos = align(writeInts(channel, pos, graph.csrOffsets()));
+            pos = align(writeInts(channel, pos, graph.csrTargets()));
+            pos = align(writeInts(channel, pos, graph.csrCosts()));
+            pos = align(writeInts(channel, pos, nameOffsets));
+            ByteBuffer buf = ByteBuffer.wrap(nameBytes);
+            while (buf.hasRemaining()) {
+                channel.write(buf, pos + buf.position());
+            }
+            pos = align(pos + nameBytes.length);
+
+            Weights weights = graph.getWeights();
+            int numRanks = weights.getKind() == Weights.Kind.LONG ? weights.longTable().length
+                    : weights.getKind() == Weights.Kind.DOUBLE ? weights.doubleTable().length : 0;
+            pos = writeInts(channel, pos, new int[] {weights.getKind().ordinal(), numRanks});
+            if (weights.getKind() == Weights.Kind.LONG) {
+                writeLongs(channel, pos, weights.longTable());
+            } else if (weights.getKind() == Weights.Kind.DOUBLE) {
+                writeDoubles(channel, pos, weights.doubleTable());
+            }
+        }
+    }
+
+    /**
+     * Open a snapshot file
+     * @param filename name of the snapshot file
+     * @return the graph stored in the snapshot
+     * @throws IOException if the file can not be read or is not a snapshot
+     */
+    public static Graph open(String filename) throws IOException {
+        long start = MSTMetrics.start();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(filename + ": not a graph snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(filename + ": not a graph snapshot");
+            }
+            int version = header.getInt(4);
+            if (version != 1 && version != VERSION) {
+                throw new IOException(filename + ": unsupported snapshot version " + header.getInt(4));
+            }
+            int n = header.getInt(8);
+            int m = header.getInt(12);
+            long nameLength = header.getLong(16);
+            if (n < 0 || m < 0 || nameLength < 0 || nameLength > Integer.MAX_VALUE) {
+                throw new IOException(filename + ": invalid snapshot header");
+            }
+
+            double[] x = new double[n];
+            double[] y = new double[n];
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[m];
+            int[] costs = new int[m];
+            int[] nameOffsets = new int[n + 1];
+            byte[] nameBytes = new byte[(int) nameLength];
+
+            long pos = HEADER_SIZE;
+            pos = readDoubles(channel, pos, x);
+            pos = readDoubles(channel, pos, y);
+            pos = align(readInts(channel, pos, offsets));
+            pos = align(readInts(channel, pos, targets));
+            pos = align(readInts(channel, pos, costs));
+            pos = align(readInts(channel, pos, nameOffsets));
+            if (pos + nameLength > channel.size()) {
+                throw new IOException(filename + ": snapshot is truncated");
+            }
+            channel.map(FileChannel.MapMode.READ_ONLY, pos, nameLength).get(nameBytes);
+            pos = align(pos + nameLength);
+
+            Weights weights = Weights.INT;
+            if (version >= 2) {
+                int[] weightHeader = new int[2];
+                pos = readInts(channel, pos, weightHeader);
+                weights = readWeights(filename, channel, pos, weightHeader[0], weightHeader[1], costs);
+            }
+
+            CityNode[] nodes = new CityNode[n];
+            for (int i = 0; i < n; i++) {
+                String city = new String(nameBytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i],
+                        StandardCharsets.UTF_8);
+                nodes[i] = new CityNode(city, x[i], y[i]);
+            }
+            Graph graph = new Graph(nodes, offsets, targets, costs, weights);
+            if (MSTMetrics.ENABLED) {
+                MSTMetrics.stop(MSTMetrics.LOAD_NANOS, start);
+                MSTMetrics.GRAPHS_LOADED.increment();
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Read the weights section and check that it has a weight for every cost
+     * @param kind Kind ordinal stored in the snapshot
+     * @param numRanks length of the rank table stored in the snapshot
+     * @param costs costs of the arcs
+     * @throws IOException if the kind is unknown or the table is invalid or too short
+     */
+    private static Weights readWeights(String filename, FileChannel channel, long pos, int kind, int numRanks,
+                                       int[] costs) throws IOException {
+        if (kind == Weights.Kind.INT.ordinal()) {
+            return Weights.INT;
+        }
+        if (kind != Weights.Kind.LONG.ordinal() && kind != Weights.Kind.DOUBLE.ordinal()) {
+            throw new IOException(filename + ": unknown weight kind " + kind);
+        }
+        if (numRanks < 0) {
+            throw new IOException(filename + ": invalid rank table length " + numRanks);
+        }
+        for (int cost : costs) {
+            if (cost < 0 || cost >= numRanks) {
+                throw new IOException(filename + ": cost " + cost + " has no weight in a rank table of "
+                        + numRanks);
+            }
+        }
+        if (kind == Weights.Kind.LONG.ordinal()) {
+            long[] table = new long[numRanks];
+            readLongs(channel, pos, table);
+            return Weights.ofLongTable(table);
+        }
+        double[] table = new double[numRanks];
+        readDoubles(channel, pos, table);
+        return Weights.ofDoubleTable(table);
+    }
+
+    /**
+     * Check whether the given file starts with the snapshot magic number
+     * @param filename name of the file
+     * @return true if the file looks like a snapshot
+     */
+    public static boolean isSnapshot(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(buf, 0) == 4 && buf.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Convert a graph in the text format to a snapshot.
+     * Usage: GraphSnapshot input.txt output.mstg
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: GraphSnapshot <input.txt> <output snapshot>");
+            return;
+        }
+        write(new GraphLoader().load(args[0]), args[1]);
+    }
+
+    /** Round a file position up to the next multiple of 8 */
+    private static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    /** Write the array at the given position, one mapped window at a time; return the end position */
+    private static long writeInts(FileChannel channel, long pos, int[] values) throws IOException {
+        int perWindow = (int) (WINDOW / Integer.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, pos, (long) count * Integer.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(values, from, count);
+            pos += (long) count * Integer.BYTES;
+        }
+        return pos;
+    }
+
+    /** Write the array at the given position, one mapped window at a time; return the end position */
+    private static long writeDoubles(FileChannel channel, long pos, double[] values) throws IOException {
+        int perWindow = (int) (WINDOW / Double.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, pos, (long) count * Double.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(values, from, count);
+            pos += (long) count * Double.BYTES;
+        }
+        return pos;
+    }
+
+    /** Write the array at the given position, one mapped window at a time; return the end position */
+    private static long writeLongs(FileChannel channel, long pos, long[] values) throws IOException {
+        int perWindow = (int) (WINDOW / Long.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, pos, (long) count * Long.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(values, from, count);
+            pos += (long) count * Long.BYTES;
+        }
+        return pos;
+    }
+
+    /** Fill the array from the given position, one mapped window at a time; return the end position */
+    private static long readInts(FileChannel channel, long pos, int[] values) throws IOException {
+        if (pos + (long) values.length * Integer.BYTES > channel.size()) {
+            throw new IOException("Snapshot is truncated");
+        }
+        int perWindow = (int) (WINDOW / Integer.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, (long) count * Integer.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, from, count);
+            pos += (long) count * Integer.BYTES;
+        }
+        return pos;
+    }
+
+    /** Fill the array from the given position, one mapped window at a time; return the end position */
+    private static long readLongs(FileChannel channel, long pos, long[] values) throws IOException {
+        if (pos + (long) values.length * Long.BYTES > channel.size()) {
+            throw new IOException("Snapshot is truncated");
+        }
+        int perWindow = (int) (WINDOW / Long.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, (long) count * Long.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(values, from, count);
+            pos += (long) count * Long.BYTES;
+        }
+        return pos;
+    }
+
+    /** Fill the array from the given position, one mapped window at a time; return the end position */
+    private static long readDoubles(FileChannel channel, long pos, double[] values) throws IOException {
+        if (pos + (long) values.length * Double.BYTES > channel.size()) {
+            throw new IOException("Snapshot is truncated");
+        }
+        int perWindow = (int) (WINDOW / Double.BYTES);
+        for (int from = 0; from < values.length; from += perWindow) {
+            int count = Math.min(perWindow, values.length - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, (long) count * Double.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, from, count);
+            pos += (long) count * Double.BYTES;
+        }
+        return pos;
+    }
+}
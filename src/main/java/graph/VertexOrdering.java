@@ -0,0 +1,185 @@
+package graph;
+
+import java.util.Arrays;
+
+/** Orders of the vertices for Graph.reorder. Vertex ids normally follow the order of
+ *  the input file, so the neighbors of a vertex, and their entries in the arrays of
+ *  the algorithms (costs, heap positions, parents), are scattered over memory.
+ *  Renumbering the vertices so neighbors get close ids makes those accesses hit the
+ *  same cache lines.
+ *
+ *  Every order is returned as an array order, where order[newId] is the old id. */
+public enum VertexOrdering {
+    /** Keep the ids of the file */
+    NONE,
+    /** Sort the cities along a Hilbert curve over their coordinates, so cities that
+     *  are close on the map get close ids */
+    HILBERT,
+    /** Breadth-first search from vertex 0 (and from the smallest unvisited vertex of
+     *  every other component), visiting the arcs in CSR order */
+    BFS,
+    /** Reverse Cuthill-McKee: breadth-first search from a vertex of smallest degree,
+     *  visiting the neighbors by increasing degree, then reversed. Keeps the ids of
+     *  the two endpoints of every road close together (small bandwidth). */
+    RCM;
+
+    private static final int HILBERT_BITS = 15; // resolution of the curve: 2^15 x 2^15 cells (index < 2^30)
+
+    /**
+     * Compute the order of the vertices of a graph
+     * @param graph the graph
+     * @return order[newId] is the old id of the vertex
+     */
+    public int[] order(Graph graph) {
+        switch (this) {
+            case HILBERT:
+                return hilbert(graph);
+            case BFS:
+                return bfs(graph, false);
+            case RCM:
+                return bfs(graph, true);
+            default:
+                int[] order = new int[graph.numNodes()];
+                for (int v = 0; v < order.length; v++) {
+                    order[v] = v;
+                }
+                return order;
+        }
+    }
+
+    /** Sort the vertices by the index of their cell on the Hilbert curve (ties by id) */
+    private static int[] hilbert(Graph graph) {
+        int n = graph.numNodes();
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            CityNode node = graph.getNode(v);
+            minX = Math.min(minX, node.getX());
+            maxX = Math.max(maxX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxY = Math.max(maxY, node.getY());
+        }
+        int side = 1 << HILBERT_BITS;
+        double scaleX = maxX > minX ? (side - 1) / (maxX - minX) : 0;
+        double scaleY = maxY > minY ? (side - 1) / (maxY - minY) : 0;
+
+        // key: index on the curve in the high 32 bits, vertex id in the low 32 bits
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) {
+            CityNode node = graph.getNode(v);
+            int x = (int) ((node.getX() - minX) * scaleX);
+            int y = (int) ((node.getY() - minY) * scaleY);
+            keys[v] = (hilbertIndex(x, y) << 32) | v;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Index of the cell (x, y) on the Hilbert curve that fills the 2^HILBERT_BITS square
+     * @return index between 0 and 4^HILBERT_BITS - 1
+     */
+    static long hilbertIndex(int x, int y) {
+        long d = 0;
+        for (int s = 1 << (HILBERT_BITS - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant, so the curve inside it has the right orientation
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Breadth-first order of all components
+     * @param graph the graph
+     * @param cuthillMcKee if true, start every component at a vertex of smallest
+     *                     degree, visit neighbors by increasing degree and reverse
+     *                     the result; otherwise start at the smallest id and visit
+     *                     neighbors in CSR order
+     */
+    private static int[] bfs(Graph graph, boolean cuthillMcKee) {
+        int n = graph.numNodes();
+        int[] offsets = graph.csrOffsets();
+        int[] degree = new int[n];
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v];
+        }
+        EdgeCursor cursor = graph.edgeCursor();
+
+        // the vertices that may start a component, in the order they are tried
+        int[] starts = new int[n];
+        for (int v = 0; v < n; v++) {
+            starts[v] = v;
+        }
+        if (cuthillMcKee) {
+            byDegree(starts, n, degree);
+        }
+
+        int[] order = new int[n]; // also the BFS queue
+        boolean[] visited = new boolean[n];
+        int[] neighbors = new int[16];
+        int size = 0;
+        for (int start : starts) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            order[size++] = start;
+            for (int head = size - 1; head < size; head++) {
+                int u = order[head];
+                int numNeighbors = 0;
+                cursor.reset(u);
+                while (cursor.next()) {
+                    int w = cursor.target();
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        if (numNeighbors == neighbors.length) {
+                            neighbors = Arrays.copyOf(neighbors, 2 * numNeighbors);
+                        }
+                        neighbors[numNeighbors++] = w;
+                    }
+                }
+                if (cuthillMcKee) {
+                    byDegree(neighbors, numNeighbors, degree);
+                }
+                System.arraycopy(neighbors, 0, order, size, numNeighbors);
+                size += numNeighbors;
+            }
+        }
+
+        if (cuthillMcKee) {
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+        }
+        return order;
+    }
+
+    /** Sort the first count vertices of the array by (degree, id), in place */
+    private static void byDegree(int[] vertices, int count, int[] degree) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) degree[vertices[i]] << 32) | vertices[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            vertices[i] = (int) keys[i];
+        }
+    }
+}
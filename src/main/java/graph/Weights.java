@@ -0,0 +1,260 @@
+package graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Maps the int costs stored in the Graph to the weights of the roads.
+ *
+ * When every cost in the input is an int, the costs are the weights (kind INT).
+ * When some cost is a fraction or does not fit in an int, the graph stores the
+ * rank of every weight among the distinct weights instead, and this table keeps
+ * the weight of every rank in a long[] (kind LONG) or a double[] (kind DOUBLE).
+ * Ranks are in the same order as the weights, so the algorithms still compare
+ * plain ints in their inner loops and compute the same MST; only totals and
+ * output need the real weights.
+ */
+public class Weights {
+    /** How the weights are stored */
+    public enum Kind { INT, LONG, DOUBLE }
+
+    /** The costs are the weights */
+    public static final Weights INT = new Weights(Kind.INT, null, null);
+
+    private final Kind kind;
+    private final long[] longWeights; // LONG: weight of every rank
+    private final double[] doubleWeights; // DOUBLE: weight of every rank
+
+    private Weights(Kind kind, long[] longWeights, double[] doubleWeights) {
+        this.kind = kind;
+        this.longWeights = longWeights;
+        this.doubleWeights = doubleWeights;
+    }
+
+    /**
+     * Replace long weights by their ranks
+     * @param weights weight of every road
+     * @param n number of roads
+     * @param ranks filled with the rank of every road
+     * @return table from rank to weight
+     */
+    public static Weights rankLongs(long[] weights, int n, int[] ranks) {
+        long[] table = Arrays.copyOf(weights, n);
+        Arrays.sort(table);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || table[i] != table[distinct - 1]) {
+                table[distinct++] = table[i];
+            }
+        }
+        table = Arrays.copyOf(table, distinct);
+        for (int i = 0; i < n; i++) {
+            ranks[i] = Arrays.binarySearch(table, weights[i]);
+        }
+        return new Weights(Kind.LONG, table, null);
+    }
+
+    /**
+     * Replace double weights by their ranks
+     * @param weights weight of every road (not NaN)
+     * @param n number of roads
+     * @param ranks filled with the rank of every road
+     * @return table from rank to weight
+     */
+    public static Weights rankDoubles(double[] weights, int n, int[] ranks) {
+        double[] table = Arrays.copyOf(weights, n);
+        Arrays.sort(table);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || Double.compare(table[i], table[distinct - 1]) != 0) {
+                table[distinct++] = table[i];
+            }
+        }
+        table = Arrays.copyOf(table, distinct);
+        for (int i = 0; i < n; i++) {
+            ranks[i] = Arrays.binarySearch(table, weights[i]);
+        }
+        return new Weights(Kind.DOUBLE, null, table);
+    }
+
+    /** Table read from a GraphSnapshot */
+    static Weights ofLongTable(long[] table) {
+        return new Weights(Kind.LONG, table, null);
+    }
+
+    /** Table read from a GraphSnapshot */
+    static Weights ofDoubleTable(double[] table) {
+        return new Weights(Kind.DOUBLE, null, table);
+    }
+
+    /**
+     * Getter for the kind
+     * @return how the weights are stored
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Return the number of weights in the rank table
+     * @return number of distinct weights, or 0 for INT weights (there is no table)
+     */
+    public int size() {
+        switch (kind) {
+            case INT:
+                return 0;
+            case LONG:
+                return longWeights.length;
+            default:
+                return doubleWeights.length;
+        }
+    }
+
+    /**
+     * Check if all weights are whole numbers (so longWeight is exact)
+     * @return true for INT and LONG weights
+     */
+    public boolean isIntegral() {
+        return kind != Kind.DOUBLE;
+    }
+
+    /**
+     * Return the weight of a cost as a long (rounded for DOUBLE weights)
+     * @param cost cost stored in the graph
+     * @return weight
+     */
+    public long longWeight(int cost) {
+        switch (kind) {
+            case INT:
+                return cost;
+            case LONG:
+                return longWeights[cost];
+            default:
+                return Math.round(doubleWeights[cost]);
+        }
+    }
+
+    /**
+     * Return the weight of a cost as a double
+     * @param cost cost stored in the graph
+     * @return weight
+     */
+    public double doubleWeight(int cost) {
+        switch (kind) {
+            case INT:
+                return cost;
+            case LONG:
+                return longWeights[cost];
+            default:
+                return doubleWeights[cost];
+        }
+    }
+
+    /**
+     * Format the weight of a cost for text output
+     * @param cost cost stored in the graph
+     * @return the weight as a decimal string
+     */
+    public String format(int cost) {
+        return isIntegral() ? Long.toString(longWeight(cost)) : Double.toString(doubleWeights[cost]);
+    }
+
+    /**
+     * Sum the weights of the edges. Exact for INT and LONG weights
+     * @param edges edges to sum
+     * @return total weight
+     * @throws ArithmeticException if the total does not fit in a long
+     */
+    public long sumLong(Iterable<Edge> edges) {
+        if (!isIntegral()) {
+            return Math.round(sumDouble(edges));
+        }
+        long total = 0;
+        for (Edge edge : edges) {
+            total = Math.addExact(total, longWeight(edge.getCost()));
+        }
+        return total;
+    }
+
+    /**
+     * Sum the weights of the edges with Kahan summation, so the rounding error does
+     * not grow with the number of edges
+     * @param edges edges to sum
+     * @return total weight
+     */
+    public double sumDouble(Iterable<Edge> edges) {
+        double total = 0;
+        double compensation = 0; // low-order bits lost by the previous additions
+        for (Edge edge : edges) {
+            double y = doubleWeight(edge.getCost()) - compensation;
+            double t = total + y;
+            compensation = (t - total) - y;
+            total = t;
+        }
+        return total;
+    }
+
+    /**
+     * Write the kind and the rank table
+     * @param out output stream
+     * @throws IOException if the stream can not be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(kind.ordinal());
+        if (kind == Kind.LONG) {
+            out.writeInt(longWeights.length);
+            for (long weight : longWeights) {
+                out.writeLong(weight);
+            }
+        } else if (kind == Kind.DOUBLE) {
+            out.writeInt(doubleWeights.length);
+            for (double weight : doubleWeights) {
+                out.writeDouble(weight);
+            }
+        }
+    }
+
+    /**
+     * Read weights written by write
+     * @param in input stream
+     * @return the weights
+     * @throws IOException if the stream can not be read or does not hold weights
+     */
+    public static Weights read(DataInput in) throws IOException {
+        int kind = in.readInt();
+        if (kind == Kind.INT.ordinal()) {
+            return INT;
+        }
+        if (kind != Kind.LONG.ordinal() && kind != Kind.DOUBLE.ordinal()) {
+            throw new IOException("Unknown weight kind " + kind);
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid rank table length " + length);
+        }
+        if (kind == Kind.LONG.ordinal()) {
+            long[] table = new long[length];
+            for (int i = 0; i < length; i++) {
+                table[i] = in.readLong();
+            }
+            return ofLongTable(table);
+        }
+        double[] table = new double[length];
+        for (int i = 0; i < length; i++) {
+            table[i] = in.readDouble();
+        }
+        return ofDoubleTable(table);
+    }
+
+    /** Getter for the rank table (not copied; used by GraphSnapshot) */
+    long[] longTable() {
+        return longWeights;
+    }
+
+    /** Getter for the rank table (not copied; used by GraphSnapshot) */
+    double[] doubleTable() {
+        return doubleWeights;
+    }
+}
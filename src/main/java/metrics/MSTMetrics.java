@@ -0,0 +1,239 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters and timers of the hot paths of the MST algorithms: arcs scanned, heap
+ *  operations and sift steps, DisjointSets.find calls and path lengths, Kruskal's
+ *  sort and union-find times, graph load time, MST compute time and peak heap usage.
+ *
+ *  Metrics are off unless the JVM is started with -Dmst.metrics=true. ENABLED is a
+ *  static final constant, so every "if (MSTMetrics.ENABLED)" block is removed by the
+ *  JIT when it is false and the instrumented code runs as fast as without it.
+ *  The counters are LongAdders, so the parallel algorithms can update them from
+ *  many threads. They add up over all runs until reset().
+ *
+ *  The values can be read over JMX (bean mst:type=Metrics, see register()) or as
+ *  one JSON object (toJson()). */
+public final class MSTMetrics {
+    /** True if the metrics are collected (system property mst.metrics) */
+    public static final boolean ENABLED = Boolean.getBoolean("mst.metrics");
+
+    /** Name of the JMX bean */
+    public static final String OBJECT_NAME = "mst:type=Metrics";
+
+    /** Arcs visited with an EdgeCursor */
+    public static final LongAdder EDGES_SCANNED = new LongAdder();
+    /** removeMin calls of the heaps */
+    public static final LongAdder HEAP_REMOVE_MIN = new LongAdder();
+    /** reduceKey calls of the heaps (including the ones that insert a node) */
+    public static final LongAdder HEAP_REDUCE_KEY = new LongAdder();
+    /** Levels moved up by elements of the heaps */
+    public static final LongAdder HEAP_SIFT_UP_STEPS = new LongAdder();
+    /** Levels moved down by elements of the heaps */
+    public static final LongAdder HEAP_SIFT_DOWN_STEPS = new LongAdder();
+    /** DisjointSets.find calls */
+    public static final LongAdder FIND_CALLS = new LongAdder();
+    /** Parent links followed by DisjointSets.find, before path compression */
+    public static final LongAdder FIND_PATH_LENGTH = new LongAdder();
+    /** Longest path followed by one DisjointSets.find */
+    public static final LongAccumulator FIND_MAX_PATH_LENGTH = new LongAccumulator(Math::max, 0);
+    /** Time Kruskal's algorithm spends sorting edges */
+    public static final LongAdder SORT_NANOS = new LongAdder();
+    /** Time Kruskal's algorithm spends in the DisjointSets (including filtering) */
+    public static final LongAdder UNION_FIND_NANOS = new LongAdder();
+    /** Time spent loading graphs (text files and snapshots) */
+    public static final LongAdder LOAD_NANOS = new LongAdder();
+    /** Graphs loaded */
+    public static final LongAdder GRAPHS_LOADED = new LongAdder();
+    /** Time spent in computeMST */
+    public static final LongAdder MST_NANOS = new LongAdder();
+    /** computeMST calls timed */
+    public static final LongAdder MST_RUNS = new LongAdder();
+
+    private MSTMetrics() {
+    }
+
+    /**
+     * Start a timer
+     * @return the current time, or 0 if the metrics are off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stop a timer started with start() and add the elapsed time to a counter
+     * @param timer counter of nanoseconds
+     * @param start value returned by start()
+     */
+    public static void stop(LongAdder timer, long start) {
+        if (ENABLED) {
+            timer.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the length of the path followed by one find
+     * @param length number of parent links followed
+     */
+    public static void recordFind(int length) {
+        if (ENABLED) {
+            FIND_CALLS.increment();
+            FIND_PATH_LENGTH.add(length);
+            FIND_MAX_PATH_LENGTH.accumulate(length);
+        }
+    }
+
+    /**
+     * Return the largest heap usage since the start of the JVM or the last reset()
+     * @return bytes, summed over the heap memory pools
+     */
+    public static long peakHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    /** Set all counters to 0 and restart the peak heap usage from the current usage */
+    public static void reset() {
+        for (LongAdder counter : new LongAdder[] {EDGES_SCANNED, HEAP_REMOVE_MIN, HEAP_REDUCE_KEY,
+                HEAP_SIFT_UP_STEPS, HEAP_SIFT_DOWN_STEPS, FIND_CALLS, FIND_PATH_LENGTH, SORT_NANOS,
+                UNION_FIND_NANOS, LOAD_NANOS, GRAPHS_LOADED, MST_NANOS, MST_RUNS}) {
+            counter.reset();
+        }
+        FIND_MAX_PATH_LENGTH.reset();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Register the JMX bean, so the metrics can be watched with jconsole. Does
+     * nothing if it is already registered
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by an earlier call
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Return all metrics as one JSON object
+     * @return the JSON report
+     */
+    public static String toJson() {
+        long finds = FIND_CALLS.sum();
+        return String.format(Locale.ROOT, "{\"enabled\":%b,\"edgesScanned\":%d,\"heapRemoveMin\":%d,"
+                        + "\"heapReduceKey\":%d,\"heapSiftUpSteps\":%d,\"heapSiftDownSteps\":%d,"
+                        + "\"findCalls\":%d,\"findPathLength\":%d,\"findAveragePathLength\":%.3f,"
+                        + "\"findMaxPathLength\":%d,\"sortMillis\":%.3f,\"unionFindMillis\":%.3f,"
+                        + "\"graphsLoaded\":%d,\"loadMillis\":%.3f,\"mstRuns\":%d,\"mstMillis\":%.3f,"
+                        + "\"peakHeapBytes\":%d}",
+                ENABLED, EDGES_SCANNED.sum(), HEAP_REMOVE_MIN.sum(), HEAP_REDUCE_KEY.sum(),
+                HEAP_SIFT_UP_STEPS.sum(), HEAP_SIFT_DOWN_STEPS.sum(), finds, FIND_PATH_LENGTH.sum(),
+                finds == 0 ? 0.0 : (double) FIND_PATH_LENGTH.sum() / finds, FIND_MAX_PATH_LENGTH.get(),
+                SORT_NANOS.sum() / 1e6, UNION_FIND_NANOS.sum() / 1e6, GRAPHS_LOADED.sum(),
+                LOAD_NANOS.sum() / 1e6, MST_RUNS.sum(), MST_NANOS.sum() / 1e6, peakHeapBytes());
+    }
+
+    /** The JMX view of the static counters */
+    private static class Bean implements MSTMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public long getEdgesScanned() {
+            return EDGES_SCANNED.sum();
+        }
+
+        @Override
+        public long getHeapRemoveMin() {
+            return HEAP_REMOVE_MIN.sum();
+        }
+
+        @Override
+        public long getHeapReduceKey() {
+            return HEAP_REDUCE_KEY.sum();
+        }
+
+        @Override
+        public long getHeapSiftUpSteps() {
+            return HEAP_SIFT_UP_STEPS.sum();
+        }
+
+        @Override
+        public long getHeapSiftDownSteps() {
+            return HEAP_SIFT_DOWN_STEPS.sum();
+        }
+
+        @Override
+        public long getFindCalls() {
+            return FIND_CALLS.sum();
+        }
+
+        @Override
+        public long getFindPathLength() {
+            return FIND_PATH_LENGTH.sum();
+        }
+
+        @Override
+        public long getFindMaxPathLength() {
+            return FIND_MAX_PATH_LENGTH.get();
+        }
+
+        @Override
+        public long getSortNanos() {
+            return SORT_NANOS.sum();
+        }
+
+        @Override
+        public long getUnionFindNanos() {
+            return UNION_FIND_NANOS.sum();
+        }
+
+        @Override
+        public long getLoadNanos() {
+            return LOAD_NANOS.sum();
+        }
+
+        @Override
+        public long getMstNanos() {
+            return MST_NANOS.sum();
+        }
+
+        @Override
+        public long getPeakHeapBytes() {
+            return peakHeapBytes();
+        }
+
+        @Override
+        public String getReport() {
+            return toJson();
+        }
+
+        @Override
+        public void reset() {
+            MSTMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package metrics;
+
+/** JMX interface of MSTMetrics (bean mst:type=Metrics). All values add up over
+ *  the runs since the start of the JVM or the last reset. */
+public interface MSTMetricsMXBean {
+    boolean isEnabled();
+
+    long getEdgesScanned();
+
+    long getHeapRemoveMin();
+
+    long getHeapReduceKey();
+
+    long getHeapSiftUpSteps();
+
+    long getHeapSiftDownSteps();
+
+    long getFindCalls();
+
+    long getFindPathLength();
+
+    long getFindMaxPathLength();
+
+    long getSortNanos();
+
+    long getUnionFindNanos();
+
+    long getLoadNanos();
+
+    long getMstNanos();
+
+    long getPeakHeapBytes();
+
+    /** All metrics as one JSON object */
+    String getReport();
+
+    /** Set all counters to 0 */
+    void reset();
+}
@@ -0,0 +1,202 @@
+package priorityQueue;
+
+import metrics.MSTMetrics;
+
+import java.util.Arrays;
+
+/** An indexed d-ary min heap of node ids with int priorities.
+ *  Priorities and ids are kept in two parallel int arrays (no object per
+ *  entry), and positionArr maps a node id to its index in the heap.
+ *  The heap starts empty: a node is inserted by the first reduceKey call
+ *  for it, so Prim's algorithm only pays for the vertices it reaches.
+ *  A larger arity (4 or 8) makes the heap shallower, which makes reduceKey
+ *  cheaper at the price of comparing more children in removeMin. */
+public class DaryHeap implements IndexedPriorityQueue {
+    private final int arity; // number of children of every node
+    private int[] priorities; // priorities[i] is the priority of the element at index i
+    private int[] nodeIds; // nodeIds[i] is the node id of the element at index i
+    private int[] positionArr; // positionArr[nodeId] is the index of nodeId in the heap, or -1
+    private int size; // the current number of elements in the heap
+
+    /**
+     * Constructor
+     * @param max the number of node ids (node ids are 0 .. max - 1)
+     * @param arity the number of children of every node (2 for a binary heap)
+     */
+    public DaryHeap(int max, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+        priorities = new int[max];
+        nodeIds = new int[max];
+        positionArr = new int[max];
+        Arrays.fill(positionArr, -1);
+        size = 0;
+    }
+
+    /** Return the index of the parent
+     *
+     * @param pos the index of the element in the heap array
+     * @return the index of the parent
+     */
+    private int parent(int pos) {
+        return (pos - 1) / arity;
+    }
+
+    /** Return the index of the first child
+     *
+     * @param pos the index of the element in the heap array
+     * @return the index of the first child
+     */
+    private int firstChild(int pos) {
+        return arity * pos + 1;
+    }
+
+    /**
+     * Getter for size
+     * @return the number of nodes in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Check if the heap is empty
+     *
+     * @return true if there are no nodes in the heap
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Check if the node is currently in the heap
+     *
+     * @param nodeId the Id of the node
+     * @return true if nodeId was inserted and not removed yet
+     */
+    public boolean contains(int nodeId) {
+        return positionArr[nodeId] >= 0;
+    }
+
+    /** Update the priority of a node in the heap. If the node is not in the
+     * heap it is inserted with the given priority; if it is, the priority is
+     * only changed when the new one is smaller.
+     *
+     * @param nodeId the Id of the node
+     * @param newPriority the new priority of the node
+     */
+    @Override
+    public void reduceKey(int nodeId, int newPriority) {
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_REDUCE_KEY.increment();
+        }
+        int pos = positionArr[nodeId];
+        if (pos < 0) {
+            pushUp(size++, nodeId, newPriority);
+        } else if (newPriority < priorities[pos]) {
+            pushUp(pos, nodeId, newPriority);
+        }
+    }
+
+    /** Remove minimum element (it is at index 0 of the heap)
+     *
+     * @return the id of the node with the smallest priority
+     */
+    @Override
+    public int removeMin() {
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_REMOVE_MIN.increment();
+        }
+        int min = nodeIds[0];
+        positionArr[min] = -1;
+        size--;
+        if (size > 0) {
+            // move the last element to the root and push it down
+            pushDown(0, nodeIds[size], priorities[size]);
+        }
+        return min;
+    }
+
+    /** Return the priority of the node at the top of the heap (without removing it)
+     *
+     * @return the smallest priority in the heap
+     */
+    public int minPriority() {
+        return priorities[0];
+    }
+
+    /** Remove all nodes from the heap, so it can be reused */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positionArr[nodeIds[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /** Move the element up from the given index until its parent is not larger.
+     *  Parents are shifted down into the hole, and the element is written once
+     *  at its final index.
+     *
+     * @param pos the index where the element starts
+     * @param nodeId the id of the element
+     * @param priority the priority of the element
+     */
+    private void pushUp(int pos, int nodeId, int priority) {
+        int steps = 0;
+        while (pos > 0) {
+            int parentIdx = parent(pos);
+            if (priorities[parentIdx] <= priority) {
+                break;
+            }
+            priorities[pos] = priorities[parentIdx];
+            nodeIds[pos] = nodeIds[parentIdx];
+            positionArr[nodeIds[pos]] = pos;
+            pos = parentIdx;
+            steps++;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_SIFT_UP_STEPS.add(steps);
+        }
+        priorities[pos] = priority;
+        nodeIds[pos] = nodeId;
+        positionArr[nodeId] = pos;
+    }
+
+    /** Move the element down from the given index until no child is smaller.
+     *  The smallest child is shifted up into the hole, and the element is
+     *  written once at its final index.
+     *
+     * @param pos the index where the element starts
+     * @param nodeId the id of the element
+     * @param priority the priority of the element
+     */
+    private void pushDown(int pos, int nodeId, int priority) {
+        int child;
+        int steps = 0;
+        while ((child = firstChild(pos)) < size) {
+            // find the smallest of the (up to arity) children
+            int last = Math.min(child + arity, size);
+            int smallestChild = child;
+            for (int c = child + 1; c < last; c++) {
+                if (priorities[c] < priorities[smallestChild]) {
+                    smallestChild = c;
+                }
+            }
+            if (priorities[smallestChild] >= priority) {
+                break;
+            }
+            priorities[pos] = priorities[smallestChild];
+            nodeIds[pos] = nodeIds[smallestChild];
+            positionArr[nodeIds[pos]] = pos;
+            pos = smallestChild;
+            steps++;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_SIFT_DOWN_STEPS.add(steps);
+        }
+        priorities[pos] = priority;
+        nodeIds[pos] = nodeId;
+        positionArr[nodeId] = pos;
+    }
+}
@@ -0,0 +1,25 @@
+package priorityQueue;
+
+/** A priority queue of node ids (0 .. capacity - 1) with int priorities,
+ *  supporting the operations needed by Prim's algorithm. */
+public interface IndexedPriorityQueue {
+
+    /** Update the priority of a node in the queue
+     *
+     * @param nodeId the Id of the node
+     * @param newPriority the new priority of the node
+     */
+    void reduceKey(int nodeId, int newPriority);
+
+    /** Remove the node with the smallest priority
+     *
+     * @return the id of the removed node
+     */
+    int removeMin();
+
+    /** Check if the queue is empty
+     *
+     * @return true if there are no nodes in the queue
+     */
+    boolean isEmpty();
+}
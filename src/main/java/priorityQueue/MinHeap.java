@@ -1,8 +1,10 @@
 package priorityQueue;
 
+import metrics.MSTMetrics;
+
 /** A priority queue: represented by the min heap.
  *  Used in Prim's algorithm. */
-public class MinHeap {
+public class MinHeap implements IndexedPriorityQueue {
     private minHeapNode[] heap; // the array to store the heap
     private int[] positionArr;
     private int maxsize; // the size of the array
@@ -106,12 +108,26 @@ public class MinHeap {
             System.out.println(heap[i].nodeId + " " + heap[i].priority);
     }
 
+    /** Check if the heap is empty
+     *
+     * @return true if there are no elements in the heap
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
     /** Remove minimum element (it is at the top of the minHeap)
      *
      * @return the smallest element in the heap
      */
+    @Override
     public int removeMin() {
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_REMOVE_MIN.increment();
+        }
         swap(1, size); // swap the end of the heap into the root
+        positionArr[heap[1].nodeId] = 1; // the moved node is now at the root
         size--;  	   // removed the end of the heap
         // fix the heap property - push down as needed
         if (size != 0)
@@ -125,6 +141,7 @@ public class MinHeap {
      */
     private void pushDown(int position) {
         int smallestChild;
+        int steps = 0;
         while (!isLeaf(position)) {
             smallestChild = leftChild(position); // set the smallest child to left child
             if ((smallestChild < size) && (heap[smallestChild].priority > heap[smallestChild + 1].priority))
@@ -133,7 +150,7 @@ public class MinHeap {
             // the value of the smallest child is less than value of current,
             // the heap is already valid
             if (heap[position].priority <= heap[smallestChild].priority)
-                return;
+                break;
 
             // getting the parent and child that will be swapped
             int id1 = heap[position].nodeId;
@@ -144,6 +161,10 @@ public class MinHeap {
             // swap the parent and child
             swap(position, smallestChild);
             position = smallestChild;
+            steps++;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_SIFT_DOWN_STEPS.add(steps);
         }
 
     }
@@ -153,7 +174,11 @@ public class MinHeap {
      * @param nodeId the Id of the node/country
      * @param newPriority the new priority that we will add to the node
      */
+    @Override
     public void reduceKey(int nodeId, int newPriority) {
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_REDUCE_KEY.increment();
+        }
         // getting the position of the nodeId in the heap from positionArr
         int indexInHeap = positionArr[nodeId];
         // update the priority of the nodeId
@@ -169,6 +194,7 @@ public class MinHeap {
     private void pushUp(int position) {
         int smallestChildIdx = position;
         int parentIdx = parent(position);
+        int steps = 0;
 
         // while child is smaller than the parent (bubble up)
         while (heap[smallestChildIdx].priority < heap[parentIdx].priority) {
@@ -183,6 +209,10 @@ public class MinHeap {
             swap(smallestChildIdx, parentIdx);
             smallestChildIdx = parentIdx;
             parentIdx = parent(smallestChildIdx);
+            steps++;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.HEAP_SIFT_UP_STEPS.add(steps);
         }
     }
 
@@ -0,0 +1,112 @@
+package sets;
+
+import metrics.MSTMetrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Disjoint Sets that can be shared by several threads without locks.
+ *  Used by the parallel MST algorithms.
+ *
+ *  The parents are stored in an AtomicIntegerArray; a root is its own parent.
+ *  find uses path halving: each visited node is pointed to its grandparent
+ *  with a CAS, and a failed CAS is simply ignored (another thread already
+ *  shortened the path), so find never waits for other threads.
+ *  union links one root under the other with a CAS that only succeeds if the
+ *  node is still a root, and retries otherwise. Which root is linked under
+ *  which one is decided by a fixed pseudo-random priority of the node ids,
+ *  which keeps the trees shallow in expectation. */
+public class ConcurrentDisjointSets {
+    private final AtomicIntegerArray parent;
+
+    /**
+     * Constructor. Creates n sets, each containing one node
+     * @param n number of nodes (node ids are 0 .. n - 1)
+     */
+    public ConcurrentDisjointSets(int n) {
+        parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the root of the "tree" that x belongs to. Uses path halving.
+     * @param x node id
+     * @return root of the tree that x belongs to
+     */
+    public int find(int x) {
+        int length = 0;
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                break;
+            }
+            int grandParent = parent.get(p);
+            if (p == grandParent) {
+                x = p;
+                length++;
+                break;
+            }
+            parent.compareAndSet(x, p, grandParent);
+            x = grandParent;
+            length += 2;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.recordFind(length);
+        }
+        return x;
+    }
+
+    /**
+     * Merges the trees of x and y.
+     * @param x node id
+     * @param y node id
+     * @return true if x and y were in different trees (so the trees were merged
+     * by this call), false if they were already in the same tree
+     */
+    public boolean union(int x, int y) {
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y) {
+                return false;
+            }
+            // link the root with the lower priority under the other one
+            if (priority(x) > priority(y) || (priority(x) == priority(y) && x > y)) {
+                int tmp = x;
+                x = y;
+                y = tmp;
+            }
+            if (parent.compareAndSet(x, x, y)) {
+                return true;
+            }
+            // x stopped being a root in the meantime: try again from the new roots
+        }
+    }
+
+    /**
+     * Check if x and y are in the same tree
+     * @param x node id
+     * @param y node id
+     * @return true if x and y are in the same tree
+     */
+    public boolean sameSet(int x, int y) {
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y) {
+                return true;
+            }
+            // the roots were different; the answer holds if x is still a root
+            if (parent.get(x) == x) {
+                return false;
+            }
+        }
+    }
+
+    /** Pseudo-random priority of a node id (a fixed bit mix, so linking is deterministic) */
+    private static int priority(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
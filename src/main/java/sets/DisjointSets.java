@@ -1,17 +1,36 @@
 package sets;
 
+import metrics.MSTMetrics;
+
+import java.util.Arrays;
+
 /** A class that represents the Disjoint Sets data structure. Please refer
  * to the lecture slides.
- * This class is used in Kruskal's. Do not change anything in this class.
+ * This class is used in Kruskal's. It is not thread-safe (find changes the
+ * parents); see ConcurrentDisjointSets for the version shared by threads.
  * */
 public class DisjointSets {
     private int[] parent;
 
+    /**
+     * Make n sets with one node each (node ids 0 .. n - 1). The array of a
+     * previous createSets is reused if it is large enough, so one DisjointSets
+     * can serve many graphs (see MSTWorkspace).
+     * @param n number of nodes
+     */
     public void createSets(int n) {
-        parent = new int[n];
-        for (int i = 0; i < n; i++) {
-            parent[i] = -1;
+        if (parent == null || parent.length < n) {
+            parent = new int[n];
         }
+        Arrays.fill(parent, 0, n, -1);
+    }
+
+    /**
+     * Return the number of nodes the array can hold without growing
+     * @return capacity of the sets
+     */
+    public int capacity() {
+        return parent == null ? 0 : parent.length;
     }
 
     /**
@@ -21,9 +40,22 @@ public class DisjointSets {
      * @return root of the tree that x belongs to
      */
     public int find(int x) {
-        while (parent[x] >= 0)
-            x = parent[x];
-        return x;
+        int root = x;
+        int length = 0;
+        while (parent[root] >= 0) {
+            root = parent[root];
+            length++;
+        }
+        if (MSTMetrics.ENABLED) {
+            MSTMetrics.recordFind(length);
+        }
+        // point every node on the path directly to the root
+        while (x != root) {
+            int next = parent[x];
+            parent[x] = root;
+            x = next;
+        }
+        return root;
     }
 
     /**
@@ -4,23 +4,37 @@
  *  Allows the user to click on either Kruskal's or Prim's button,
  *  and runs the corresponding algorithm for computing MST.
  *  Displays the MST edges.
- *  Please do not change anything in this class.
+ *  The MST is computed by a SwingWorker on a background thread, so the window
+ *  stays responsive: edges are drawn as the algorithm finds them, a progress bar
+ *  shows how many of the n - 1 edges were found, and Cancel stops the run.
+ *  Drawing is done by a GraphRenderer: scroll the mouse wheel to zoom, drag
+ *  to move the map, and double click to see the whole map again.
  */
 package userInterface;
 
+import algo.EuclideanMSTAlgorithm;
 import algo.KruskalAlgorithm;
 import algo.MSTAlgorithm;
 import algo.PrimAlgorithm;
+import graph.Edge;
 import graph.Graph;
+import metrics.MSTMetrics;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GUIApp extends JFrame {
     private MapPanel panel;
@@ -46,25 +60,32 @@ public class GUIApp extends JFrame {
     private class MapPanel extends JPanel {
 
         private static final long serialVersionUID = 1L;
-        public final static int RAD = 3;
 
-        private MSTAlgorithm algo = null; // algorithm for computing minimal spanning tree
         private Graph graph; // Graph
+        private GraphRenderer renderer; // draws the map, the graph and the MST edges found so far
+        private MSTWorker worker; // the running computation, or null
+
+        // runs the MST computations, one at a time, off the event dispatch thread
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "mst-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         private JButton buttonReset; // button to reset the algorithm
         private JButton buttonPrim; // button to run Prim's
         private JButton buttonKruskal; // button to run Kruskal's
+        private JButton buttonEuclidean; // button to run the Euclidean MST over all pairs of cities
+        private JButton buttonCancel; // button to stop the running algorithm
         private JButton buttonQuit; // button to quit
+        private JProgressBar progressBar; // number of MST edges found so far
         private BufferedImage image; // for showing the image of the US map
 
-        private Color colMSTEdges; // color to use while displaying MST edges
-
         /**
          * Constructor for MapPanel class
          * @param graph Reference to the graph
          */
         public MapPanel(Graph graph) {
-            this.algo = algo;
             this.graph = graph;
             this.setLayout(new BorderLayout());
             this.setPreferredSize(new Dimension(580, 290));
@@ -75,24 +96,68 @@ public class GUIApp extends JFrame {
             buttonReset = new JButton("Reset");
             buttonPrim  = new JButton("Prim's");
             buttonKruskal  = new JButton("Kruskal's");
+            buttonEuclidean = new JButton("Euclidean");
+            buttonCancel = new JButton("Cancel");
+            buttonCancel.setEnabled(false);
             buttonReset.addActionListener(new ButtonListener());
             buttonPrim.addActionListener(new ButtonListener());
             buttonKruskal.addActionListener(new ButtonListener());
+            buttonEuclidean.addActionListener(new ButtonListener());
+            buttonCancel.addActionListener(new ButtonListener());
             buttonQuit.addActionListener(new ButtonListener());
+            progressBar = new JProgressBar(0, Math.max(1, graph.numNodes() - 1));
+            progressBar.setStringPainted(true);
 
             JPanel buttonPanel = new JPanel();
             buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
             buttonPanel.add(buttonReset);
             buttonPanel.add(buttonPrim);
             buttonPanel.add(buttonKruskal);
+            buttonPanel.add(buttonEuclidean);
+            buttonPanel.add(buttonCancel);
             buttonPanel.add(buttonQuit);
             this.add(buttonPanel, BorderLayout.EAST);
+            this.add(progressBar, BorderLayout.SOUTH);
 
             try { // load the image of the map of the USA
                 image = ImageIO.read(new File("input"+ File.separator + "USA.bmp"));
             } catch (IOException ex) {
                 System.out.println("Could not load the image. " + ex);
             }
+            renderer = new GraphRenderer(graph, image);
+
+            MouseAdapter mouse = new MouseAdapter() {
+                private Point last; // where the mouse was when it was last pressed or dragged
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    last = e.getPoint();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    renderer.pan(e.getX() - last.x, e.getY() - last.y);
+                    last = e.getPoint();
+                    repaint();
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        renderer.resetView();
+                        repaint();
+                    }
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    renderer.zoom(Math.pow(1.25, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
             repaint(); // draw everything
         }
 
@@ -104,87 +169,92 @@ public class GUIApp extends JFrame {
          */
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            g.drawImage(image, 0, 0, null);
-            drawNodes(g);
-            drawEdges(g, Color.lightGray);
-            drawMSTEdges(g);
+            renderer.paint(g, getWidth(), getHeight());
         }
 
         /**
-         * Draws a little circle at the given location of the node; Uses the
-         * given color; "city" parameter is used to draw a label next to the
-         * circle.
-         * @param g Graphics
-         * @param location point that contains x and y coordinates of the city on the image
-         * @param col color
-         * @param city name of the city
+         * Start computing the MST with the given algorithm on the background thread.
+         * Cancels the computation that is still running, if any.
+         * @param algorithm algorithm to run
+         * @param color color of the MST edges
          */
-        public void drawNode(Graphics g, Point location, Color col, String city) {
-            g.setColor(col);
-            g.fillOval(location.x - RAD, location.y - RAD, 2 * RAD, 2 * RAD);
-            g.setColor(Color.black);
-            g.setFont(new Font("SANS_SERIF", Font.PLAIN, 11));
-            g.drawString(city, location.x + 2, location.y - 2);
+        private void startMST(MSTAlgorithm algorithm, Color color) {
+            cancelMST();
+            renderer.clearMST(color);
+            progressBar.setValue(0);
+            progressBar.setString(null);
+            buttonCancel.setEnabled(true);
+            worker = new MSTWorker(algorithm);
+            executor.execute(worker);
+            repaint();
         }
 
-        /**
-         * Display the nodes of the graph as little circles on the map
-         * @param g Graphics
-         */
-        public void drawNodes(Graphics g) {
-            Point[] nodes = graph.getNodes();
-            String[] labels = graph.getCities();
-            if (nodes == null) {
-                //System.out.println("Nothing to display, nodes are null");
-                return;
-            }
-            for (int i = 0; i < nodes.length; i++) {
-                drawNode(g, nodes[i], Color.BLACK, labels[i]);
+        /** Stop the running computation, if any. Its edges stay on the map. */
+        private void cancelMST() {
+            if (worker != null) {
+                worker.algorithm.cancel();
+                worker.cancel(false);
+                worker = null;
             }
-
+            buttonCancel.setEnabled(false);
         }
 
-        /**
-         * Draw edges of the graph
-         * edges is an array, where each value is an array of two Points
-         * @param g Graphics
-         * @param color Color in which to draw the edges
-         */
-        public void drawEdges(Graphics g, Color color) {
-            Point[][] edges = graph.getEdges();
-            if (edges == null) {
-                return;
+        /** Runs an MSTAlgorithm off the EDT and hands every edge it finds to the EDT */
+        private class MSTWorker extends SwingWorker<Long, Edge> {
+            private final MSTAlgorithm algorithm;
+
+            MSTWorker(MSTAlgorithm algorithm) {
+                this.algorithm = algorithm;
             }
-            g.setColor(color);
-
-            for (int i = 0; i < edges.length; i++) {
-                Point[] edge = edges[i];
-                assert(edge.length == 2); // should contain two vertices
-                Point p1 = edge[0];
-                Point p2 = edge[1];
-                g.drawLine(p1.x, p1.y, p2.x, p2.y);
+
+            /** Run computeMST and return its time in nanoseconds */
+            @Override
+            protected Long doInBackground() {
+                algorithm.setProgressListener((edge, numEdges) -> publish(edge));
+                long start = System.nanoTime();
+                algorithm.computeMST();
+                long elapsed = System.nanoTime() - start;
+                if (MSTMetrics.ENABLED) {
+                    MSTMetrics.MST_NANOS.add(elapsed);
+                    MSTMetrics.MST_RUNS.increment();
+                }
+                return elapsed;
             }
-        } // drawEdges
 
-        /**
-         * Draw the edges of the MST in red.
-         * @param g Graphics
-         */
-        public void drawMSTEdges(Graphics g) {
-            if (algo == null)
-                return;
-            Point[][] pathEdges = algo.getMSTEdges();
-            g.setColor(colMSTEdges);
-            if (pathEdges == null)
-                return;
-            for (int i = 0; i < pathEdges.length; i++) {
-                Point[] edge = pathEdges[i];
-                assert(edge.length == 2); // should contain two vertices
-                Point p1 = edge[0];
-                Point p2 = edge[1];
-                g.drawLine(p1.x, p1.y, p2.x, p2.y);
+            /** Called on the EDT with the edges published since the last call */
+            @Override
+            protected void process(List<Edge> edges) {
+                if (worker != this) {
+                    return; // a newer run or a reset replaced this one
+                }
+                for (Edge edge : edges) {
+                    renderer.addMSTEdge(edge.getId1(), edge.getId2());
+                }
+                progressBar.setValue(renderer.numMSTEdges());
+                repaint();
             }
-        } // drawShortestPath
+
+            @Override
+            protected void done() {
+                if (worker != this) {
+                    return;
+                }
+                worker = null;
+                buttonCancel.setEnabled(false);
+                if (algorithm.isCancelled() || isCancelled()) {
+                    progressBar.setString("Cancelled");
+                } else {
+                    try {
+                        progressBar.setString(String.format("MST computed in %.1f ms", get() / 1e6));
+                    } catch (ExecutionException e) {
+                        progressBar.setString("Failed: " + e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt(); // cannot happen: the worker is done
+                    }
+                }
+                repaint();
+            }
+        }
 
         /** Inner class that handles button presses */
         class ButtonListener implements ActionListener {
@@ -197,22 +267,28 @@ public class GUIApp extends JFrame {
                     System.exit(0);
                 }
                 else if (e.getSource() == buttonReset) {
-                    algo = null;
+                    cancelMST();
+                    renderer.clearMST(Color.RED);
+                    progressBar.setValue(0);
+                    progressBar.setString(null);
                     repaint();
                 }
+                else if (e.getSource() == buttonCancel) {
+                    System.out.println("Button Cancel clicked");
+                    cancelMST();
+                    progressBar.setString("Cancelled");
+                }
                 else if (e.getSource() == buttonKruskal) {
                     System.out.println("Button Kruskal clicked");
-                    algo = new KruskalAlgorithm(graph);
-                    algo.computeMST();
-                    colMSTEdges = Color.RED;
-                    repaint();
+                    startMST(new KruskalAlgorithm(graph), Color.RED);
+                }
+                else if (e.getSource() == buttonEuclidean) {
+                    System.out.println("Button Euclidean clicked");
+                    startMST(new EuclideanMSTAlgorithm(graph), Color.MAGENTA);
                 }
                 else if (e.getSource() == buttonPrim) {
                     System.out.println("Button Prim clicked");
-                    algo = new PrimAlgorithm(graph, 0);
-                    algo.computeMST();
-                    colMSTEdges = Color.BLUE;
-                    repaint();
+                    startMST(new PrimAlgorithm(graph, 0), Color.BLUE);
                 }
             }
         } // inner class ButtonListener
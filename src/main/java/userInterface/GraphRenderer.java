@@ -0,0 +1,354 @@
+package userInterface;
+
+import graph.EdgeCursor;
+import graph.Graph;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/** Draws the map, the graph and the MST for MapPanel.
+ *
+ *  The locations of the nodes and the list of roads (each undirected road once)
+ *  are read from the graph once and indexed in a SpatialGrid. Every frame only the
+ *  nodes and roads inside the visible part of the map are drawn. When too many of
+ *  them are visible, nodes that fall in the same small square of the screen are
+ *  drawn as one dot and only one road is drawn between two such squares (level of
+ *  detail). Labels are only drawn when few nodes are visible.
+ *
+ *  Everything is drawn into a back buffer that is reused until the view or the
+ *  graph changes. MST edges are added to the buffer as they arrive, so showing the
+ *  progress of an algorithm does not redraw the graph. Use only on the EDT. */
+public class GraphRenderer {
+    public static final int RAD = 3; // radius of a node, in screen pixels
+    private static final int LABEL_LIMIT = 300; // draw labels if at most this many nodes are visible
+    private static final int CIRCLE_LIMIT = 5000; // draw nodes as circles if at most this many are visible
+    private static final int EDGE_LIMIT = 100_000; // merge edges if more than this many are visible
+    private static final int LOD_CELL = 3; // size in screen pixels of the squares nodes are merged into
+    private static final double MIN_SCALE = 0.25;
+    private static final double MAX_SCALE = 4096;
+    private static final Font LABEL_FONT = new Font("SANS_SERIF", Font.PLAIN, 11);
+
+    private final Image background; // map of the USA, may be null
+    private final int[] xs; // location of every node on the map image
+    private final int[] ys;
+    private final String[] labels; // name of every city
+    private final int[] edgeU; // endpoints of every road
+    private final int[] edgeV;
+    private final SpatialGrid grid;
+    private final LongSet drawnPairs = new LongSet(); // squares already connected in this frame
+
+    private int[] mstU = new int[16]; // endpoints of the MST edges
+    private int[] mstV = new int[16];
+    private int numMSTEdges;
+    private Color mstColor = Color.RED;
+
+    private double scale = 1; // screen pixels per pixel of the map image
+    private double offsetX, offsetY; // map coordinates of the top left corner of the screen
+
+    private BufferedImage buffer; // the last rendered frame
+    private boolean valid; // false if the buffer has to be drawn again
+    private int mstDrawn; // number of MST edges already in the buffer
+
+    /**
+     * Constructor for GraphRenderer. Reads the geometry of the graph
+     * @param graph graph to draw
+     * @param background image of the map, or null
+     */
+    public GraphRenderer(Graph graph, Image background) {
+        this.background = background;
+        int n = graph.numNodes();
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            Point location = graph.getNode(i).getLocation();
+            xs[i] = location.x;
+            ys[i] = location.y;
+        }
+        labels = graph.getCities();
+
+        // every road once, from the arc that carries its edge id; self-loops are not drawn
+        EdgeCursor cursor = graph.edgeCursor();
+        int numRoads = 0;
+        for (int v = 0; v < n; v++) {
+            cursor.reset(v);
+            while (cursor.next()) {
+                if (cursor.edgeId() == cursor.arc() && cursor.target() != v) {
+                    numRoads++;
+                }
+            }
+        }
+        edgeU = new int[numRoads];
+        edgeV = new int[numRoads];
+        int r = 0;
+        for (int v = 0; v < n; v++) {
+            cursor.reset(v);
+            while (cursor.next()) {
+                if (cursor.edgeId() == cursor.arc() && cursor.target() != v) {
+                    edgeU[r] = v;
+                    edgeV[r] = cursor.target();
+                    r++;
+                }
+            }
+        }
+        grid = new SpatialGrid(xs, ys, edgeU, edgeV);
+    }
+
+    /**
+     * Draw the current frame. Redraws the back buffer only if it is out of date
+     * @param g Graphics of the panel
+     * @param width width of the panel
+     * @param height height of the panel
+     */
+    public void paint(Graphics g, int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            valid = false;
+        }
+        Graphics2D bg = buffer.createGraphics();
+        try {
+            if (!valid) {
+                render(bg, width, height);
+                mstDrawn = 0;
+                valid = true;
+            }
+            if (mstDrawn < numMSTEdges) {
+                drawMST(bg, mstDrawn, numMSTEdges, width, height);
+                mstDrawn = numMSTEdges;
+            }
+        } finally {
+            bg.dispose();
+        }
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /** Draw the map, the roads and the nodes */
+    private void render(Graphics2D g, int width, int height) {
+        g.setColor(Color.lightGray);
+        g.fillRect(0, 0, width, height);
+        if (background != null) {
+            g.drawImage(background, screenX(0), screenY(0),
+                    (int) Math.ceil(background.getWidth(null) * scale),
+                    (int) Math.ceil(background.getHeight(null) * scale), null);
+        }
+        Rectangle view = visibleArea(width, height);
+        drawEdges(g, view);
+        drawNodes(g, view, width, height);
+    }
+
+    /** Draw the roads that cross the view, merging them if there are too many */
+    private void drawEdges(Graphics2D g, Rectangle view) {
+        g.setColor(Color.lightGray);
+        boolean merge = grid.estimateEdges(view) > EDGE_LIMIT;
+        drawnPairs.clear();
+        grid.forEachEdge(view, e -> {
+            int x1 = screenX(xs[edgeU[e]]), y1 = screenY(ys[edgeU[e]]);
+            int x2 = screenX(xs[edgeV[e]]), y2 = screenY(ys[edgeV[e]]);
+            if (merge) {
+                int a = square(x1, y1);
+                int b = square(x2, y2);
+                if (a == b || !drawnPairs.add(a < b ? pair(a, b) : pair(b, a))) {
+                    return; // inside one square, or these squares are already connected
+                }
+            } else if (x1 == x2 && y1 == y2) {
+                return;
+            }
+            g.drawLine(x1, y1, x2, y2);
+        });
+    }
+
+    /** Draw the nodes in the view: circles with labels when there are few, dots otherwise */
+    private void drawNodes(Graphics2D g, Rectangle view, int width, int height) {
+        int estimate = grid.estimateNodes(view);
+        if (estimate <= CIRCLE_LIMIT) {
+            boolean withLabels = estimate <= LABEL_LIMIT;
+            g.setFont(LABEL_FONT);
+            grid.forEachNode(view, node -> {
+                int x = screenX(xs[node]), y = screenY(ys[node]);
+                g.setColor(Color.BLACK);
+                g.fillOval(x - RAD, y - RAD, 2 * RAD, 2 * RAD);
+                if (withLabels) {
+                    g.drawString(labels[node], x + 2, y - 2);
+                }
+            });
+        } else {
+            // one dot per square of the screen that has a node in it
+            int cols = width / LOD_CELL + 1;
+            boolean[] filled = new boolean[cols * (height / LOD_CELL + 1)];
+            g.setColor(Color.BLACK);
+            grid.forEachNode(view, node -> {
+                int x = screenX(xs[node]), y = screenY(ys[node]);
+                if (x < 0 || y < 0 || x >= width || y >= height) {
+                    return;
+                }
+                int s = (y / LOD_CELL) * cols + x / LOD_CELL;
+                if (!filled[s]) {
+                    filled[s] = true;
+                    g.fillRect(x - 1, y - 1, 2, 2);
+                }
+            });
+        }
+    }
+
+    /** Draw the MST edges from index from (inclusive) to index to (exclusive) */
+    private void drawMST(Graphics2D g, int from, int to, int width, int height) {
+        Rectangle view = visibleArea(width, height);
+        g.setColor(mstColor);
+        for (int i = from; i < to; i++) {
+            int u = mstU[i], v = mstV[i];
+            if (Math.max(xs[u], xs[v]) < view.x || Math.min(xs[u], xs[v]) > view.x + view.width
+                    || Math.max(ys[u], ys[v]) < view.y || Math.min(ys[u], ys[v]) > view.y + view.height) {
+                continue;
+            }
+            g.drawLine(screenX(xs[u]), screenY(ys[u]), screenX(xs[v]), screenY(ys[v]));
+        }
+    }
+
+    /**
+     * Add an edge to the MST that is shown
+     * @param u id of one endpoint
+     * @param v id of the other endpoint
+     */
+    public void addMSTEdge(int u, int v) {
+        if (numMSTEdges == mstU.length) {
+            mstU = Arrays.copyOf(mstU, 2 * numMSTEdges);
+            mstV = Arrays.copyOf(mstV, 2 * numMSTEdges);
+        }
+        mstU[numMSTEdges] = u;
+        mstV[numMSTEdges] = v;
+        numMSTEdges++;
+    }
+
+    /**
+     * Remove all MST edges
+     * @param color color of the MST edges that are added next
+     */
+    public void clearMST(Color color) {
+        numMSTEdges = 0;
+        mstColor = color;
+        valid = false;
+    }
+
+    /**
+     * Getter for the number of MST edges
+     * @return number of MST edges added since the last clearMST
+     */
+    public int numMSTEdges() {
+        return numMSTEdges;
+    }
+
+    /**
+     * Zoom in (factor > 1) or out (factor < 1), keeping the given point of the screen in place
+     * @param factor how much to multiply the scale by
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     */
+    public void zoom(double factor, int x, int y) {
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        offsetX += x / scale - x / newScale;
+        offsetY += y / scale - y / newScale;
+        scale = newScale;
+        valid = false;
+    }
+
+    /**
+     * Move the map by the given number of screen pixels
+     * @param dx pixels to the right
+     * @param dy pixels down
+     */
+    public void pan(int dx, int dy) {
+        offsetX -= dx / scale;
+        offsetY -= dy / scale;
+        valid = false;
+    }
+
+    /** Show the whole map at its original size */
+    public void resetView() {
+        scale = 1;
+        offsetX = 0;
+        offsetY = 0;
+        valid = false;
+    }
+
+    /** The part of the map that is on the screen, in map coordinates */
+    private Rectangle visibleArea(int width, int height) {
+        int x = (int) Math.floor(offsetX);
+        int y = (int) Math.floor(offsetY);
+        return new Rectangle(x, y, (int) Math.ceil(width / scale) + 1, (int) Math.ceil(height / scale) + 1);
+    }
+
+    private int screenX(int x) {
+        return (int) Math.round((x - offsetX) * scale);
+    }
+
+    private int screenY(int y) {
+        return (int) Math.round((y - offsetY) * scale);
+    }
+
+    /** Id of the LOD square of the screen that contains the point. Points far off the
+     *  screen are clamped, which only merges roads that leave the screen in the same place */
+    private static int square(int x, int y) {
+        int sx = Math.max(-0x7FFF, Math.min(0x7FFF, Math.floorDiv(x, LOD_CELL)));
+        int sy = Math.max(-0x7FFF, Math.min(0x7FFF, Math.floorDiv(y, LOD_CELL)));
+        return (sx << 16) | (sy & 0xFFFF);
+    }
+
+    private static long pair(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    /** Set of longs with open addressing, cleared every frame without being reallocated */
+    private static class LongSet {
+        private static final long EMPTY = Long.MIN_VALUE; // pair() never returns it: a square id is never 0x80000000
+        private long[] table = new long[1 << 10];
+        private int size;
+
+        LongSet() {
+            Arrays.fill(table, EMPTY);
+        }
+
+        /** @return true if the key was not in the set */
+        boolean add(long key) {
+            if (2 * (size + 1) > table.length) {
+                grow();
+            }
+            int mask = table.length - 1;
+            int i = (int) (mix(key) & mask);
+            while (table[i] != EMPTY) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            size++;
+            return true;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(table, EMPTY);
+                size = 0;
+            }
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[2 * old.length];
+            Arrays.fill(table, EMPTY);
+            size = 0;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    add(key);
+                }
+            }
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 29);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package userInterface;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** A uniform grid over the locations of the nodes, used to find the nodes and
+ *  edges that are inside a rectangle without looking at all of them.
+ *
+ *  Every node is stored in the cell that contains it. Every edge is stored in all
+ *  cells its bounding box covers; edges whose bounding box covers more than
+ *  MAX_CELLS_PER_EDGE cells are kept in a separate list that every query checks.
+ *  Not thread-safe: the queries share a stamp array to report each edge once. */
+public class SpatialGrid {
+    private static final int MAX_CELLS_PER_EDGE = 16;
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+
+    private final int[] xs; // x coordinate of every node
+    private final int[] ys; // y coordinate of every node
+    private final int[] edgeU; // first endpoint of every edge
+    private final int[] edgeV; // second endpoint of every edge
+
+    private final int minX, minY; // corner of the grid
+    private final int cellSize; // width and height of a cell
+    private final int cols, rows;
+
+    private final int[] nodeStart; // nodes of cell c are nodeIds[nodeStart[c] .. nodeStart[c + 1])
+    private final int[] nodeIds;
+    private final int[] edgeStart; // edges of cell c are edgeIds[edgeStart[c] .. edgeStart[c + 1])
+    private final int[] edgeIds;
+    private final int[] longEdges; // edges that cover too many cells
+
+    private final int[] seen; // seen[e] == stamp if edge e was reported by the current query
+    private int stamp;
+
+    /**
+     * Build the grid
+     * @param xs x coordinate of every node
+     * @param ys y coordinate of every node
+     * @param edgeU first endpoint of every edge
+     * @param edgeV second endpoint of every edge
+     */
+    public SpatialGrid(int[] xs, int[] ys, int[] edgeU, int[] edgeV) {
+        this.xs = xs;
+        this.ys = ys;
+        this.edgeU = edgeU;
+        this.edgeV = edgeV;
+
+        int loX = Integer.MAX_VALUE, loY = Integer.MAX_VALUE;
+        int hiX = Integer.MIN_VALUE, hiY = Integer.MIN_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            loX = Math.min(loX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiX = Math.max(hiX, xs[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        if (xs.length == 0) {
+            loX = loY = hiX = hiY = 0;
+        }
+        minX = loX;
+        minY = loY;
+        // about one node per cell, but no more than MAX_CELLS_PER_SIDE cells per side
+        int side = Math.max(hiX - loX, hiY - loY) + 1;
+        int perSide = (int) Math.min(MAX_CELLS_PER_SIDE, Math.max(1, Math.sqrt(xs.length)));
+        cellSize = Math.max(1, (side + perSide - 1) / perSide);
+        cols = (hiX - loX) / cellSize + 1;
+        rows = (hiY - loY) / cellSize + 1;
+
+        // nodes: counting sort by cell
+        nodeStart = new int[cols * rows + 1];
+        for (int i = 0; i < xs.length; i++) {
+            nodeStart[cellOf(xs[i], ys[i]) + 1]++;
+        }
+        prefixSum(nodeStart);
+        nodeIds = new int[xs.length];
+        int[] fill = Arrays.copyOf(nodeStart, cols * rows);
+        for (int i = 0; i < xs.length; i++) {
+            nodeIds[fill[cellOf(xs[i], ys[i])]++] = i;
+        }
+
+        // edges: count first, then fill, the same way
+        edgeStart = new int[cols * rows + 1];
+        int numLong = 0;
+        for (int e = 0; e < edgeU.length; e++) {
+            if (!forEachCell(e, c -> edgeStart[c + 1]++)) {
+                numLong++;
+            }
+        }
+        prefixSum(edgeStart);
+        edgeIds = new int[edgeStart[cols * rows]];
+        longEdges = new int[numLong];
+        int[] edgeFill = Arrays.copyOf(edgeStart, cols * rows);
+        int l = 0;
+        for (int e = 0; e < edgeU.length; e++) {
+            final int edge = e;
+            if (!forEachCell(e, c -> edgeIds[edgeFill[c]++] = edge)) {
+                longEdges[l++] = e;
+            }
+        }
+
+        seen = new int[edgeU.length];
+    }
+
+    /**
+     * Call action with every node inside the rectangle
+     * @param r rectangle, in the coordinates of the nodes
+     * @param action called with the id of every node
+     */
+    public void forEachNode(Rectangle r, IntConsumer action) {
+        int x0 = col(r.x), x1 = col(r.x + r.width);
+        int y0 = row(r.y), y1 = row(r.y + r.height);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int c = cy * cols + cx;
+                for (int k = nodeStart[c]; k < nodeStart[c + 1]; k++) {
+                    int node = nodeIds[k];
+                    if (r.contains(xs[node], ys[node])) {
+                        action.accept(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Count the nodes in the cells the rectangle covers. An upper bound on the number
+     * of nodes inside the rectangle that does not look at the nodes themselves.
+     * @param r rectangle, in the coordinates of the nodes
+     * @return number of nodes in the covered cells
+     */
+    public int estimateNodes(Rectangle r) {
+        return estimate(nodeStart, r);
+    }
+
+    /**
+     * Count the edges stored in the cells the rectangle covers (an edge in several of
+     * those cells is counted several times), plus the long edges
+     * @param r rectangle, in the coordinates of the nodes
+     * @return estimated number of edges near the rectangle
+     */
+    public int estimateEdges(Rectangle r) {
+        return estimate(edgeStart, r) + longEdges.length;
+    }
+
+    /**
+     * Call action once with every edge whose bounding box intersects the rectangle
+     * @param r rectangle, in the coordinates of the nodes
+     * @param action called with the index of every edge
+     */
+    public void forEachEdge(Rectangle r, IntConsumer action) {
+        if (++stamp == 0) { // the stamp wrapped around, forget the old stamps
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        int x0 = col(r.x), x1 = col(r.x + r.width);
+        int y0 = row(r.y), y1 = row(r.y + r.height);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int c = cy * cols + cx;
+                for (int k = edgeStart[c]; k < edgeStart[c + 1]; k++) {
+                    int e = edgeIds[k];
+                    if (seen[e] != stamp) {
+                        seen[e] = stamp;
+                        if (intersects(e, r)) {
+                            action.accept(e);
+                        }
+                    }
+                }
+            }
+        }
+        for (int e : longEdges) {
+            if (intersects(e, r)) {
+                action.accept(e);
+            }
+        }
+    }
+
+    /** Check if the bounding box of edge e intersects the rectangle */
+    private boolean intersects(int e, Rectangle r) {
+        int u = edgeU[e], v = edgeV[e];
+        return Math.max(xs[u], xs[v]) >= r.x && Math.min(xs[u], xs[v]) <= r.x + r.width
+                && Math.max(ys[u], ys[v]) >= r.y && Math.min(ys[u], ys[v]) <= r.y + r.height;
+    }
+
+    /**
+     * Call action with every cell the bounding box of edge e covers
+     * @return false (without calling action) if the box covers more than MAX_CELLS_PER_EDGE cells
+     */
+    private boolean forEachCell(int e, IntConsumer action) {
+        int u = edgeU[e], v = edgeV[e];
+        int x0 = col(Math.min(xs[u], xs[v])), x1 = col(Math.max(xs[u], xs[v]));
+        int y0 = row(Math.min(ys[u], ys[v])), y1 = row(Math.max(ys[u], ys[v]));
+        if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS_PER_EDGE) {
+            return false;
+        }
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                action.accept(cy * cols + cx);
+            }
+        }
+        return true;
+    }
+
+    private int estimate(int[] start, Rectangle r) {
+        int x0 = col(r.x), x1 = col(r.x + r.width);
+        int y0 = row(r.y), y1 = row(r.y + r.height);
+        int count = 0;
+        for (int cy = y0; cy <= y1; cy++) {
+            count += start[cy * cols + x1 + 1] - start[cy * cols + x0];
+        }
+        return count;
+    }
+
+    private int cellOf(int x, int y) {
+        return row(y) * cols + col(x);
+    }
+
+    /** Column of the cell that contains x, clamped to the grid */
+    private int col(int x) {
+        return Math.max(0, Math.min(cols - 1, (int) (((long) x - minX) / cellSize)));
+    }
+
+    /** Row of the cell that contains y, clamped to the grid */
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, (int) (((long) y - minY) / cellSize)));
+    }
+
+    private static void prefixSum(int[] a) {
+        for (int i = 1; i < a.length; i++) {
+            a[i] += a[i - 1];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package algo;
+
+import graph.CityNode;
+import graph.Graph;
+import graph.Weights;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/** EuclideanMSTAlgorithm finds a tree with the weights of the MST that PrimAlgorithm
+ *  computes on the explicit complete graph, also with duplicate and collinear cities */
+public class EuclideanMSTAlgorithmTest {
+
+    @Test
+    public void randomPoints() {
+        Random random = new Random(110);
+        for (int trial = 0; trial < 30; trial++) {
+            CityNode[] nodes = new CityNode[1 + random.nextInt(150)];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new CityNode("C" + i, random.nextDouble() * 100, random.nextDouble() * 100);
+            }
+            assertSameAsPrim(nodes);
+        }
+    }
+
+    @Test
+    public void duplicatePoints() {
+        Random random = new Random(111);
+        for (int trial = 0; trial < 30; trial++) {
+            CityNode[] nodes = new CityNode[1 + random.nextInt(150)];
+            for (int i = 0; i < nodes.length; i++) {
+                // few distinct points: many cities at the same place, and many equal distances
+                nodes[i] = new CityNode("C" + i, random.nextInt(4), random.nextInt(4));
+            }
+            assertSameAsPrim(nodes);
+        }
+    }
+
+    @Test
+    public void collinearPoints() {
+        Random random = new Random(112);
+        for (int trial = 0; trial < 30; trial++) {
+            CityNode[] nodes = new CityNode[1 + random.nextInt(150)];
+            for (int i = 0; i < nodes.length; i++) {
+                int t = random.nextInt(50);
+                // on a line, or on a vertical line (all x equal), so one axis of the k-d tree is flat
+                nodes[i] = trial % 2 == 0 ? new CityNode("C" + i, t, 2 * t + 1) : new CityNode("C" + i, 7, t);
+            }
+            assertSameAsPrim(nodes);
+        }
+    }
+
+    @Test
+    public void grid() {
+        CityNode[] nodes = new CityNode[400];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new CityNode("C" + i, i % 20, i / 20); // all neighbours at distance 1
+        }
+        assertSameAsPrim(nodes);
+    }
+
+    /** Compare with Prim on the graph with a road between every pair of cities */
+    private static void assertSameAsPrim(CityNode[] nodes) {
+        int n = nodes.length;
+        int m = n * (n - 1) / 2;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] length = new double[m];
+        int r = 0;
+        for (int u = 0; u < n; u++) {
+            for (int v = u + 1; v < n; v++) {
+                double dx = nodes[u].getX() - nodes[v].getX();
+                double dy = nodes[u].getY() - nodes[v].getY();
+                from[r] = u;
+                to[r] = v;
+                length[r] = Math.sqrt(dx * dx + dy * dy);
+                r++;
+            }
+        }
+        Graph complete = new Graph(nodes, from, to, length, m);
+        PrimAlgorithm prim = new PrimAlgorithm(complete, 0);
+        prim.computeMST();
+
+        EuclideanMSTAlgorithm euclidean = new EuclideanMSTAlgorithm(complete);
+        euclidean.computeMST();
+        assertEquals(n - 1, euclidean.numMSTEdges());
+        assertEquals(lengths(prim.getResult()), lengths(euclidean.getResult()));
+        assertEquals(prim.getTotalWeightAsDouble(), euclidean.getTotalWeightAsDouble(), 1e-9);
+        assertEquals(1, euclidean.getSpanningForest().numComponents());
+    }
+
+    /** Sorted lengths of the edges: the same for every MST */
+    private static List<Double> lengths(MSTResult result) {
+        Weights weights = result.getWeights();
+        List<Double> list = new ArrayList<>();
+        for (int i = 0; i < result.numEdges(); i++) {
+            list.add(weights.doubleWeight(result.cost(i)));
+        }
+        Collections.sort(list);
+        return list;
+    }
+}
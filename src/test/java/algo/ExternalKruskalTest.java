@@ -0,0 +1,128 @@
+package algo;
+
+import graph.Graph;
+import graph.GraphLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** ExternalKruskal writes the same edges as KruskalAlgorithm on the loaded graph,
+ *  with runs small enough for several merge passes, long and decimal costs, and
+ *  parallel roads */
+public class ExternalKruskalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void longCosts() throws IOException {
+        Random random = new Random(90);
+        for (int trial = 0; trial < 10; trial++) {
+            assertSameEdges(writeGraph(random, 1 + random.nextInt(300), random.nextInt(1500), false),
+                    1 + random.nextInt(50));
+        }
+    }
+
+    @Test
+    public void mixedCosts() throws IOException {
+        Random random = new Random(91);
+        for (int trial = 0; trial < 10; trial++) {
+            assertSameEdges(writeGraph(random, 1 + random.nextInt(300), random.nextInt(1500), true),
+                    1 + random.nextInt(50));
+        }
+    }
+
+    @Test
+    public void severalMergePasses() throws IOException {
+        // more than MERGE_FAN_IN * MERGE_FAN_IN runs: two merge passes before the last merge
+        ExternalKruskal kruskal = assertSameEdges(writeGraph(new Random(92), 500, 9000, true), 2);
+        assertEquals(4500, kruskal.numRuns());
+    }
+
+    /**
+     * Write a graph file with cities C0 .. C(n - 1) and random roads (parallel roads
+     * and self-loops included) whose costs repeat often
+     * @param decimals mix decimal costs with the integer ones
+     */
+    private File writeGraph(Random random, int n, int numRoads, boolean decimals) throws IOException {
+        File file = folder.newFile();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("NODES");
+            out.println(n);
+            for (int i = 0; i < n; i++) {
+                out.println("C" + i + " " + random.nextInt(1000) + " " + random.nextInt(1000));
+            }
+            out.println();
+            out.println("ARCS");
+            String previous = null;
+            for (int i = 0; i < numRoads; i++) {
+                String road;
+                if (previous != null && random.nextInt(10) == 0) {
+                    road = previous; // the same road twice
+                } else {
+                    long cost = random.nextInt(3) == 0 ? random.nextInt(20) - 10 // many ties
+                            : (random.nextLong() >> 24); // beyond int
+                    String text = decimals && random.nextBoolean()
+                            ? Double.toString(cost + random.nextInt(4) / 4.0) : Long.toString(cost);
+                    road = "C" + random.nextInt(n) + " C" + random.nextInt(n) + " " + text;
+                }
+                out.println(road);
+                previous = road;
+            }
+        }
+        return file;
+    }
+
+    private ExternalKruskal assertSameEdges(File input, int runSize) throws IOException {
+        File output = folder.newFile();
+        ExternalKruskal external = new ExternalKruskal(runSize, folder.getRoot());
+        external.run(input.getPath(), output.getPath());
+
+        Graph graph = new GraphLoader().load(input.getPath());
+        KruskalAlgorithm kruskal = new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.CLASSIC);
+        kruskal.computeMST();
+        List<String> expected = new ArrayList<>();
+        for (String edge : RandomGraphs.edgeSet(kruskal)) {
+            String[] parts = edge.split(" ");
+            expected.add(edge(graph.getNode(Integer.parseInt(parts[0])).getCity(),
+                    graph.getNode(Integer.parseInt(parts[1])).getCity(), parts[2]));
+        }
+        Collections.sort(expected);
+
+        List<String> actual = new ArrayList<>();
+        for (String line : Files.readAllLines(output.toPath())) {
+            String[] parts = line.split(" ");
+            actual.add(edge(parts[0], parts[1], parts[2]));
+        }
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+        assertEquals(kruskal.numMSTEdges(), external.numMSTEdges());
+        if (graph.getWeights().isIntegral()) {
+            assertEquals(Long.toString(kruskal.getTotalWeight()), external.getTotalWeight());
+        } else {
+            double total = kruskal.getTotalWeightAsDouble();
+            assertEquals(total, Double.parseDouble(external.getTotalWeight()), Math.abs(total) * 1e-12);
+        }
+        assertTrue(external.numRuns() >= external.numRoads() / runSize);
+        return external;
+    }
+
+    /** An edge as text: the cities in order, and the cost without trailing zeros */
+    private static String edge(String city1, String city2, String cost) {
+        String first = city1.compareTo(city2) <= 0 ? city1 : city2;
+        String second = first == city1 ? city2 : city1;
+        return first + " " + second + " " + new BigDecimal(cost).stripTrailingZeros().toPlainString();
+    }
+}
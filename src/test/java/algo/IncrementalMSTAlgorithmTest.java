@@ -0,0 +1,172 @@
+package algo;
+
+import graph.CityNode;
+import graph.Edge;
+import graph.Graph;
+import graph.Weights;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/** Replacement roads of IncrementalMSTAlgorithm.removeEdge, down to the largest cost,
+ *  and random updates with long and decimal weights checked against KruskalAlgorithm */
+public class IncrementalMSTAlgorithmTest {
+
+    @Test
+    public void removeEdgeFindsReplacementOfMaxCost() {
+        CityNode[] nodes = {new CityNode("A", 0, 0), new CityNode("B", 1, 0), new CityNode("C", 0, 1)};
+        int[] from = {0, 1, 0};
+        int[] to = {1, 2, 2};
+        int[] cost = {1, 2, Integer.MAX_VALUE};
+        IncrementalMSTAlgorithm mst = new IncrementalMSTAlgorithm(new Graph(nodes, from, to, cost, 3));
+        mst.computeMST();
+        assertEquals(2, mst.getCurrentTree().size());
+
+        mst.removeEdge(0, 1);
+        List<Edge> tree = mst.getCurrentTree();
+        assertEquals(2, tree.size());
+        long total = 0;
+        for (Edge edge : tree) {
+            total += edge.getCost();
+        }
+        assertEquals(2L + Integer.MAX_VALUE, total);
+    }
+
+    @Test
+    public void removeEdgeWithoutReplacementSplitsTheTree() {
+        CityNode[] nodes = {new CityNode("A", 0, 0), new CityNode("B", 1, 0), new CityNode("C", 0, 1)};
+        int[] from = {0, 1};
+        int[] to = {1, 2};
+        int[] cost = {Integer.MAX_VALUE, 2};
+        IncrementalMSTAlgorithm mst = new IncrementalMSTAlgorithm(new Graph(nodes, from, to, cost, 2));
+        mst.computeMST();
+        mst.removeEdge(1, 0);
+        assertEquals(1, mst.getCurrentTree().size());
+        mst.addEdge(0, 2, Integer.MAX_VALUE);
+        assertEquals(2, mst.getCurrentTree().size());
+    }
+
+    @Test
+    public void longWeights() {
+        Random random = new Random(40);
+        for (int trial = 0; trial < 20; trial++) {
+            runUpdates(random, false);
+        }
+    }
+
+    @Test
+    public void decimalWeights() {
+        Random random = new Random(41);
+        for (int trial = 0; trial < 20; trial++) {
+            runUpdates(random, true);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decimalCostOnIntegerGraph() {
+        CityNode[] nodes = {new CityNode("A", 0, 0), new CityNode("B", 1, 0)};
+        IncrementalMSTAlgorithm mst = new IncrementalMSTAlgorithm(
+                new Graph(nodes, new int[]{0}, new int[]{1}, new long[]{1L << 40}, 1));
+        mst.computeMST();
+        mst.addEdge(0, 1, 0.5);
+    }
+
+    /**
+     * Start from a random graph with long (or decimal) weights, apply random updates,
+     * and compare the tree with a new KruskalAlgorithm run after every update. The
+     * deltas are applied to a copy of the tree, which has to stay the same as the tree.
+     */
+    private static void runUpdates(Random random, boolean decimals) {
+        int n = 2 + random.nextInt(30);
+        CityNode[] nodes = RandomGraphs.cities(random, n);
+        Map<Long, Number> roads = new HashMap<>(); // pair key -> weight
+        for (int i = random.nextInt(2 * n); i > 0; i--) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            roads.merge(pair(u, v), randomWeight(random, decimals), (a, b) -> min(a, b, decimals));
+        }
+        IncrementalMSTAlgorithm mst = new IncrementalMSTAlgorithm(graph(nodes, roads, decimals));
+        mst.computeMST();
+        List<String> tree = new ArrayList<>(RandomGraphs.edgeSet(mst));
+        for (int step = 0; step < 200; step++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            Number weight = randomWeight(random, decimals);
+            if (roads.containsKey(pair(u, v)) && random.nextInt(3) == 0) {
+                mst.removeEdge(u, v);
+                roads.remove(pair(u, v));
+            } else if (decimals) {
+                mst.addEdge(u, v, weight.doubleValue());
+                roads.put(pair(u, v), weight);
+            } else {
+                mst.addEdge(u, v, weight.longValue());
+                roads.put(pair(u, v), weight);
+            }
+
+            KruskalAlgorithm kruskal = new KruskalAlgorithm(graph(nodes, roads, decimals));
+            kruskal.computeMST();
+            assertEquals(kruskal.numMSTEdges(), mst.numMSTEdges());
+            if (decimals) {
+                assertEquals(kruskal.getTotalWeightAsDouble(), mst.getTotalWeightAsDouble(), 1e-6);
+            } else {
+                assertEquals(kruskal.getTotalWeight(), mst.getTotalWeight());
+            }
+
+            MSTDelta delta = mst.pollDelta();
+            for (Edge edge : delta.getRemoved()) {
+                tree.remove(key(edge, delta.getWeights()));
+            }
+            for (Edge edge : delta.getAdded()) {
+                tree.add(key(edge, delta.getWeights()));
+            }
+            Collections.sort(tree);
+            assertEquals(RandomGraphs.edgeSet(mst), tree);
+        }
+    }
+
+    /** Weights around 2^40 (beyond int), a few negative; decimals with a fraction */
+    private static Number randomWeight(Random random, boolean decimals) {
+        long weight = (1L << 40) + random.nextInt(50) - (random.nextInt(10) == 0 ? 1L << 41 : 0);
+        return decimals ? weight + random.nextInt(4) / 4.0 : (Number) weight;
+    }
+
+    private static Number min(Number a, Number b, boolean decimals) {
+        if (decimals) {
+            return Math.min(a.doubleValue(), b.doubleValue());
+        }
+        return Math.min(a.longValue(), b.longValue());
+    }
+
+    private static long pair(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    private static Graph graph(CityNode[] nodes, Map<Long, Number> roads, boolean decimals) {
+        int m = roads.size();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        long[] longs = new long[m];
+        double[] doubles = new double[m];
+        int i = 0;
+        for (Map.Entry<Long, Number> road : roads.entrySet()) {
+            from[i] = (int) (road.getKey() >> 32);
+            to[i] = (int) (long) road.getKey();
+            longs[i] = road.getValue().longValue();
+            doubles[i] = road.getValue().doubleValue();
+            i++;
+        }
+        return decimals ? new Graph(nodes, from, to, doubles, m) : new Graph(nodes, from, to, longs, m);
+    }
+
+    private static String key(Edge edge, Weights weights) {
+        return Math.min(edge.getId1(), edge.getId2()) + " " + Math.max(edge.getId1(), edge.getId2()) + " "
+                + weights.format(edge.getCost());
+    }
+}
@@ -0,0 +1,94 @@
+package algo;
+
+import graph.Graph;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** BoruvkaAlgorithm with any number of threads and the FILTER and RADIX modes of
+ *  KruskalAlgorithm return the same edge set as CLASSIC Kruskal, on random graphs
+ *  with many ties, negative costs and several components; and RadixSort sorts
+ *  like Arrays.sort on both of its paths. */
+public class MSTAlgorithmsTest {
+    private static final int[] THREADS = {1, 2, 8};
+
+    @Test
+    public void sameEdgesAsClassicKruskal() {
+        Random random = new Random(10);
+        for (int trial = 0; trial < 60; trial++) {
+            int n = 1 + random.nextInt(400);
+            int numRoads = random.nextInt(4 * n);
+            int numCosts = trial % 3 == 0 ? 3 : 1 + random.nextInt(100000); // few costs: many ties
+            int minCost = trial % 2 == 0 ? -numCosts / 2 : 0;
+            assertSameEdges(RandomGraphs.graph(random, n, numRoads, minCost, numCosts));
+        }
+    }
+
+    @Test
+    public void largeGraphs() {
+        Random random = new Random(11);
+        // more vertices than one fork-join task takes, and more roads than RadixSort sorts sequentially
+        assertSameEdges(RandomGraphs.graph(random, 20000, 80000, -50, 100));
+        assertSameEdges(RandomGraphs.graph(random, 20000, 80000, Integer.MIN_VALUE / 2, Integer.MAX_VALUE));
+        assertSameEdges(RandomGraphs.graph(random, 30000, 20000, 0, 7)); // many components
+    }
+
+    @Test
+    public void radixSortSmallRange() {
+        Random random = new Random(12);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = trial < 25 ? random.nextInt(1000) : (1 << 16) + random.nextInt(100000); // last ones: parallel chunks
+            assertSorted(randomKeys(random, n, -1000 + random.nextInt(1000), 1 + random.nextInt(1 << 16)));
+        }
+    }
+
+    @Test
+    public void radixSortLargeRange() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = trial < 25 ? random.nextInt(1000) : (1 << 16) + random.nextInt(100000); // last ones: parallel chunks
+            assertSorted(randomKeys(random, n, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        }
+    }
+
+    /** Compare every algorithm with CLASSIC Kruskal */
+    private static void assertSameEdges(Graph graph) {
+        KruskalAlgorithm classic = new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.CLASSIC);
+        classic.computeMST();
+        List<String> expected = RandomGraphs.edgeSet(classic);
+        for (KruskalAlgorithm.Mode mode : new KruskalAlgorithm.Mode[]{KruskalAlgorithm.Mode.FILTER,
+                KruskalAlgorithm.Mode.RADIX}) {
+            KruskalAlgorithm kruskal = new KruskalAlgorithm(graph, mode);
+            kruskal.computeMST();
+            assertEquals(mode.toString(), expected, RandomGraphs.edgeSet(kruskal));
+            assertEquals(classic.getTotalWeight(), kruskal.getTotalWeight());
+        }
+        for (int numThreads : THREADS) {
+            BoruvkaAlgorithm boruvka = new BoruvkaAlgorithm(graph, numThreads);
+            boruvka.computeMST();
+            assertEquals(numThreads + " threads", expected, RandomGraphs.edgeSet(boruvka));
+        }
+    }
+
+    /** Keys like KruskalAlgorithm's: a cost from [min, min + range) above a 32-bit index */
+    private static long[] randomKeys(Random random, int n, int min, int range) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long cost = min + (long) random.nextInt(range);
+            keys[i] = (cost << 32) | i;
+        }
+        return keys;
+    }
+
+    private static void assertSorted(long[] keys) {
+        long[] expected = keys.clone();
+        Arrays.sort(expected); // the keys are distinct, so this is the stable order
+        RadixSort.sort(keys, keys.length, 32);
+        assertArrayEquals(expected, keys);
+    }
+}
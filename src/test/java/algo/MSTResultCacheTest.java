@@ -0,0 +1,160 @@
+package algo;
+
+import graph.CityNode;
+import graph.Graph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** MSTResultCache in memory and with its disk tier, used through CachedMSTAlgorithm */
+public class MSTResultCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void diskTierSurvivesANewCache() throws IOException {
+        File dir = folder.newFolder();
+        Graph graph = longGraph(70);
+        List<String> expected = computeWith(graph, new MSTResultCache(1 << 20, dir), false);
+        File[] files = dir.listFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].getName().endsWith(".mstc"));
+
+        MSTResultCache cache = new MSTResultCache(1 << 20, dir);
+        assertEquals(expected, computeWith(graph, cache, true)); // from disk
+        assertEquals(expected, computeWith(graph, cache, true)); // from memory
+        assertEquals(1, cache.getDiskHits());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void noMemoryBudget() throws IOException {
+        File dir = folder.newFolder();
+        MSTResultCache cache = new MSTResultCache(0, dir);
+        Graph graph = longGraph(71);
+        List<String> expected = computeWith(graph, cache, false);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals(expected, computeWith(graph, cache, true));
+        assertEquals(1, cache.getDiskHits());
+    }
+
+    @Test
+    public void damagedFileIsAMiss() throws IOException {
+        File dir = folder.newFolder();
+        Graph graph = longGraph(72);
+        List<String> expected = computeWith(graph, new MSTResultCache(1 << 20, dir), false);
+        File file = dir.listFiles()[0];
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+
+        MSTResultCache cache = new MSTResultCache(1 << 20, dir);
+        assertEquals(expected, computeWith(graph, cache, false));
+        assertEquals(1, cache.getMisses());
+        // the miss wrote the file again
+        assertEquals(expected, computeWith(graph, new MSTResultCache(1 << 20, dir), true));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        Graph first = longGraph(73);
+        Graph second = longGraph(74);
+        MSTResult result = compute(first).compact();
+        MSTResultCache cache = new MSTResultCache(result.bytes() + result.bytes() / 2); // room for one result
+        computeWith(first, cache, false);
+        computeWith(second, cache, false);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getBytes() <= result.bytes() + result.bytes() / 2);
+        computeWith(second, cache, true);
+        computeWith(first, cache, false);
+    }
+
+    @Test
+    public void sharedByThreads() throws Exception {
+        File dir = folder.newFolder();
+        MSTResultCache cache = new MSTResultCache(1 << 16, dir); // small: results are evicted and read from disk
+        Graph[] graphs = new Graph[6];
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < graphs.length; i++) {
+            graphs[i] = longGraph(80 + i);
+            expected.add(RandomGraphs.edgeSet(compute(graphs[i]).compact()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                tasks.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int k = 0; k < 30; k++) {
+                        int i = random.nextInt(graphs.length);
+                        CachedMSTAlgorithm cached = new CachedMSTAlgorithm(graphs[i],
+                                new KruskalAlgorithm(graphs[i]), "kruskal", cache);
+                        cached.computeMST();
+                        assertEquals(expected.get(i), RandomGraphs.edgeSet(cached));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(120, cache.getHits() + cache.getDiskHits() + cache.getMisses());
+        assertEquals(graphs.length, dir.listFiles((d, name) -> name.endsWith(".mstc")).length);
+        assertEquals(0, dir.listFiles((d, name) -> name.endsWith(".tmp")).length);
+    }
+
+    /** A connected graph with long weights */
+    private static Graph longGraph(long seed) {
+        Random random = new Random(seed);
+        int n = 2000;
+        int m = 4 * n;
+        CityNode[] nodes = RandomGraphs.cities(random, n);
+        int[] from = new int[m];
+        int[] to = new int[m];
+        long[] weights = new long[m];
+        for (int i = 0; i < m; i++) {
+            from[i] = i < n ? i : random.nextInt(n);
+            to[i] = i < n ? (i + 1) % n : random.nextInt(n);
+            weights[i] = (1L << 40) + random.nextInt(1 << 20);
+        }
+        return new Graph(nodes, from, to, weights, m);
+    }
+
+    private static MSTResult compute(Graph graph) {
+        KruskalAlgorithm kruskal = new KruskalAlgorithm(graph);
+        kruskal.computeMST();
+        return kruskal.getResult();
+    }
+
+    /** Run Kruskal through the cache and check whether it was a hit */
+    private static List<String> computeWith(Graph graph, MSTResultCache cache, boolean hit) {
+        CachedMSTAlgorithm cached = new CachedMSTAlgorithm(graph, new KruskalAlgorithm(graph), "kruskal", cache);
+        cached.computeMST();
+        if (hit) {
+            assertTrue(cached.isCacheHit());
+        } else {
+            assertFalse(cached.isCacheHit());
+        }
+        List<String> edges = RandomGraphs.edgeSet(cached);
+        assertEquals(RandomGraphs.edgeSet(compute(graph)), edges);
+        return edges;
+    }
+}
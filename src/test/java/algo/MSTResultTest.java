@@ -0,0 +1,131 @@
+package algo;
+
+import graph.CityNode;
+import graph.Graph;
+import graph.Weights;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Export and import of MSTResult (file channel and ByteBuffer), and compact,
+ *  for int, long and double weights */
+public class MSTResultTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void intWeights() throws IOException {
+        MSTResult result = mst(Weights.Kind.INT);
+        assertSame(result, result.compact());
+        assertRoundTrips(result);
+    }
+
+    @Test
+    public void longWeights() throws IOException {
+        assertRoundTrips(mst(Weights.Kind.LONG));
+        assertRoundTrips(mst(Weights.Kind.LONG).compact());
+    }
+
+    @Test
+    public void doubleWeights() throws IOException {
+        assertRoundTrips(mst(Weights.Kind.DOUBLE));
+        assertRoundTrips(mst(Weights.Kind.DOUBLE).compact());
+    }
+
+    @Test
+    public void compactKeepsOnlyTheWeightsOfTheEdges() {
+        for (Weights.Kind kind : new Weights.Kind[]{Weights.Kind.LONG, Weights.Kind.DOUBLE}) {
+            MSTResult result = mst(kind);
+            MSTResult compact = result.compact();
+            assertTrue(compact.getWeights().size() <= compact.numEdges());
+            assertTrue(compact.getWeights().size() < result.getWeights().size());
+            assertTrue(compact.bytes() < result.bytes());
+            assertSameResult(result, compact);
+            assertSame(compact, compact.compact());
+        }
+    }
+
+    @Test
+    public void emptyResult() throws IOException {
+        MSTResult result = new MSTResult(5, new int[0], 0, Weights.INT);
+        assertRoundTrips(result);
+    }
+
+    /**
+     * MST of a random graph with about 30000 edges (more than one write buffer) and
+     * weights of the given kind, most of them not in the MST
+     */
+    private static MSTResult mst(Weights.Kind kind) {
+        Random random = new Random(50 + kind.ordinal());
+        int n = 30000;
+        int m = 4 * n;
+        CityNode[] nodes = RandomGraphs.cities(random, n);
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] ints = new int[m];
+        long[] longs = new long[m];
+        double[] doubles = new double[m];
+        for (int i = 0; i < m; i++) {
+            from[i] = i < n ? i : random.nextInt(n); // a path through all cities keeps the graph connected
+            to[i] = i < n ? (i + 1) % n : random.nextInt(n);
+            ints[i] = random.nextInt() / 2;
+            longs[i] = random.nextLong() >> 24; // beyond int, but the total fits in a long
+            doubles[i] = random.nextGaussian() * 1e6;
+        }
+        Graph graph = kind == Weights.Kind.INT ? new Graph(nodes, from, to, ints, m)
+                : kind == Weights.Kind.LONG ? new Graph(nodes, from, to, longs, m)
+                : new Graph(nodes, from, to, doubles, m);
+        assertEquals(kind, graph.getWeights().getKind());
+        KruskalAlgorithm kruskal = new KruskalAlgorithm(graph);
+        kruskal.computeMST();
+        return kruskal.getResult();
+    }
+
+    /** Write the result to a file and to a buffer, and read both back */
+    private void assertRoundTrips(MSTResult result) throws IOException {
+        File file = folder.newFile();
+        result.writeTo(file.toPath());
+        assertEquals(result.byteSize(), file.length());
+        assertSameResult(result, MSTResult.read(file.toPath()));
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate((int) result.byteSize() + 8),
+                ByteBuffer.allocateDirect((int) result.byteSize() + 8)}) {
+            buffer.putLong(-1); // the result does not have to start at position 0
+            result.writeTo(buffer);
+            assertEquals(0, buffer.remaining());
+            buffer.flip();
+            buffer.getLong();
+            assertSameResult(result, MSTResult.read(buffer));
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    /** Same edges in the same order, with the same weights (the costs may be other ranks) */
+    private static void assertSameResult(MSTResult expected, MSTResult actual) {
+        assertEquals(expected.numNodes(), actual.numNodes());
+        assertEquals(expected.numEdges(), actual.numEdges());
+        String[] expectedEdges = new String[expected.numEdges()];
+        String[] actualEdges = new String[actual.numEdges()];
+        for (int i = 0; i < expected.numEdges(); i++) {
+            expectedEdges[i] = expected.id1(i) + " " + expected.id2(i) + " "
+                    + expected.getWeights().format(expected.cost(i));
+            actualEdges[i] = actual.id1(i) + " " + actual.id2(i) + " " + actual.getWeights().format(actual.cost(i));
+        }
+        assertArrayEquals(expectedEdges, actualEdges);
+        if (expected.getWeights().isIntegral()) {
+            assertEquals(expected.getTotalWeight(), actual.getTotalWeight());
+        } else {
+            assertEquals(expected.getTotalWeightAsDouble(), actual.getTotalWeightAsDouble(), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package algo;
+
+import graph.Graph;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/** ParallelPrimAlgorithm returns the same edge set as CLASSIC Kruskal for any number of threads */
+public class ParallelPrimAlgorithmTest {
+    private static final int[] THREADS = {1, 2, 8};
+
+    @Test
+    public void sameEdgesAsClassicKruskal() {
+        Random random = new Random(30);
+        for (int trial = 0; trial < 60; trial++) {
+            int n = 1 + random.nextInt(1000);
+            int numRoads = random.nextInt(4 * n);
+            int numCosts = trial % 3 == 0 ? 2 : 1 + random.nextInt(10000); // few costs: many ties
+            assertSameEdges(RandomGraphs.graph(random, n, numRoads, -numCosts / 2, numCosts));
+        }
+    }
+
+    @Test
+    public void largeGraphs() {
+        Random random = new Random(31);
+        assertSameEdges(RandomGraphs.graph(random, 50000, 200000, 0, 20));
+        assertSameEdges(RandomGraphs.graph(random, 50000, 30000, -1000, 2000)); // many components
+    }
+
+    private static void assertSameEdges(Graph graph) {
+        KruskalAlgorithm kruskal = new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.CLASSIC);
+        kruskal.computeMST();
+        List<String> expected = RandomGraphs.edgeSet(kruskal);
+        for (int numThreads : THREADS) {
+            ParallelPrimAlgorithm prim = new ParallelPrimAlgorithm(graph, numThreads);
+            prim.computeMST();
+            assertEquals(numThreads + " threads", expected, RandomGraphs.edgeSet(prim));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package algo;
+
+import graph.Graph;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** PrimAlgorithm grows the same forest, edge for edge, with one thread and with
+ *  several threads that grow different components */
+public class PrimAlgorithmTest {
+
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(20);
+        for (int trial = 0; trial < 40; trial++) {
+            int n = 1 + random.nextInt(2000);
+            int numRoads = random.nextInt(n + 1); // at most n roads: many components
+            int numCosts = trial % 2 == 0 ? 4 : 1000;
+            Graph graph = RandomGraphs.graph(random, n, numRoads, -numCosts / 2, numCosts);
+            int source = random.nextInt(n);
+            assertSameTriples(graph, source);
+        }
+    }
+
+    @Test
+    public void manyComponents() {
+        Random random = new Random(21);
+        assertSameTriples(RandomGraphs.graph(random, 50000, 40000, 0, 100), 0);
+        assertSameTriples(RandomGraphs.graph(random, 50000, 0, 0, 1), 49999); // no roads at all
+    }
+
+    private static void assertSameTriples(Graph graph, int source) {
+        PrimAlgorithm sequential = new PrimAlgorithm(graph, source);
+        sequential.computeMST();
+        int[] expected = RandomGraphs.triples(sequential.getResult());
+        for (int numThreads : new int[]{2, 8}) {
+            PrimAlgorithm parallel = new PrimAlgorithm(graph, source, PrimAlgorithm.DEFAULT_HEAP_ARITY, numThreads);
+            parallel.computeMST();
+            assertArrayEquals(numThreads + " threads", expected, RandomGraphs.triples(parallel.getResult()));
+            assertEquals(sequential.getTotalWeight(), parallel.getTotalWeight());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package algo;
+
+import graph.CityNode;
+import graph.Graph;
+import graph.Weights;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Random graphs and edge sets shared by the tests of the MST algorithms */
+final class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * Return cities at random points of the unit square
+     * @param random source of the coordinates
+     * @param n number of cities
+     * @return the cities, named C0 .. C(n - 1)
+     */
+    static CityNode[] cities(Random random, int n) {
+        CityNode[] nodes = new CityNode[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new CityNode("C" + i, random.nextDouble(), random.nextDouble());
+        }
+        return nodes;
+    }
+
+    /**
+     * Return a graph with random roads (self-loops and parallel roads included)
+     * @param random source of the roads
+     * @param n number of cities
+     * @param numRoads number of roads; fewer than n usually leaves the graph disconnected
+     * @param minCost smallest cost
+     * @param numCosts number of distinct costs (a small number gives many ties)
+     * @return the graph
+     */
+    static Graph graph(Random random, int n, int numRoads, int minCost, int numCosts) {
+        int[] from = new int[numRoads];
+        int[] to = new int[numRoads];
+        int[] cost = new int[numRoads];
+        for (int i = 0; i < numRoads; i++) {
+            from[i] = random.nextInt(n);
+            to[i] = random.nextInt(n);
+            cost[i] = minCost + random.nextInt(numCosts);
+        }
+        return new Graph(cities(random, n), from, to, cost, numRoads);
+    }
+
+    /**
+     * Return the edges of an MST as sorted "id1 id2 weight" strings, with id1 <= id2
+     * @param mst a computed algorithm
+     * @return the edge set (a list, so parallel edges of equal weight count twice)
+     */
+    static List<String> edgeSet(MSTAlgorithm mst) {
+        return edgeSet(mst.getResult());
+    }
+
+    /**
+     * Return the edges of a result as sorted "id1 id2 weight" strings, with id1 <= id2
+     * @param result the result
+     * @return the edge set
+     */
+    static List<String> edgeSet(MSTResult result) {
+        Weights weights = result.getWeights();
+        List<String> edges = new ArrayList<>();
+        result.forEach((id1, id2, cost) ->
+                edges.add(Math.min(id1, id2) + " " + Math.max(id1, id2) + " " + weights.format(cost)));
+        Collections.sort(edges);
+        return edges;
+    }
+
+    /**
+     * Return the (id1, id2, cost) triples of a result, in the order the edges were added
+     * @param result the result
+     * @return the triples
+     */
+    static int[] triples(MSTResult result) {
+        int[] triples = new int[3 * result.numEdges()];
+        for (int i = 0; i < result.numEdges(); i++) {
+            triples[3 * i] = result.id1(i);
+            triples[3 * i + 1] = result.id2(i);
+            triples[3 * i + 2] = result.cost(i);
+        }
+        return triples;
+    }
+}
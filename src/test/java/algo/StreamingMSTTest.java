@@ -0,0 +1,147 @@
+package algo;
+
+import graph.CityNode;
+import graph.Graph;
+import graph.GraphLoader;
+import graph.Weights;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** StreamingMST keeps a forest with the weights of the MST that KruskalAlgorithm
+ *  computes from all roads read so far, for int, long, decimal and mixed costs */
+public class StreamingMSTTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void graphFiles() throws IOException {
+        Random random = new Random(100);
+        for (int costs = 0; costs < 4; costs++) { // int, long, decimal, mixed
+            for (int trial = 0; trial < 5; trial++) {
+                int n = 1 + random.nextInt(300);
+                List<String> lines = new ArrayList<>();
+                lines.add("NODES");
+                lines.add(Integer.toString(n));
+                for (int i = 0; i < n; i++) {
+                    lines.add("C" + i + " " + random.nextInt(100) + " " + random.nextInt(100));
+                }
+                lines.add("ARCS");
+                for (int i = random.nextInt(4 * n); i > 0; i--) {
+                    lines.add("C" + random.nextInt(n) + " C" + random.nextInt(n) + " " + cost(random, costs));
+                }
+                File file = folder.newFile();
+                Files.write(file.toPath(), lines);
+
+                StreamingMST stream = new StreamingMST();
+                stream.accept(Files.lines(file.toPath()));
+                assertSameWeights(new GraphLoader().load(file.getPath()), stream);
+                assertEquals(costs >= 2, stream.hasDecimals());
+            }
+        }
+    }
+
+    @Test
+    public void switchToDecimalsMidStream() {
+        Random random = new Random(101);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 2 + random.nextInt(60);
+            StreamingMST stream = new StreamingMST();
+            for (int i = 0; i < n; i++) {
+                stream.cityId("C" + i);
+            }
+            int numRoads = 1 + random.nextInt(6 * n);
+            int switchAt = random.nextInt(numRoads); // the first decimal cost
+            int[] from = new int[numRoads];
+            int[] to = new int[numRoads];
+            long[] longs = new long[numRoads];
+            double[] doubles = new double[numRoads];
+            for (int r = 0; r < numRoads; r++) {
+                from[r] = random.nextInt(n);
+                to[r] = random.nextInt(n);
+                long cost = random.nextInt(41) - 20; // negative costs and many ties
+                if (random.nextInt(4) == 0) {
+                    cost <<= 36; // beyond int
+                }
+                if (r < switchAt || r > switchAt && random.nextBoolean()) {
+                    stream.addRoad(from[r], to[r], cost);
+                    doubles[r] = cost;
+                } else {
+                    doubles[r] = cost + random.nextInt(8) / 8.0;
+                    stream.addRoad(from[r], to[r], doubles[r]);
+                }
+                longs[r] = cost;
+                assertEquals(r >= switchAt, stream.hasDecimals());
+
+                CityNode[] nodes = RandomGraphs.cities(random, n);
+                Graph graph = r < switchAt ? new Graph(nodes, from, to, longs, r + 1)
+                        : new Graph(nodes, from, to, doubles, r + 1);
+                assertSameWeights(graph, stream);
+            }
+        }
+    }
+
+    @Test
+    public void exactLongTotal() {
+        StreamingMST stream = new StreamingMST();
+        stream.addRoad("A", "B", Long.MAX_VALUE / 2);
+        stream.addRoad("B", "C", Long.MAX_VALUE / 2);
+        stream.addRoad("C", "D", 1);
+        assertEquals(Long.MAX_VALUE, stream.getTotalWeight()); // a double total would be rounded
+        stream.addRoad("A", "C", -5);
+        assertEquals(Long.MAX_VALUE / 2 - 4, stream.getTotalWeight());
+        assertFalse(stream.hasDecimals());
+        stream.addRoad("A", "D", 0.5);
+        assertTrue(stream.hasDecimals());
+        assertEquals(-4.5 + Long.MAX_VALUE / 2, stream.getTotalWeightAsDouble(), 1e3);
+    }
+
+    /** Random cost: 0 int, 1 long, 2 decimal, 3 long or decimal */
+    private static String cost(Random random, int costs) {
+        long cost = random.nextInt(200) - 100;
+        if (costs == 1 || costs == 3 && random.nextBoolean()) {
+            return Long.toString(cost << 33);
+        }
+        if (costs == 2 || costs == 3) {
+            return Double.toString(cost + random.nextInt(4) / 4.0);
+        }
+        return Long.toString(cost);
+    }
+
+    /** The forest has the MST's number of edges and multiset of weights (the same for every MST) */
+    private static void assertSameWeights(Graph graph, StreamingMST stream) {
+        KruskalAlgorithm kruskal = new KruskalAlgorithm(graph, KruskalAlgorithm.Mode.CLASSIC);
+        kruskal.computeMST();
+        MSTResult result = stream.getResult();
+        assertEquals(kruskal.numMSTEdges(), stream.numEdges());
+        assertEquals(weights(kruskal.getResult()), weights(result));
+        if (graph.getWeights().isIntegral()) {
+            assertEquals(kruskal.getTotalWeight(), stream.getTotalWeight());
+        } else {
+            assertEquals(kruskal.getTotalWeightAsDouble(), stream.getTotalWeightAsDouble(), 1e-3);
+        }
+    }
+
+    private static List<BigDecimal> weights(MSTResult result) {
+        Weights weights = result.getWeights();
+        List<BigDecimal> list = new ArrayList<>();
+        for (int i = 0; i < result.numEdges(); i++) {
+            list.add(new BigDecimal(weights.format(result.cost(i))).stripTrailingZeros());
+        }
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,224 @@
+package dynamicTree;
+
+import algo.KruskalAlgorithm;
+import graph.CityNode;
+import graph.Graph;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Compares LinkCutTree with a forest of adjacency sets searched by BFS on random
+ *  link, cut, setValue and pathMax sequences, and with KruskalAlgorithm when it
+ *  keeps a spanning forest like StreamingMST. */
+public class LinkCutTreeTest {
+
+    @Test
+    public void randomOperations() {
+        Random random = new Random(4);
+        for (int trial = 0; trial < 40; trial++) {
+            int n = 1 + random.nextInt(60);
+            LinkCutTree tree = new LinkCutTree(n);
+            NaiveForest naive = new NaiveForest(n);
+            for (int x = 0; x < n; x++) {
+                int value = random.nextInt(100);
+                tree.setValue(x, value);
+                naive.value[x] = value;
+            }
+            List<int[]> edges = new ArrayList<>();
+            for (int op = 0; op < 2000; op++) {
+                int x = random.nextInt(n);
+                int y = random.nextInt(n);
+                switch (random.nextInt(5)) {
+                    case 0:
+                    case 1:
+                        if (naive.path(x, y) == null) {
+                            tree.link(x, y);
+                            naive.link(x, y);
+                            edges.add(new int[]{x, y});
+                        }
+                        break;
+                    case 2:
+                        if (!edges.isEmpty()) {
+                            int[] edge = edges.remove(random.nextInt(edges.size()));
+                            // cut in either direction
+                            if (random.nextBoolean()) {
+                                tree.cut(edge[0], edge[1]);
+                            } else {
+                                tree.cut(edge[1], edge[0]);
+                            }
+                            naive.cut(edge[0], edge[1]);
+                        }
+                        break;
+                    case 3:
+                        int value = random.nextInt(100) - (random.nextInt(10) == 0 ? 200 : 0);
+                        tree.setValue(x, value);
+                        naive.value[x] = value;
+                        break;
+                    default:
+                        List<Integer> path = naive.path(x, y);
+                        assertEquals(path != null, tree.connected(x, y));
+                        if (path != null) {
+                            int max = tree.pathMax(x, y);
+                            assertTrue("max on the path", path.contains(max));
+                            int expected = Integer.MIN_VALUE;
+                            for (int z : path) {
+                                expected = Math.max(expected, naive.value[z]);
+                            }
+                            assertEquals(expected, tree.getValue(max));
+                        }
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                assertEquals(naive.value[x], tree.getValue(x));
+                for (int y = 0; y < n; y++) {
+                    assertEquals(naive.path(x, y) != null, tree.connected(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void findRootIsInTheTree() {
+        Random random = new Random(5);
+        int n = 100;
+        LinkCutTree tree = new LinkCutTree(n);
+        NaiveForest naive = new NaiveForest(n);
+        for (int i = 0; i < 300; i++) {
+            int x = random.nextInt(n);
+            int y = random.nextInt(n);
+            if (naive.path(x, y) == null) {
+                tree.link(x, y);
+                naive.link(x, y);
+            }
+            int z = random.nextInt(n);
+            int root = tree.findRoot(z);
+            assertTrue(naive.path(z, root) != null);
+            assertEquals(root, tree.findRoot(root));
+        }
+    }
+
+    @Test
+    public void ensureSizeKeepsTrees() {
+        LinkCutTree tree = new LinkCutTree(2);
+        tree.setValue(0, 7);
+        tree.link(0, 1);
+        tree.ensureSize(10);
+        assertEquals(10, tree.size());
+        assertTrue(tree.connected(0, 1));
+        assertFalse(tree.connected(0, 9));
+        tree.link(1, 9);
+        assertEquals(0, tree.pathMax(9, 0));
+    }
+
+    /** Keep a spanning forest with the cycle rule (a road replaces the most expensive
+     *  road of the cycle it closes if it is cheaper) and compare it with Kruskal */
+    @Test
+    public void cycleRuleMatchesKruskal() {
+        Random random = new Random(6);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 2 + random.nextInt(150);
+            int numRoads = random.nextInt(5 * n);
+            CityNode[] nodes = new CityNode[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = new CityNode("C" + i, random.nextDouble(), random.nextDouble());
+            }
+            int[] from = new int[numRoads];
+            int[] to = new int[numRoads];
+            int[] cost = new int[numRoads];
+            // cities are nodes 0 .. n - 1 and road i is node n + i
+            LinkCutTree tree = new LinkCutTree(n + numRoads);
+            for (int x = 0; x < n; x++) {
+                tree.setValue(x, Integer.MIN_VALUE);
+            }
+            long total = 0;
+            int numEdges = 0;
+            for (int i = 0; i < numRoads; i++) {
+                from[i] = random.nextInt(n);
+                to[i] = random.nextInt(n);
+                cost[i] = random.nextInt(random.nextBoolean() ? 10 : Integer.MAX_VALUE);
+                if (from[i] == to[i]) {
+                    continue;
+                }
+                tree.setValue(n + i, cost[i]);
+                if (tree.connected(from[i], to[i])) {
+                    int max = tree.pathMax(from[i], to[i]);
+                    if (tree.getValue(max) <= cost[i]) {
+                        continue;
+                    }
+                    tree.cut(from[max - n], max);
+                    tree.cut(max, to[max - n]);
+                    total -= tree.getValue(max);
+                    numEdges--;
+                }
+                tree.link(from[i], n + i);
+                tree.link(n + i, to[i]);
+                total += cost[i];
+                numEdges++;
+            }
+            KruskalAlgorithm kruskal = new KruskalAlgorithm(new Graph(nodes, from, to, cost, numRoads));
+            kruskal.computeMST();
+            assertEquals(kruskal.getTotalWeight(), total);
+            assertEquals(kruskal.numMSTEdges(), numEdges);
+        }
+    }
+
+    /** A forest of adjacency sets; paths are found by BFS */
+    private static class NaiveForest {
+        final int[] value;
+        final List<Set<Integer>> neighbors = new ArrayList<>();
+
+        NaiveForest(int n) {
+            value = new int[n];
+            for (int x = 0; x < n; x++) {
+                neighbors.add(new HashSet<>());
+            }
+        }
+
+        void link(int x, int y) {
+            neighbors.get(x).add(y);
+            neighbors.get(y).add(x);
+        }
+
+        void cut(int x, int y) {
+            neighbors.get(x).remove(y);
+            neighbors.get(y).remove(x);
+        }
+
+        /** Return the nodes of the path from x to y, or null if they are not connected */
+        List<Integer> path(int x, int y) {
+            int[] previous = new int[value.length];
+            Arrays.fill(previous, -1);
+            previous[x] = x;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(x);
+            while (!queue.isEmpty() && previous[y] == -1) {
+                int u = queue.poll();
+                for (int v : neighbors.get(u)) {
+                    if (previous[v] == -1) {
+                        previous[v] = u;
+                        queue.add(v);
+                    }
+                }
+            }
+            if (previous[y] == -1) {
+                return null;
+            }
+            List<Integer> path = new ArrayList<>();
+            for (int z = y; z != x; z = previous[z]) {
+                path.add(z);
+            }
+            path.add(x);
+            return path;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Graphs written with GraphSnapshot.write open as the same graph (version 2 with
+ *  int, long and double weights, and version 1), and open rejects snapshots with a
+ *  broken weights section */
+public class GraphSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void intWeights() throws IOException {
+        Graph graph = randomGraph(Weights.Kind.INT);
+        Graph copy = roundTrip(graph);
+        assertSameGraph(graph, copy);
+        assertSame(Weights.INT, copy.getWeights());
+    }
+
+    @Test
+    public void longWeights() throws IOException {
+        Graph graph = randomGraph(Weights.Kind.LONG);
+        Graph copy = roundTrip(graph);
+        assertSameGraph(graph, copy);
+        assertArrayEquals(graph.getWeights().longTable(), copy.getWeights().longTable());
+    }
+
+    @Test
+    public void doubleWeights() throws IOException {
+        Graph graph = randomGraph(Weights.Kind.DOUBLE);
+        Graph copy = roundTrip(graph);
+        assertSameGraph(graph, copy);
+        assertArrayEquals(graph.getWeights().doubleTable(), copy.getWeights().doubleTable(), 0);
+    }
+
+    @Test
+    public void version1() throws IOException {
+        Graph graph = randomGraph(Weights.Kind.INT);
+        File file = folder.newFile();
+        GraphSnapshot.write(graph, file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // a version 1 snapshot ends before the weights section (kind and length)
+            raf.seek(4);
+            raf.writeInt(Integer.reverseBytes(1));
+            raf.setLength(raf.length() - 2 * Integer.BYTES);
+        }
+        Graph copy = GraphSnapshot.open(file.getPath());
+        assertSameGraph(graph, copy);
+        assertSame(Weights.INT, copy.getWeights());
+    }
+
+    @Test
+    public void emptyGraph() throws IOException {
+        Graph graph = new Graph(new CityNode[0], new int[0], new int[0], new int[0], 0);
+        assertSameGraph(graph, roundTrip(graph));
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        File file = folder.newFile();
+        GraphSnapshot.write(randomGraph(Weights.Kind.LONG), file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try {
+            GraphSnapshot.open(file.getPath());
+            fail("opened a truncated snapshot");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void unknownWeightKind() throws IOException {
+        assertRejected(7, 3, "unknown weight kind");
+    }
+
+    @Test
+    public void negativeRankTableLength() throws IOException {
+        assertRejected(Weights.Kind.LONG.ordinal(), -1, "invalid rank table length");
+    }
+
+    @Test
+    public void rankTableShorterThanCosts() throws IOException {
+        assertRejected(Weights.Kind.LONG.ordinal(), 2, "has no weight");
+    }
+
+    /**
+     * Write a snapshot of a graph with three long weights, replace the kind and
+     * the length of its rank table, and check that open fails with the message
+     */
+    private void assertRejected(int kind, int numRanks, String message) throws IOException {
+        CityNode[] nodes = {new CityNode("A", 0, 0), new CityNode("B", 1, 0), new CityNode("C", 0, 1)};
+        long[] weights = {1L << 40, 5, -(1L << 35)};
+        Graph graph = new Graph(nodes, new int[]{0, 1, 2}, new int[]{1, 2, 0}, weights, 3);
+        File file = folder.newFile();
+        GraphSnapshot.write(graph, file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // the weights section is last: kind, length and 3 longs
+            raf.seek(raf.length() - 3 * Long.BYTES - 2 * Integer.BYTES);
+            raf.writeInt(Integer.reverseBytes(kind));
+            raf.writeInt(Integer.reverseBytes(numRanks));
+        }
+        try {
+            GraphSnapshot.open(file.getPath());
+            fail("opened a snapshot with weight kind " + kind + " and " + numRanks + " ranks");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    /** A graph with 500 cities (some with non-ASCII names) and random roads */
+    private static Graph randomGraph(Weights.Kind kind) {
+        Random random = new Random(60 + kind.ordinal());
+        int n = 500;
+        int m = 3000;
+        CityNode[] nodes = new CityNode[n];
+        for (int i = 0; i < n; i++) {
+            String name = i % 7 == 0 ? "Z\u00fcrich " + i : "C" + i;
+            nodes[i] = new CityNode(name, random.nextDouble() * 1000, random.nextDouble() * 1000);
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] ints = new int[m];
+        long[] longs = new long[m];
+        double[] doubles = new double[m];
+        for (int i = 0; i < m; i++) {
+            from[i] = random.nextInt(n);
+            to[i] = random.nextInt(n);
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextGaussian();
+        }
+        Graph graph = kind == Weights.Kind.INT ? new Graph(nodes, from, to, ints, m)
+                : kind == Weights.Kind.LONG ? new Graph(nodes, from, to, longs, m)
+                : new Graph(nodes, from, to, doubles, m);
+        assertEquals(kind, graph.getWeights().getKind());
+        return graph;
+    }
+
+    private Graph roundTrip(Graph graph) throws IOException {
+        File file = folder.newFile();
+        GraphSnapshot.write(graph, file.getPath());
+        assertTrue(GraphSnapshot.isSnapshot(file.getPath()));
+        return GraphSnapshot.open(file.getPath());
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.numNodes(), actual.numNodes());
+        for (int i = 0; i < expected.numNodes(); i++) {
+            assertEquals(expected.getNode(i).getCity(), actual.getNode(i).getCity());
+            assertEquals(expected.getNode(i).getX(), actual.getNode(i).getX(), 0);
+            assertEquals(expected.getNode(i).getY(), actual.getNode(i).getY(), 0);
+        }
+        assertArrayEquals(expected.csrOffsets(), actual.csrOffsets());
+        assertArrayEquals(expected.csrTargets(), actual.csrTargets());
+        assertArrayEquals(expected.csrCosts(), actual.csrCosts());
+        assertEquals(expected.getWeights().getKind(), actual.getWeights().getKind());
+        assertEquals(expected.getContentHash(), actual.getContentHash());
+    }
+}
@@ -0,0 +1,169 @@
+package sets;
+
+import algo.KruskalAlgorithm;
+import graph.CityNode;
+import graph.Graph;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Compares ConcurrentDisjointSets with DisjointSets on random unions, from one
+ *  thread and from several threads at once, and with KruskalAlgorithm. */
+public class ConcurrentDisjointSetsTest {
+    private static final int THREADS = 8;
+
+    @Test
+    public void sameSetsAsDisjointSets() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 50; trial++) {
+            int n = 1 + random.nextInt(200);
+            ConcurrentDisjointSets concurrent = new ConcurrentDisjointSets(n);
+            DisjointSets sets = new DisjointSets();
+            sets.createSets(n);
+            for (int i = 0; i < 2 * n; i++) {
+                int x = random.nextInt(n);
+                int y = random.nextInt(n);
+                boolean merged = sets.find(x) != sets.find(y);
+                assertEquals(merged, concurrent.union(x, y));
+                sets.union(x, y);
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                assertEquals(sets.find(a) == sets.find(b), concurrent.sameSet(a, b));
+            }
+            assertSamePartition(sets, concurrent, n);
+        }
+    }
+
+    @Test
+    public void concurrentUnions() throws InterruptedException {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 1000 + random.nextInt(5000);
+            int numPairs = n + random.nextInt(2 * n);
+            int[] xs = new int[numPairs];
+            int[] ys = new int[numPairs];
+            DisjointSets sets = new DisjointSets();
+            sets.createSets(n);
+            int expectedMerges = 0;
+            for (int i = 0; i < numPairs; i++) {
+                xs[i] = random.nextInt(n);
+                ys[i] = random.nextInt(n);
+                if (sets.find(xs[i]) != sets.find(ys[i])) {
+                    expectedMerges++;
+                    sets.union(xs[i], ys[i]);
+                }
+            }
+
+            ConcurrentDisjointSets concurrent = new ConcurrentDisjointSets(n);
+            AtomicInteger merges = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int first = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // every thread does every union, in its own order, so they race on the same roots
+                    for (int k = 0; k < numPairs; k++) {
+                        int i = (first * (numPairs / THREADS) + k) % numPairs;
+                        if (concurrent.union(xs[i], ys[i])) {
+                            merges.incrementAndGet();
+                        }
+                        concurrent.find(ys[(i + 1) % numPairs]);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            // exactly one union merges two given sets, whatever the interleaving
+            assertEquals(expectedMerges, merges.get());
+            assertSamePartition(sets, concurrent, n);
+        }
+    }
+
+    @Test
+    public void kruskalWithConcurrentSets() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 30; trial++) {
+            int n = 2 + random.nextInt(300);
+            int numRoads = random.nextInt(4 * n);
+            CityNode[] nodes = new CityNode[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = new CityNode("C" + i, random.nextDouble(), random.nextDouble());
+            }
+            int[] from = new int[numRoads];
+            int[] to = new int[numRoads];
+            int[] cost = new int[numRoads];
+            long[] keys = new long[numRoads];
+            for (int i = 0; i < numRoads; i++) {
+                from[i] = random.nextInt(n);
+                to[i] = random.nextInt(n);
+                cost[i] = random.nextInt(50);
+                keys[i] = ((long) cost[i] << 32) | i;
+            }
+            KruskalAlgorithm kruskal = new KruskalAlgorithm(new Graph(nodes, from, to, cost, numRoads));
+            kruskal.computeMST();
+
+            Arrays.sort(keys);
+            ConcurrentDisjointSets sets = new ConcurrentDisjointSets(n);
+            long total = 0;
+            int numEdges = 0;
+            for (long key : keys) {
+                int i = (int) key;
+                if (sets.union(from[i], to[i])) {
+                    total += cost[i];
+                    numEdges++;
+                }
+            }
+            assertEquals(kruskal.getTotalWeight(), total);
+            assertEquals(kruskal.numMSTEdges(), numEdges);
+        }
+    }
+
+    @Test
+    public void singleNode() {
+        ConcurrentDisjointSets sets = new ConcurrentDisjointSets(1);
+        assertEquals(0, sets.find(0));
+        assertFalse(sets.union(0, 0));
+        assertTrue(sets.sameSet(0, 0));
+    }
+
+    /** Check that two nodes are in the same concurrent set exactly when they are in the same set */
+    private static void assertSamePartition(DisjointSets sets, ConcurrentDisjointSets concurrent, int n) {
+        int[] rootOf = new int[n]; // concurrent root of the first node seen in each set
+        Arrays.fill(rootOf, -1);
+        for (int x = 0; x < n; x++) {
+            int root = sets.find(x);
+            if (rootOf[root] == -1) {
+                rootOf[root] = concurrent.find(x);
+            }
+            assertEquals("node " + x, rootOf[root], concurrent.find(x));
+        }
+        int numSets = 0;
+        for (int x = 0; x < n; x++) {
+            if (concurrent.find(x) == x) {
+                numSets++;
+            }
+            if (sets.find(x) == x) {
+                numSets--;
+            }
+        }
+        assertEquals(0, numSets);
+    }
+}